@@ -0,0 +1,147 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 设备指标上报压测工具（只依赖 JDK，单文件运行）
+ * <p>
+ * 模拟 devices 台边缘设备，每台每隔 interval 毫秒产生一条指标，按 batch 条一批并发 POST /device/metrics，
+ * 结束时读取 /device/metrics/ingest-stats 的 writtenRows 差值，给出服务端持续写库速率（行/秒）。
+ * <pre>
+ * java bench/MetricsLoadGenerator.java [baseUrl] [devices] [intervalMs] [batch] [concurrency] [durationSec]
+ * java bench/MetricsLoadGenerator.java http://localhost:8080/api/v1 5000 2000 200 16 120
+ * </pre>
+ * devices / intervalMs 决定目标速率；服务端返回 429（缓冲区已满）时该批计为被拒绝，不重试。
+ */
+public class MetricsLoadGenerator {
+
+    private static final Pattern CODE = Pattern.compile("\"code\"\\s*:\\s*(\\d+)");
+
+    private static final Pattern WRITTEN_ROWS = Pattern.compile("\"writtenRows\"\\s*:\\s*\"?(\\d+)");
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080/api/v1";
+        int devices = args.length > 1 ? Integer.parseInt(args[1]) : 5000;
+        long intervalMs = args.length > 2 ? Long.parseLong(args[2]) : 2000;
+        int batch = args.length > 3 ? Integer.parseInt(args[3]) : 200;
+        int concurrency = args.length > 4 ? Integer.parseInt(args[4]) : 16;
+        long durationSec = args.length > 5 ? Long.parseLong(args[5]) : 120;
+
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newFixedThreadPool(concurrency))
+                .build();
+        double targetRate = devices * 1000.0 / intervalMs;
+        // 每个发送线程负责的批次间隔，使总速率接近目标速率
+        long batchIntervalNanos = (long) (batch * concurrency / targetRate * 1_000_000_000L);
+        System.out.printf("目标速率: %.0f 行/秒, 批大小: %d, 并发: %d, 时长: %ds%n", targetRate, batch, concurrency, durationSec);
+
+        LongAdder sentRows = new LongAdder();
+        LongAdder acceptedRows = new LongAdder();
+        LongAdder rejectedRows = new LongAdder();
+        LongAdder failedRequests = new LongAdder();
+        LongAdder latencyNanos = new LongAdder();
+        LongAdder requests = new LongAdder();
+
+        long writtenBefore = writtenRows(client, baseUrl);
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(durationSec);
+        ExecutorService senders = Executors.newFixedThreadPool(concurrency);
+        for (int t = 0; t < concurrency; t++) {
+            senders.submit(() -> {
+                long next = System.nanoTime();
+                while (System.nanoTime() < end) {
+                    String body = batchJson(devices, batch);
+                    HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/device/metrics"))
+                            .timeout(Duration.ofSeconds(10))
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString(body))
+                            .build();
+                    long sendStart = System.nanoTime();
+                    try {
+                        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                        latencyNanos.add(System.nanoTime() - sendStart);
+                        requests.increment();
+                        sentRows.add(batch);
+                        Matcher m = CODE.matcher(response.body());
+                        if (response.statusCode() == 200 && m.find() && "200".equals(m.group(1))) {
+                            acceptedRows.add(batch);
+                        } else {
+                            rejectedRows.add(batch);
+                        }
+                    } catch (Exception e) {
+                        failedRequests.increment();
+                    }
+                    next += batchIntervalNanos;
+                    long sleep = next - System.nanoTime();
+                    if (sleep > 0) {
+                        TimeUnit.NANOSECONDS.sleep(sleep);
+                    } else {
+                        // 发送跟不上目标速率时不补发，避免堆积
+                        next = System.nanoTime();
+                    }
+                }
+                return null;
+            });
+        }
+        senders.shutdown();
+        senders.awaitTermination(durationSec + 30, TimeUnit.SECONDS);
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        // 等待缓冲区中剩余数据刷盘
+        TimeUnit.SECONDS.sleep(3);
+        long writtenAfter = writtenRows(client, baseUrl);
+
+        System.out.printf("发送: %d 行, 接受: %d 行, 拒绝(429 等): %d 行, 请求失败: %d 次%n",
+                sentRows.sum(), acceptedRows.sum(), rejectedRows.sum(), failedRequests.sum());
+        System.out.printf("平均请求耗时: %.1f ms%n", requests.sum() == 0 ? 0 : latencyNanos.sum() / 1e6 / requests.sum());
+        System.out.printf("接受速率: %.0f 行/秒%n", acceptedRows.sum() / elapsed);
+        if (writtenBefore >= 0 && writtenAfter >= 0) {
+            System.out.printf("服务端持续写库速率: %.0f 行/秒（writtenRows 增加 %d）%n",
+                    (writtenAfter - writtenBefore) / elapsed, writtenAfter - writtenBefore);
+        }
+        System.exit(0);
+    }
+
+    private static String batchJson(int devices, int batch) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String now = LocalDateTime.now().toString();
+        StringBuilder sb = new StringBuilder(batch * 160).append("{\"samples\":[");
+        for (int i = 0; i < batch; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"deviceId\":").append(random.nextInt(devices) + 1)
+                    .append(",\"cpuUsage\":").append(random.nextInt(10000) / 100.0)
+                    .append(",\"memoryUsage\":").append(random.nextInt(10000) / 100.0)
+                    .append(",\"gpuUsage\":").append(random.nextInt(10000) / 100.0)
+                    .append(",\"diskUsage\":").append(random.nextInt(10000) / 100.0)
+                    .append(",\"networkStatus\":\"rtt=").append(random.nextInt(200)).append("ms\"")
+                    .append(",\"collectedAt\":\"").append(now).append("\"}");
+        }
+        return sb.append("]}").toString();
+    }
+
+    private static long writtenRows(HttpClient client, String baseUrl) {
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/device/metrics/ingest-stats"))
+                    .timeout(Duration.ofSeconds(5))
+                    .GET()
+                    .build();
+            Matcher m = WRITTEN_ROWS.matcher(client.send(request, HttpResponse.BodyHandlers.ofString()).body());
+            return m.find() ? Long.parseLong(m.group(1)) : -1;
+        } catch (Exception e) {
+            System.err.println("读取 ingest-stats 失败: " + e.getMessage());
+            return -1;
+        }
+    }
+}
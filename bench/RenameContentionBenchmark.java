@@ -0,0 +1,175 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 同一文件夹下并发重命名的压测工具（只依赖 JDK，单文件运行），用于比较 lock 与 optimistic 两种并发控制模式
+ * <p>
+ * 在根目录下创建一个测试文件夹，其中建 files 个子文件夹，然后 concurrency 个线程在 durationSec 秒内
+ * 不停随机挑选其中一个重命名。files 越小，同一行上的冲突越多。结束时输出吞吐量、409 冲突数和耗时分位数。
+ * <pre>
+ * java bench/RenameContentionBenchmark.java [baseUrl] [token] [files] [concurrency] [durationSec]
+ * java bench/RenameContentionBenchmark.java http://localhost:8080/api/v1 eyJhbGciOi... 8 32 60
+ * </pre>
+ * 服务端分别以 FILE_CONCURRENCY_MODE=lock 和 FILE_CONCURRENCY_MODE=optimistic 启动各跑一次，参数保持一致。
+ */
+public class RenameContentionBenchmark {
+
+    private static final Pattern CODE = Pattern.compile("\"code\"\\s*:\\s*(\\d+)");
+
+    private static final Pattern ID_NAME = Pattern.compile("\"id\"\\s*:\\s*\"?(\\d+)\"?\\s*,\\s*\"name\"\\s*:\\s*\"([^\"]*)\"");
+
+    private static final AtomicLong SEQ = new AtomicLong();
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080/api/v1";
+        String token = args.length > 1 ? args[1] : System.getenv("BENCH_TOKEN");
+        int files = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+        int concurrency = args.length > 3 ? Integer.parseInt(args[3]) : 32;
+        long durationSec = args.length > 4 ? Long.parseLong(args[4]) : 60;
+        if (token == null || token.isEmpty()) {
+            System.err.println("缺少 token：作为第二个参数传入或设置环境变量 BENCH_TOKEN");
+            System.exit(1);
+        }
+
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newFixedThreadPool(concurrency))
+                .build();
+        String folderName = "rename-bench-" + System.currentTimeMillis();
+        createFolder(client, baseUrl, token, folderName, null);
+        Long folderId = findId(client, baseUrl, token, null, folderName);
+        for (int i = 0; i < files; i++) {
+            createFolder(client, baseUrl, token, "f-" + i, folderId);
+        }
+        List<Long> ids = listIds(client, baseUrl, token, folderId);
+        if (ids.size() != files) {
+            System.err.printf("测试文件夹 %s 中只找到 %d 个子文件夹%n", folderName, ids.size());
+            System.exit(1);
+        }
+        System.out.printf("测试文件夹: %s (id=%d), 文件数: %d, 并发: %d, 时长: %ds%n",
+                folderName, folderId, files, concurrency, durationSec);
+
+        LongAdder succeeded = new LongAdder();
+        LongAdder conflicts = new LongAdder();
+        LongAdder otherErrors = new LongAdder();
+        LongAdder failedRequests = new LongAdder();
+        ConcurrentLinkedQueue<long[]> latencies = new ConcurrentLinkedQueue<>();
+
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(durationSec);
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        for (int t = 0; t < concurrency; t++) {
+            workers.submit(() -> {
+                // 每个线程先在本地记录，结束时一次性放入队列，避免压测本身成为瓶颈
+                long[] local = new long[1 << 16];
+                int n = 0;
+                while (System.nanoTime() < end) {
+                    Long id = ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+                    String body = "{\"id\":" + id + ",\"newName\":\"r-" + SEQ.incrementAndGet() + "\"}";
+                    long sendStart = System.nanoTime();
+                    try {
+                        HttpResponse<String> response = client.send(request(baseUrl + "/file/rename", token)
+                                .header("Content-Type", "application/json")
+                                .PUT(HttpRequest.BodyPublishers.ofString(body))
+                                .build(), HttpResponse.BodyHandlers.ofString());
+                        if (n == local.length) {
+                            local = Arrays.copyOf(local, n * 2);
+                        }
+                        local[n++] = System.nanoTime() - sendStart;
+                        Matcher m = CODE.matcher(response.body());
+                        String code = m.find() ? m.group(1) : String.valueOf(response.statusCode());
+                        if ("200".equals(code)) {
+                            succeeded.increment();
+                        } else if ("409".equals(code)) {
+                            conflicts.increment();
+                        } else {
+                            otherErrors.increment();
+                        }
+                    } catch (Exception e) {
+                        failedRequests.increment();
+                    }
+                }
+                latencies.add(Arrays.copyOf(local, n));
+                return null;
+            });
+        }
+        workers.shutdown();
+        workers.awaitTermination(durationSec + 60, TimeUnit.SECONDS);
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        long[] all = latencies.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        System.out.printf("成功: %d, 冲突(409): %d, 其他错误: %d, 请求失败: %d%n",
+                succeeded.sum(), conflicts.sum(), otherErrors.sum(), failedRequests.sum());
+        System.out.printf("成功吞吐量: %.1f 次/秒, 冲突率: %.2f%%%n", succeeded.sum() / elapsed,
+                all.length == 0 ? 0 : conflicts.sum() * 100.0 / all.length);
+        System.out.printf("耗时 p50: %.1f ms, p95: %.1f ms, p99: %.1f ms, max: %.1f ms%n",
+                percentile(all, 0.50), percentile(all, 0.95), percentile(all, 0.99), percentile(all, 1.0));
+        System.exit(0);
+    }
+
+    private static HttpRequest.Builder request(String url, String token) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofSeconds(30))
+                .header("Authorization", "Bearer " + token);
+    }
+
+    private static void createFolder(HttpClient client, String baseUrl, String token, String name, Long parentId)
+            throws Exception {
+        String body = "{\"name\":\"" + name + "\"" + (parentId == null ? "" : ",\"parentId\":" + parentId) + "}";
+        HttpResponse<String> response = client.send(request(baseUrl + "/file/folder", token)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        Matcher m = CODE.matcher(response.body());
+        if (!m.find() || !"200".equals(m.group(1))) {
+            throw new IllegalStateException("创建文件夹失败: " + name + ", 响应: " + response.body());
+        }
+    }
+
+    private static List<Long> listIds(HttpClient client, String baseUrl, String token, Long parentId) throws Exception {
+        String url = baseUrl + "/file/list" + (parentId == null ? "" : "?id=" + parentId);
+        String body = client.send(request(url, token).GET().build(), HttpResponse.BodyHandlers.ofString()).body();
+        List<Long> ids = new ArrayList<>();
+        Matcher m = ID_NAME.matcher(body);
+        while (m.find()) {
+            ids.add(Long.parseLong(m.group(1)));
+        }
+        return ids;
+    }
+
+    private static Long findId(HttpClient client, String baseUrl, String token, Long parentId, String name)
+            throws Exception {
+        String url = baseUrl + "/file/list" + (parentId == null ? "" : "?id=" + parentId);
+        String body = client.send(request(url, token).GET().build(), HttpResponse.BodyHandlers.ofString()).body();
+        Matcher m = ID_NAME.matcher(body);
+        while (m.find()) {
+            if (name.equals(m.group(2))) {
+                return Long.parseLong(m.group(1));
+            }
+        }
+        throw new IllegalStateException("找不到刚创建的文件夹: " + name);
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.max(0, Math.ceil(p * sorted.length) - 1));
+        return sorted[index] / 1e6;
+    }
+}
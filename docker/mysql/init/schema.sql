@@ -1,3 +1,78 @@
+-- ===============================
+--  文件表
+-- ===============================
+CREATE TABLE files
+(
+    id                   BIGINT PRIMARY KEY COMMENT '文件ID（雪花算法）',
+    name                 VARCHAR(255) NOT NULL COMMENT '文件名（含扩展名）',
+    extension            VARCHAR(32) GENERATED ALWAYS AS (IF(LOCATE('.', name) > 0, LOWER(LEFT(SUBSTRING_INDEX(name, '.', -1), 32)), NULL)) STORED COMMENT '小写扩展名，用于按类型检索',
+    parent_id            BIGINT       NULL COMMENT '父目录ID（NULL 表示根目录）',
+    parent_id_normalized BIGINT GENERATED ALWAYS AS (IFNULL(parent_id, 0)) STORED COMMENT '父目录ID，根目录为 0，用于同名唯一约束',
+    folder               TINYINT(1)   NOT NULL DEFAULT 0 COMMENT '是否为文件夹',
+    size                 BIGINT       NOT NULL DEFAULT 0 COMMENT '文件大小（字节）',
+    total_size           BIGINT       NOT NULL DEFAULT 0 COMMENT '子树内文件总大小（字节），仅文件夹有效',
+    file_count           INT          NOT NULL DEFAULT 0 COMMENT '子树内文件数（不含自身），仅文件夹有效',
+    folder_count         INT          NOT NULL DEFAULT 0 COMMENT '子树内文件夹数（不含自身），仅文件夹有效',
+    created_by           BIGINT       NULL COMMENT '创建人',
+    updated_by           BIGINT       NULL COMMENT '最后修改人',
+    created              DATETIME     NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '上传时间',
+    updated              DATETIME     NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '最后更新时间',
+    storage_id           VARCHAR(64)  NULL COMMENT '对象存储Key',
+    version              INT          NOT NULL DEFAULT 0 COMMENT '乐观锁版本号',
+    -- NULL 在唯一索引中互不相等，根目录用 0 代替 NULL 参与约束
+    UNIQUE KEY uk_parent_name (parent_id_normalized, name),
+    KEY idx_parent_id (parent_id),
+    -- 目录树按层展开：每个父目录只读取排序后的前 N 个子节点
+    KEY idx_parent_folder_name (parent_id_normalized, folder DESC, name),
+    -- 全树前缀检索
+    KEY idx_name (name),
+    KEY idx_extension (extension),
+    -- 子串检索，ngram 分词（词元长度见 my.cnf 中的 ngram_token_size）
+    FULLTEXT KEY ft_name (name) WITH PARSER ngram
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='文件表';
+
+
+-- ===============================
+--  存储配额表
+-- ===============================
+CREATE TABLE storage_quotas
+(
+    id          BIGINT PRIMARY KEY AUTO_INCREMENT COMMENT '主键ID',
+    scope       VARCHAR(10) NOT NULL COMMENT '配额范围：USER-用户，FOLDER-文件夹（含子树）',
+    scope_id    BIGINT      NOT NULL COMMENT '用户ID或文件夹ID',
+    quota_bytes BIGINT      NOT NULL COMMENT '配额（字节）',
+    created_at  DATETIME    NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    UNIQUE KEY uk_scope (scope, scope_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='存储配额表';
+
+
+-- ===============================
+--  文件变更日志表
+-- ===============================
+CREATE TABLE file_changes
+(
+    seq           BIGINT PRIMARY KEY AUTO_INCREMENT COMMENT '变更序号（单调递增，用作同步游标）',
+    file_id       BIGINT       NOT NULL COMMENT '文件或文件夹ID',
+    type          VARCHAR(10)  NOT NULL COMMENT '变更类型：CREATE / RENAME / MOVE / DELETE',
+    name          VARCHAR(255) NOT NULL COMMENT '变更后的名称',
+    parent_id     BIGINT       NULL COMMENT '变更后的父目录ID（删除时为原父目录，NULL 表示根目录）',
+    old_name      VARCHAR(255) NULL COMMENT '重命名前的名称',
+    old_parent_id BIGINT       NULL COMMENT '移动前的父目录ID',
+    folder        TINYINT(1)   NOT NULL DEFAULT 0 COMMENT '是否为文件夹（删除文件夹时整个子树一并删除）',
+    user_id       BIGINT       NULL COMMENT '操作人',
+    created_at    DATETIME(3)  NOT NULL DEFAULT CURRENT_TIMESTAMP(3) COMMENT '写入时间',
+    KEY idx_created_at (created_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='文件变更日志表';
+
+-- 变更日志清理水位（单行）：日志被全部清理后仍能判断游标是否落在已清理范围内
+CREATE TABLE file_change_watermark
+(
+    id            TINYINT PRIMARY KEY COMMENT '固定为 1',
+    compacted_seq BIGINT      NOT NULL COMMENT '已清理的最大序号，小于该值的游标需要全量同步',
+    updated_at    DATETIME(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3) COMMENT '更新时间'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='文件变更日志清理水位表';
+
+
 -- ===============================
 --  算法定义表
 -- ===============================
@@ -24,6 +99,8 @@ CREATE TABLE algorithm_versions
     status            VARCHAR(10)  NOT NULL DEFAULT 'DRAFT' COMMENT '状态: DRAFT-训练 RELEASE-发布',
     version           INT          NOT NULL COMMENT '版本号',
     model_storage_key VARCHAR(256) NOT NULL COMMENT '模型存储索引（服务器 .pt 文件路径或对象存储Key）',
+    model_size        BIGINT       NULL COMMENT '模型文件大小（字节），发布时计算',
+    model_sha256      CHAR(64)     NULL COMMENT '模型文件 SHA-256，发布时计算，用作下载的 ETag 和本地缓存Key',
     created_at        DATETIME     NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
     UNIQUE KEY uk_version_name (version_name)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='算法版本表';
@@ -98,12 +175,123 @@ CREATE TABLE region_device_rel
 -- ===============================
 CREATE TABLE device_metrics
 (
-    id             BIGINT PRIMARY KEY AUTO_INCREMENT COMMENT '主键ID',
+    id             BIGINT   NOT NULL AUTO_INCREMENT COMMENT '主键ID',
     device_id      BIGINT   NOT NULL COMMENT '设备ID',
     cpu_usage      DECIMAL(5, 2) COMMENT 'CPU使用率（0-100）',
     memory_usage   DECIMAL(5, 2) COMMENT '内存使用率（0-100）',
     gpu_usage      DECIMAL(5, 2) COMMENT 'GPU使用率（0-100）',
     disk_usage     DECIMAL(5, 2) COMMENT '磁盘使用率（0-100）',
     network_status VARCHAR(128) COMMENT '网络状况（如：good / poor / offline / RTTxx）',
-    created_at     DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '采集时间'
-) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='边缘设备运行记录表';
+    created_at     DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '采集时间',
+    -- 分区表的主键必须包含分区键
+    PRIMARY KEY (id, created_at),
+    KEY idx_device_created (device_id, created_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='边缘设备运行记录表'
+-- 按天 RANGE 分区，分区名为 pYYYYMMDD，保存当天数据；
+-- 后续分区由 DeviceMetricsPartitionMaintainer 从 pmax 拆分预建，过期分区直接 DROP PARTITION
+PARTITION BY RANGE (TO_DAYS(created_at)) (
+    PARTITION pmax VALUES LESS THAN MAXVALUE
+);
+
+
+-- ===============================
+--  设备运行指标1分钟汇总
+-- ===============================
+CREATE TABLE device_metrics_1m
+(
+    device_id    BIGINT         NOT NULL COMMENT '设备ID',
+    bucket_start DATETIME       NOT NULL COMMENT '桶起始时间',
+    sample_count INT            NOT NULL DEFAULT 0 COMMENT '样本数',
+    cpu_count    INT            NOT NULL DEFAULT 0 COMMENT '有CPU使用率的样本数',
+    cpu_sum      DECIMAL(16, 2) NOT NULL DEFAULT 0 COMMENT 'CPU使用率之和',
+    cpu_min      DECIMAL(5, 2) COMMENT 'CPU使用率最小值',
+    cpu_max      DECIMAL(5, 2) COMMENT 'CPU使用率最大值',
+    memory_count INT            NOT NULL DEFAULT 0 COMMENT '有内存使用率的样本数',
+    memory_sum   DECIMAL(16, 2) NOT NULL DEFAULT 0 COMMENT '内存使用率之和',
+    memory_min   DECIMAL(5, 2) COMMENT '内存使用率最小值',
+    memory_max   DECIMAL(5, 2) COMMENT '内存使用率最大值',
+    gpu_count    INT            NOT NULL DEFAULT 0 COMMENT '有GPU使用率的样本数',
+    gpu_sum      DECIMAL(16, 2) NOT NULL DEFAULT 0 COMMENT 'GPU使用率之和',
+    gpu_min      DECIMAL(5, 2) COMMENT 'GPU使用率最小值',
+    gpu_max      DECIMAL(5, 2) COMMENT 'GPU使用率最大值',
+    PRIMARY KEY (device_id, bucket_start)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='设备运行指标1分钟汇总表';
+
+-- 各指标按 1% 区间计数的直方图，用于计算 P95；多个节点的计数直接相加
+CREATE TABLE device_metrics_1m_hist
+(
+    device_id    BIGINT           NOT NULL COMMENT '设备ID',
+    bucket_start DATETIME         NOT NULL COMMENT '桶起始时间',
+    metric       VARCHAR(10)      NOT NULL COMMENT '指标：cpu/memory/gpu',
+    bin          TINYINT UNSIGNED NOT NULL COMMENT '取整后的使用率（0-100）',
+    sample_count INT              NOT NULL COMMENT '样本数',
+    PRIMARY KEY (device_id, bucket_start, metric, bin)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='设备运行指标1分钟汇总直方图表';
+
+-- ===============================
+--  设备运行指标5分钟汇总
+-- ===============================
+CREATE TABLE device_metrics_5m
+(
+    device_id    BIGINT         NOT NULL COMMENT '设备ID',
+    bucket_start DATETIME       NOT NULL COMMENT '桶起始时间',
+    sample_count INT            NOT NULL DEFAULT 0 COMMENT '样本数',
+    cpu_count    INT            NOT NULL DEFAULT 0 COMMENT '有CPU使用率的样本数',
+    cpu_sum      DECIMAL(16, 2) NOT NULL DEFAULT 0 COMMENT 'CPU使用率之和',
+    cpu_min      DECIMAL(5, 2) COMMENT 'CPU使用率最小值',
+    cpu_max      DECIMAL(5, 2) COMMENT 'CPU使用率最大值',
+    memory_count INT            NOT NULL DEFAULT 0 COMMENT '有内存使用率的样本数',
+    memory_sum   DECIMAL(16, 2) NOT NULL DEFAULT 0 COMMENT '内存使用率之和',
+    memory_min   DECIMAL(5, 2) COMMENT '内存使用率最小值',
+    memory_max   DECIMAL(5, 2) COMMENT '内存使用率最大值',
+    gpu_count    INT            NOT NULL DEFAULT 0 COMMENT '有GPU使用率的样本数',
+    gpu_sum      DECIMAL(16, 2) NOT NULL DEFAULT 0 COMMENT 'GPU使用率之和',
+    gpu_min      DECIMAL(5, 2) COMMENT 'GPU使用率最小值',
+    gpu_max      DECIMAL(5, 2) COMMENT 'GPU使用率最大值',
+    PRIMARY KEY (device_id, bucket_start)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='设备运行指标5分钟汇总表';
+
+-- 各指标按 1% 区间计数的直方图，用于计算 P95；多个节点的计数直接相加
+CREATE TABLE device_metrics_5m_hist
+(
+    device_id    BIGINT           NOT NULL COMMENT '设备ID',
+    bucket_start DATETIME         NOT NULL COMMENT '桶起始时间',
+    metric       VARCHAR(10)      NOT NULL COMMENT '指标：cpu/memory/gpu',
+    bin          TINYINT UNSIGNED NOT NULL COMMENT '取整后的使用率（0-100）',
+    sample_count INT              NOT NULL COMMENT '样本数',
+    PRIMARY KEY (device_id, bucket_start, metric, bin)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='设备运行指标5分钟汇总直方图表';
+
+-- ===============================
+--  设备运行指标1小时汇总
+-- ===============================
+CREATE TABLE device_metrics_1h
+(
+    device_id    BIGINT         NOT NULL COMMENT '设备ID',
+    bucket_start DATETIME       NOT NULL COMMENT '桶起始时间',
+    sample_count INT            NOT NULL DEFAULT 0 COMMENT '样本数',
+    cpu_count    INT            NOT NULL DEFAULT 0 COMMENT '有CPU使用率的样本数',
+    cpu_sum      DECIMAL(16, 2) NOT NULL DEFAULT 0 COMMENT 'CPU使用率之和',
+    cpu_min      DECIMAL(5, 2) COMMENT 'CPU使用率最小值',
+    cpu_max      DECIMAL(5, 2) COMMENT 'CPU使用率最大值',
+    memory_count INT            NOT NULL DEFAULT 0 COMMENT '有内存使用率的样本数',
+    memory_sum   DECIMAL(16, 2) NOT NULL DEFAULT 0 COMMENT '内存使用率之和',
+    memory_min   DECIMAL(5, 2) COMMENT '内存使用率最小值',
+    memory_max   DECIMAL(5, 2) COMMENT '内存使用率最大值',
+    gpu_count    INT            NOT NULL DEFAULT 0 COMMENT '有GPU使用率的样本数',
+    gpu_sum      DECIMAL(16, 2) NOT NULL DEFAULT 0 COMMENT 'GPU使用率之和',
+    gpu_min      DECIMAL(5, 2) COMMENT 'GPU使用率最小值',
+    gpu_max      DECIMAL(5, 2) COMMENT 'GPU使用率最大值',
+    PRIMARY KEY (device_id, bucket_start)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='设备运行指标1小时汇总表';
+
+-- 各指标按 1% 区间计数的直方图，用于计算 P95；多个节点的计数直接相加
+CREATE TABLE device_metrics_1h_hist
+(
+    device_id    BIGINT           NOT NULL COMMENT '设备ID',
+    bucket_start DATETIME         NOT NULL COMMENT '桶起始时间',
+    metric       VARCHAR(10)      NOT NULL COMMENT '指标：cpu/memory/gpu',
+    bin          TINYINT UNSIGNED NOT NULL COMMENT '取整后的使用率（0-100）',
+    sample_count INT              NOT NULL COMMENT '样本数',
+    PRIMARY KEY (device_id, bucket_start, metric, bin)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='设备运行指标1小时汇总直方图表';
@@ -0,0 +1,11 @@
+package com.gdairport.cache;
+
+/**
+ * 设备的算法分配结果（ETag）变化后的回调
+ * <p>
+ * 在分配表的锁内同步调用，实现方应只做内存操作，耗时操作交给自己的后台任务。
+ */
+public interface AlgorithmAssignmentListener {
+
+    void onAssignmentChanged(Long deviceId, String etag);
+}
@@ -0,0 +1,315 @@
+package com.gdairport.cache;
+
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import com.gdairport.domain.ResponseResult;
+import com.gdairport.domain.entity.AlgorithmDefinition;
+import com.gdairport.domain.entity.AlgorithmVersion;
+import com.gdairport.domain.entity.DeviceAlgorithmRel;
+import com.gdairport.domain.vo.AlgorithmAssignmentVo;
+import com.gdairport.mapper.AlgorithmDefinitionMapper;
+import com.gdairport.mapper.AlgorithmVersionMapper;
+import com.gdairport.mapper.DeviceAlgorithmRelMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 设备 -> 应运行算法的预编译查找表
+ * <p>
+ * 内存中保存算法定义、版本和设备算法关系，并为每个设备预先生成响应体（JSON 字节）和 ETag。
+ * 设备轮询时只做一次 Map 查找；ETag 未变化时返回 304，不产生任何序列化开销。
+ * 定义、版本或关系变化时只重新编译受影响的设备，变化通过 Redis 频道广播给其他节点；另有定时全量重建兜底。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AlgorithmAssignmentTable implements MessageListener {
+
+    private static final String CHANNEL = "algorithm:assignment:changed";
+
+    private static final String STATUS_ACTIVE = "ACTIVE";
+
+    private static final String STATUS_RELEASE = "RELEASE";
+
+    private static final String TYPE_DEFINITION = "definition";
+    private static final String TYPE_VERSION = "version";
+    private static final String TYPE_DEVICE = "device";
+
+    // 与 SpringMvcConfig 的序列化规则保持一致（Long 输出为字符串）
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .registerModule(new SimpleModule().addSerializer(Long.class, ToStringSerializer.instance));
+
+    private final AlgorithmDefinitionMapper algorithmDefinitionMapper;
+
+    private final AlgorithmVersionMapper algorithmVersionMapper;
+
+    private final DeviceAlgorithmRelMapper deviceAlgorithmRelMapper;
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+
+    private final ObjectProvider<AlgorithmAssignmentListener> assignmentListeners;
+
+    // 新版本的下载在该窗口内按设备错开
+    @Value("${algorithm.model.rollout-window}")
+    private Duration rolloutWindow;
+
+    // 以下三个 Map 只在持有 this 锁时修改
+    private final Map<Long, AlgorithmDefinition> definitions = new HashMap<>();
+
+    private final Map<Long, AlgorithmVersion> versions = new HashMap<>();
+
+    private final Map<Long, Set<Long>> algorithmsByDevice = new HashMap<>();
+
+    // 反向索引：算法 -> 设备
+    private final Map<Long, Set<Long>> devicesByAlgorithm = new HashMap<>();
+
+    private final Map<Long, CompiledAssignment> compiled = new ConcurrentHashMap<>();
+
+    private final CompiledAssignment empty = compile(List.of());
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuildAll();
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    /**
+     * 设备当前的分配结果，未分配任何算法时返回空列表对应的结果
+     */
+    public CompiledAssignment get(Long deviceId) {
+        return compiled.getOrDefault(deviceId, empty);
+    }
+
+    public void definitionChanged(Long definitionId) {
+        applyDefinitionChanged(definitionId);
+        broadcast(TYPE_DEFINITION, definitionId);
+    }
+
+    public void versionChanged(Long versionId) {
+        applyVersionChanged(versionId);
+        broadcast(TYPE_VERSION, versionId);
+    }
+
+    public void deviceRelationsChanged(Long deviceId) {
+        applyDeviceRelationsChanged(deviceId);
+        broadcast(TYPE_DEVICE, deviceId);
+    }
+
+    /**
+     * 定时全量重建，兜底直接修改数据库或丢失广播的情况
+     */
+    @Scheduled(fixedDelayString = "${algorithm.assignment.full-rebuild-interval}",
+            initialDelayString = "${algorithm.assignment.full-rebuild-interval}")
+    public synchronized void rebuildAll() {
+        long start = System.nanoTime();
+        definitions.clear();
+        versions.clear();
+        algorithmsByDevice.clear();
+        devicesByAlgorithm.clear();
+        algorithmDefinitionMapper.selectList(null).forEach(d -> definitions.put(d.getId(), d));
+        algorithmVersionMapper.selectList(null).forEach(v -> versions.put(v.getId(), v));
+        for (DeviceAlgorithmRel rel : deviceAlgorithmRelMapper.selectList(null)) {
+            addRelation(rel.getDeviceId(), rel.getAlgorithmId());
+        }
+        compiled.keySet().retainAll(algorithmsByDevice.keySet());
+        algorithmsByDevice.keySet().forEach(this::recompile);
+        log.info("算法分配表已重建, 设备: {}, 算法: {}, 耗时: {} ms", algorithmsByDevice.size(), definitions.size(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.indexOf(':');
+        if (separator < 0) {
+            return;
+        }
+        try {
+            Long id = Long.valueOf(body.substring(separator + 1));
+            switch (body.substring(0, separator)) {
+                case TYPE_DEFINITION -> applyDefinitionChanged(id);
+                case TYPE_VERSION -> applyVersionChanged(id);
+                case TYPE_DEVICE -> applyDeviceRelationsChanged(id);
+                default -> log.warn("未知的算法分配变更消息: {}", body);
+            }
+        } catch (Exception e) {
+            log.error("处理算法分配变更消息失败: {}", body, e);
+        }
+    }
+
+    private synchronized void applyDefinitionChanged(Long definitionId) {
+        AlgorithmDefinition definition = algorithmDefinitionMapper.selectById(definitionId);
+        if (definition == null) {
+            definitions.remove(definitionId);
+        } else {
+            definitions.put(definitionId, definition);
+        }
+        devicesByAlgorithm.getOrDefault(definitionId, Set.of()).forEach(this::recompile);
+    }
+
+    private synchronized void applyVersionChanged(Long versionId) {
+        AlgorithmVersion version = algorithmVersionMapper.selectById(versionId);
+        if (version == null) {
+            versions.remove(versionId);
+        } else {
+            versions.put(versionId, version);
+        }
+        // 只有把该版本作为当前版本的算法受影响
+        Set<Long> affected = new HashSet<>();
+        for (AlgorithmDefinition definition : definitions.values()) {
+            if (versionId.equals(definition.getVersionId())) {
+                affected.addAll(devicesByAlgorithm.getOrDefault(definition.getId(), Set.of()));
+            }
+        }
+        affected.forEach(this::recompile);
+    }
+
+    private synchronized void applyDeviceRelationsChanged(Long deviceId) {
+        Set<Long> previous = algorithmsByDevice.remove(deviceId);
+        if (previous != null) {
+            for (Long algorithmId : previous) {
+                Set<Long> devices = devicesByAlgorithm.get(algorithmId);
+                if (devices != null) {
+                    devices.remove(deviceId);
+                }
+            }
+        }
+        List<DeviceAlgorithmRel> rels = deviceAlgorithmRelMapper.selectList(Wrappers.<DeviceAlgorithmRel>lambdaQuery()
+                .eq(DeviceAlgorithmRel::getDeviceId, deviceId));
+        for (DeviceAlgorithmRel rel : rels) {
+            addRelation(deviceId, rel.getAlgorithmId());
+        }
+        recompile(deviceId);
+    }
+
+    private void addRelation(Long deviceId, Long algorithmId) {
+        algorithmsByDevice.computeIfAbsent(deviceId, k -> new HashSet<>()).add(algorithmId);
+        devicesByAlgorithm.computeIfAbsent(algorithmId, k -> new HashSet<>()).add(deviceId);
+    }
+
+    // 调用方需持有 this 锁
+    private void recompile(Long deviceId) {
+        String previousEtag = get(deviceId).etag();
+        Set<Long> algorithmIds = algorithmsByDevice.getOrDefault(deviceId, Set.of());
+        List<AlgorithmAssignmentVo> assignments = new ArrayList<>(algorithmIds.size());
+        for (Long algorithmId : algorithmIds) {
+            AlgorithmDefinition definition = definitions.get(algorithmId);
+            if (definition == null || !STATUS_ACTIVE.equals(definition.getStatus())) {
+                continue;
+            }
+            AlgorithmVersion version = versions.get(definition.getVersionId());
+            if (version == null || !STATUS_RELEASE.equals(version.getStatus())) {
+                continue;
+            }
+            assignments.add(AlgorithmAssignmentVo.builder()
+                    .algorithmId(definition.getId())
+                    .algorithmCode(definition.getAlgorithmCode())
+                    .algorithmName(definition.getAlgorithmName())
+                    .versionId(version.getId())
+                    .versionName(version.getVersionName())
+                    .version(version.getVersion())
+                    .modelStorageKey(version.getModelStorageKey())
+                    .modelSize(version.getModelSize())
+                    .modelSha256(version.getModelSha256())
+                    .downloadDelaySeconds(downloadDelaySeconds(deviceId, version.getId()))
+                    .build());
+        }
+        CompiledAssignment current;
+        if (assignments.isEmpty()) {
+            compiled.remove(deviceId);
+            current = empty;
+        } else {
+            // 固定顺序，内容不变时 ETag 不变
+            assignments.sort(Comparator.comparing(AlgorithmAssignmentVo::getAlgorithmId));
+            current = compile(assignments);
+            compiled.put(deviceId, current);
+        }
+        if (!current.etag().equals(previousEtag)) {
+            notifyListeners(deviceId, current.etag());
+        }
+    }
+
+    private void notifyListeners(Long deviceId, String etag) {
+        assignmentListeners.orderedStream().forEach(listener -> {
+            try {
+                listener.onAssignmentChanged(deviceId, etag);
+            } catch (RuntimeException e) {
+                log.warn("算法分配变更回调失败: {}", listener.getClass().getSimpleName(), e);
+            }
+        });
+    }
+
+    // 同一设备、同一版本每次计算结果相同，ETag 保持稳定
+    private long downloadDelaySeconds(Long deviceId, Long versionId) {
+        long window = rolloutWindow.toSeconds();
+        if (window <= 0) {
+            return 0;
+        }
+        long hash = (deviceId * 0x9E3779B97F4A7C15L) ^ (versionId * 0xC2B2AE3D27D4EB4FL);
+        hash ^= hash >>> 31;
+        return Math.floorMod(hash, window);
+    }
+
+    private void broadcast(String type, Long id) {
+        try {
+            stringRedisTemplate.convertAndSend(CHANNEL, type + ":" + id);
+        } catch (Exception e) {
+            log.warn("广播算法分配变更失败, 其他节点将在下次全量重建时更新: {}:{}", type, id, e);
+        }
+    }
+
+    private static CompiledAssignment compile(List<AlgorithmAssignmentVo> assignments) {
+        try {
+            byte[] body = OBJECT_MAPPER.writeValueAsBytes(ResponseResult.success(assignments));
+            return new CompiledAssignment(body, "\"" + sha256(body) + "\"");
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("序列化算法分配结果失败", e);
+        }
+    }
+
+    private static String sha256(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            // 取前 16 字节足以区分版本
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 不可用", e);
+        }
+    }
+
+    /**
+     * 预编译的响应体和对应的强 ETag
+     */
+    public record CompiledAssignment(byte[] body, String etag) {
+    }
+}
@@ -0,0 +1,358 @@
+package com.gdairport.cache;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * 本地磁盘热点对象缓存（按 storageId 缓存 MinIO 对象）
+ * <p>
+ * storageId 一经生成不再变化，因此缓存无需失效，只需按 LRU + 总容量淘汰。
+ * 命中时通过 FileChannel.transferTo 直接写出到响应流；未命中时边从 MinIO 读边写出，同时落盘（write-through）。
+ * 每个缓存文件旁存放一个 .sha256 校验文件，重启后首次命中时校验内容，不一致则丢弃。
+ */
+@Slf4j
+@Component
+public class LocalObjectCache {
+
+    // storageId 只允许安全字符，避免路径穿越
+    private static final Pattern SAFE_KEY = Pattern.compile("[A-Za-z0-9._-]{3,128}");
+
+    private static final String DATA_SUFFIX = ".dat";
+    private static final String CHECKSUM_SUFFIX = ".sha256";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Value("${minio.cache.enabled}")
+    private boolean enabled;
+
+    @Value("${minio.cache.dir}")
+    private String cacheDir;
+
+    @Value("${minio.cache.max-size}")
+    private DataSize maxSize;
+
+    @Value("${minio.cache.max-object-size}")
+    private DataSize maxObjectSize;
+
+    private Path root;
+
+    // accessOrder = true，迭代顺序即 LRU 顺序
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+
+    private long currentBytes;
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            log.info("本地对象缓存未启用");
+            return;
+        }
+        try {
+            root = Paths.get(cacheDir).toAbsolutePath();
+            Files.createDirectories(root);
+            loadIndex();
+            log.info("本地对象缓存已启用, 目录: {}, 已缓存: {} 个对象 / {} 字节", root, entries.size(), currentBytes);
+        } catch (IOException e) {
+            log.error("初始化本地对象缓存失败, 缓存将被禁用: {}", cacheDir, e);
+            enabled = false;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 命中时把缓存对象写到输出流
+     * @param key storageId
+     * @param expectedSize 数据库记录的文件大小，用于快速校验
+     * @param out 响应输出流
+     * @return 命中并写出返回 true；未命中返回 false（此时尚未写出任何字节）
+     */
+    public boolean serve(String key, long expectedSize, OutputStream out) throws IOException {
+        return serveRange(key, expectedSize, 0, expectedSize, out);
+    }
+
+    /**
+     * 命中时把缓存对象的一段写到输出流（断点续传）
+     * @param key storageId
+     * @param expectedSize 对象完整大小，用于快速校验
+     * @param offset 起始位置
+     * @param length 写出的字节数
+     * @param out 响应输出流
+     * @return 命中并写出返回 true；未命中返回 false（此时尚未写出任何字节）
+     */
+    public boolean serveRange(String key, long expectedSize, long offset, long length, OutputStream out)
+            throws IOException {
+        if (!enabled || !isCacheable(key)) {
+            return false;
+        }
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+        }
+        if (entry == null) {
+            return false;
+        }
+        Path dataPath = dataPath(key);
+        // 先打开文件再写出，文件被并发淘汰时已打开的句柄仍然有效
+        try (FileChannel channel = FileChannel.open(dataPath, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size != entry.size || size != expectedSize) {
+                log.warn("缓存对象大小不一致, 丢弃: {}, 期望: {}, 实际: {}", key, expectedSize, size);
+                invalidate(key);
+                return false;
+            }
+            if (!entry.verified) {
+                if (!entry.checksum.equals(checksum(channel))) {
+                    log.warn("缓存对象校验失败, 丢弃: {}", key);
+                    invalidate(key);
+                    return false;
+                }
+                entry.verified = true;
+            }
+            WritableByteChannel target = Channels.newChannel(out);
+            long position = offset;
+            long end = offset + length;
+            while (position < end) {
+                position += channel.transferTo(position, end - position, target);
+            }
+            return true;
+        } catch (NoSuchFileException e) {
+            invalidate(key);
+            return false;
+        }
+    }
+
+    /**
+     * 未命中时从源流读取，同时写出到输出流并落盘缓存
+     * @param key storageId
+     * @param source 源数据流（MinIO）
+     * @param expectedSize 数据库记录的文件大小，只有完整读取后大小一致才写入缓存
+     * @param out 响应输出流
+     */
+    public void writeThrough(String key, InputStream source, long expectedSize, OutputStream out) throws IOException {
+        if (!enabled || !isCacheable(key) || expectedSize <= 0 || expectedSize > maxObjectSize.toBytes()) {
+            source.transferTo(out);
+            return;
+        }
+        Path shardDir = dataPath(key).getParent();
+        Files.createDirectories(shardDir);
+        Path tempPath = shardDir.resolve(key + "." + UUID.randomUUID() + TEMP_SUFFIX);
+        MessageDigest digest = newDigest();
+        long total = 0;
+        boolean completed = false;
+        try (FileChannel channel = FileChannel.open(tempPath,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = source.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+                digest.update(buffer, 0, read);
+                ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, read);
+                while (byteBuffer.hasRemaining()) {
+                    channel.write(byteBuffer);
+                }
+                total += read;
+            }
+            completed = true;
+        } finally {
+            if (!completed) {
+                Files.deleteIfExists(tempPath);
+            }
+        }
+        if (total != expectedSize) {
+            log.warn("源对象大小与记录不一致, 不写入缓存: {}, 期望: {}, 实际: {}", key, expectedSize, total);
+            Files.deleteIfExists(tempPath);
+            return;
+        }
+        commit(key, tempPath, total, HexFormat.of().formatHex(digest.digest()));
+    }
+
+    /**
+     * 只落盘不写出，用于预热
+     */
+    public void populate(String key, InputStream source, long expectedSize) throws IOException {
+        writeThrough(key, source, expectedSize, OutputStream.nullOutputStream());
+    }
+
+    public boolean contains(String key) {
+        if (!enabled || !isCacheable(key)) {
+            return false;
+        }
+        synchronized (this) {
+            return entries.containsKey(key);
+        }
+    }
+
+    public boolean isCacheableSize(long size) {
+        return enabled && size > 0 && size <= maxObjectSize.toBytes();
+    }
+
+    /**
+     * 主动移除缓存对象（例如源文件被删除时）
+     */
+    public void invalidate(String key) {
+        if (!enabled || !isCacheable(key)) {
+            return;
+        }
+        synchronized (this) {
+            Entry removed = entries.remove(key);
+            if (removed != null) {
+                currentBytes -= removed.size;
+            }
+        }
+        deleteFiles(key);
+    }
+
+    private void commit(String key, Path tempPath, long size, String checksum) {
+        try {
+            Files.writeString(checksumPath(key), checksum, StandardCharsets.US_ASCII);
+            Files.move(tempPath, dataPath(key), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log.warn("写入本地对象缓存失败: {}", key, e);
+            try {
+                Files.deleteIfExists(tempPath);
+            } catch (IOException ignored) {
+                // 临时文件会在下次启动时清理
+            }
+            return;
+        }
+        List<String> victims;
+        synchronized (this) {
+            Entry previous = entries.put(key, new Entry(size, checksum, true));
+            if (previous != null) {
+                currentBytes -= previous.size;
+            }
+            currentBytes += size;
+            victims = collectVictims();
+        }
+        victims.forEach(this::deleteFiles);
+    }
+
+    // 调用方需持有 this 锁
+    private List<String> collectVictims() {
+        List<String> victims = new ArrayList<>();
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (currentBytes > maxSize.toBytes() && iterator.hasNext()) {
+            Map.Entry<String, Entry> eldest = iterator.next();
+            currentBytes -= eldest.getValue().size;
+            victims.add(eldest.getKey());
+            iterator.remove();
+        }
+        return victims;
+    }
+
+    private void loadIndex() throws IOException {
+        List<Path> dataFiles = new ArrayList<>();
+        try (Stream<Path> stream = Files.walk(root, 2)) {
+            for (Path path : (Iterable<Path>) stream::iterator) {
+                String fileName = path.getFileName().toString();
+                if (fileName.endsWith(TEMP_SUFFIX)) {
+                    // 上次进程异常退出留下的半成品
+                    Files.deleteIfExists(path);
+                } else if (fileName.endsWith(DATA_SUFFIX)) {
+                    dataFiles.add(path);
+                }
+            }
+        }
+        // 按最近修改时间排序，近似恢复 LRU 顺序
+        dataFiles.sort((a, b) -> Long.compare(a.toFile().lastModified(), b.toFile().lastModified()));
+        for (Path dataFile : dataFiles) {
+            String fileName = dataFile.getFileName().toString();
+            String key = fileName.substring(0, fileName.length() - DATA_SUFFIX.length());
+            Path checksumFile = checksumPath(key);
+            if (!isCacheable(key) || !Files.exists(checksumFile)) {
+                deleteFiles(key);
+                continue;
+            }
+            String checksum = Files.readString(checksumFile, StandardCharsets.US_ASCII).trim();
+            long size = Files.size(dataFile);
+            // 启动时只登记，首次命中时再校验内容，避免启动时全量读取
+            entries.put(key, new Entry(size, checksum, false));
+            currentBytes += size;
+        }
+        collectVictims().forEach(this::deleteFiles);
+    }
+
+    private String checksum(FileChannel channel) throws IOException {
+        MessageDigest digest = newDigest();
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        long position = 0;
+        int read;
+        while ((read = channel.read(buffer, position)) != -1) {
+            buffer.flip();
+            digest.update(buffer);
+            buffer.clear();
+            position += read;
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private void deleteFiles(String key) {
+        try {
+            Files.deleteIfExists(dataPath(key));
+            Files.deleteIfExists(checksumPath(key));
+        } catch (IOException e) {
+            log.warn("删除本地缓存文件失败: {}", key, e);
+        }
+    }
+
+    private boolean isCacheable(String key) {
+        return key != null && SAFE_KEY.matcher(key).matches();
+    }
+
+    // 按 key 前两个字符分片，避免单目录文件过多
+    private Path dataPath(String key) {
+        return root.resolve(key.substring(0, 2)).resolve(key + DATA_SUFFIX);
+    }
+
+    private Path checksumPath(String key) {
+        return root.resolve(key.substring(0, 2)).resolve(key + CHECKSUM_SUFFIX);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 不可用", e);
+        }
+    }
+
+    private static class Entry {
+        private final long size;
+        private final String checksum;
+        private volatile boolean verified;
+
+        private Entry(long size, String checksum, boolean verified) {
+            this.size = size;
+            this.checksum = checksum;
+            this.verified = verified;
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package com.gdairport.cache;
+
+import com.gdairport.domain.entity.Region;
+import com.gdairport.domain.entity.RegionDeviceRel;
+import com.gdairport.mapper.RegionDeviceRelMapper;
+import com.gdairport.mapper.RegionMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 区域树内存索引（Euler 序区间）
+ * <p>
+ * 启动时加载 regions 和 region_device_rel，按 DFS 先序给每个区域编号，子树恰好对应编号区间 [enter, exit)；
+ * 设备按所属区域的编号顺序排成一个数组，因此“某区域及所有下级区域的设备”就是数组中的一段连续区间，
+ * 查询不需要递归也不需要访问数据库。
+ * <p>
+ * 索引不可变，变化时整体重建后替换。区域或关系修改后递增 Redis 中的版本号，各节点定时比较版本号并重建。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RegionTreeCache {
+
+    private static final String VERSION_KEY = "region:tree:version";
+
+    private final RegionMapper regionMapper;
+
+    private final RegionDeviceRelMapper regionDeviceRelMapper;
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    // 当前索引对应的版本号
+    private volatile String loadedVersion;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    /**
+     * 区域或区域设备关系修改后调用：递增全局版本号并立即重建本节点索引
+     */
+    public void markChanged() {
+        try {
+            stringRedisTemplate.opsForValue().increment(VERSION_KEY);
+        } catch (Exception e) {
+            log.warn("递增区域树版本号失败, 其他节点将在下次全量检查时更新", e);
+        }
+        rebuild();
+    }
+
+    /**
+     * 其他节点修改后，通过版本号变化感知并重建
+     */
+    @Scheduled(fixedDelayString = "${region.cache.check-interval}")
+    public void checkVersion() {
+        try {
+            String version = stringRedisTemplate.opsForValue().get(VERSION_KEY);
+            if (!Objects.equals(version, loadedVersion)) {
+                rebuild();
+            }
+        } catch (Exception e) {
+            log.warn("检查区域树版本号失败", e);
+        }
+    }
+
+    public synchronized void rebuild() {
+        String version = null;
+        try {
+            version = stringRedisTemplate.opsForValue().get(VERSION_KEY);
+        } catch (Exception e) {
+            log.warn("读取区域树版本号失败", e);
+        }
+        long start = System.nanoTime();
+        List<Region> regions = regionMapper.selectList(null);
+        List<RegionDeviceRel> rels = regionDeviceRelMapper.selectList(null);
+        snapshot = Snapshot.build(regions, rels);
+        loadedVersion = version;
+        log.info("区域树索引已重建, 区域: {}, 关系: {}, 耗时: {} ms", regions.size(), rels.size(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public boolean contains(Long regionId) {
+        return snapshot.positionOf.containsKey(regionId);
+    }
+
+    public Region getRegion(Long regionId) {
+        Integer position = snapshot.positionOf.get(regionId);
+        return position == null ? null : snapshot.regions[position];
+    }
+
+    /**
+     * 区域及所有下级区域的设备（去重）；区域不存在返回空数组
+     */
+    public long[] subtreeDeviceIds(Long regionId) {
+        Snapshot current = snapshot;
+        Integer position = current.positionOf.get(regionId);
+        if (position == null) {
+            return new long[0];
+        }
+        int from = current.deviceOffset[position];
+        int to = current.deviceOffset[current.exit[position]];
+        return Arrays.stream(current.deviceIds, from, to).distinct().toArray();
+    }
+
+    /**
+     * 区域及所有下级区域（先序）
+     */
+    public List<Region> subtreeRegions(Long regionId) {
+        Snapshot current = snapshot;
+        Integer position = current.positionOf.get(regionId);
+        if (position == null) {
+            return Collections.emptyList();
+        }
+        return Arrays.asList(current.regions).subList(position, current.exit[position]);
+    }
+
+    /**
+     * 判断 ancestorId 是否为 regionId 本身或其上级，O(1)
+     */
+    public boolean isInSubtree(Long ancestorId, Long regionId) {
+        Snapshot current = snapshot;
+        Integer ancestor = current.positionOf.get(ancestorId);
+        Integer node = current.positionOf.get(regionId);
+        return ancestor != null && node != null && ancestor <= node && node < current.exit[ancestor];
+    }
+
+    /**
+     * 整棵区域树的遍历入口：按先序访问每个区域，visitor 返回子节点的处理结果
+     */
+    public <T> List<T> mapTree(TreeMapper<T> mapper) {
+        Snapshot current = snapshot;
+        List<T> roots = new ArrayList<>();
+        int position = 0;
+        while (position < current.regions.length) {
+            roots.add(mapSubtree(current, position, mapper));
+            position = current.exit[position];
+        }
+        return roots;
+    }
+
+    private <T> T mapSubtree(Snapshot current, int position, TreeMapper<T> mapper) {
+        List<T> children = new ArrayList<>();
+        int child = position + 1;
+        while (child < current.exit[position]) {
+            children.add(mapSubtree(current, child, mapper));
+            child = current.exit[child];
+        }
+        int deviceCount = (int) Arrays.stream(current.deviceIds,
+                current.deviceOffset[position], current.deviceOffset[current.exit[position]]).distinct().count();
+        return mapper.map(current.regions[position], deviceCount, children);
+    }
+
+    @FunctionalInterface
+    public interface TreeMapper<T> {
+        T map(Region region, int subtreeDeviceCount, List<T> children);
+    }
+
+    /**
+     * 不可变的索引快照
+     */
+    private static final class Snapshot {
+
+        private static final Snapshot EMPTY = new Snapshot(new Region[0], new int[0], Map.of(), new int[1], new long[0]);
+
+        // 按先序排列的区域
+        private final Region[] regions;
+
+        // exit[i]：先序位置 i 的子树结束位置（不含）
+        private final int[] exit;
+
+        private final Map<Long, Integer> positionOf;
+
+        // deviceOffset[i]：先序位置 i 的区域直接绑定的设备在 deviceIds 中的起始下标，长度为区域数 + 1
+        private final int[] deviceOffset;
+
+        private final long[] deviceIds;
+
+        private Snapshot(Region[] regions, int[] exit, Map<Long, Integer> positionOf,
+                         int[] deviceOffset, long[] deviceIds) {
+            this.regions = regions;
+            this.exit = exit;
+            this.positionOf = positionOf;
+            this.deviceOffset = deviceOffset;
+            this.deviceIds = deviceIds;
+        }
+
+        private static Snapshot build(List<Region> regionList, List<RegionDeviceRel> rels) {
+            Map<Long, Region> byId = new HashMap<>(regionList.size() * 2);
+            for (Region region : regionList) {
+                byId.put(region.getId(), region);
+            }
+            Map<Long, List<Region>> children = new HashMap<>();
+            List<Region> roots = new ArrayList<>();
+            for (Region region : regionList) {
+                // 父区域不存在的当作根，避免脏数据导致整棵子树丢失
+                if (region.getParentId() == null || !byId.containsKey(region.getParentId())) {
+                    roots.add(region);
+                } else {
+                    children.computeIfAbsent(region.getParentId(), k -> new ArrayList<>()).add(region);
+                }
+            }
+
+            int size = regionList.size();
+            Region[] ordered = new Region[size];
+            int[] exit = new int[size];
+            Map<Long, Integer> positionOf = new HashMap<>(size * 2);
+            int next = 0;
+            // 迭代 DFS：栈中存放 {区域, 是否已展开}
+            Deque<Object[]> stack = new ArrayDeque<>();
+            for (int i = roots.size() - 1; i >= 0; i--) {
+                stack.push(new Object[]{roots.get(i), Boolean.FALSE});
+            }
+            while (!stack.isEmpty()) {
+                Object[] frame = stack.pop();
+                Region region = (Region) frame[0];
+                if ((Boolean) frame[1]) {
+                    exit[positionOf.get(region.getId())] = next;
+                    continue;
+                }
+                if (positionOf.containsKey(region.getId())) {
+                    // parent_id 形成环时跳过重复访问
+                    continue;
+                }
+                positionOf.put(region.getId(), next);
+                ordered[next++] = region;
+                stack.push(new Object[]{region, Boolean.TRUE});
+                List<Region> kids = children.getOrDefault(region.getId(), Collections.emptyList());
+                for (int i = kids.size() - 1; i >= 0; i--) {
+                    stack.push(new Object[]{kids.get(i), Boolean.FALSE});
+                }
+            }
+            if (next < size) {
+                // 环上的区域不可达，丢弃
+                log.warn("区域树中存在环, 忽略 {} 个区域", size - next);
+                ordered = Arrays.copyOf(ordered, next);
+                exit = Arrays.copyOf(exit, next);
+            }
+
+            // 按先序位置对设备做计数排序
+            int[] counts = new int[next + 1];
+            for (RegionDeviceRel rel : rels) {
+                Integer position = positionOf.get(rel.getRegionId());
+                if (position != null) {
+                    counts[position + 1]++;
+                }
+            }
+            for (int i = 1; i <= next; i++) {
+                counts[i] += counts[i - 1];
+            }
+            int[] deviceOffset = Arrays.copyOf(counts, next + 1);
+            long[] deviceIds = new long[counts[next]];
+            for (RegionDeviceRel rel : rels) {
+                Integer position = positionOf.get(rel.getRegionId());
+                if (position != null) {
+                    deviceIds[counts[position]++] = rel.getDeviceId();
+                }
+            }
+            return new Snapshot(ordered, exit, positionOf, deviceOffset, deviceIds);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.gdairport.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class ExecutorConfig {
+
+    // 对象存储 I/O 的并发上限
+    @Value("${file.storage-io.threads}")
+    private int storageIoThreads;
+
+    @Value("${file.storage-io.queue-capacity}")
+    private int storageIoQueueCapacity;
+
+    /**
+     * 对象存储 I/O 线程池（批量上传、打包下载预取等）
+     * 队列满时由提交线程自己执行，形成反压而不是无限堆积
+     */
+    @Bean
+    public ThreadPoolTaskExecutor storageIoExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(storageIoThreads);
+        executor.setMaxPoolSize(storageIoThreads);
+        executor.setQueueCapacity(storageIoQueueCapacity);
+        executor.setThreadNamePrefix("storage-io-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+}
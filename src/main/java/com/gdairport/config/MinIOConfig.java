@@ -1,15 +1,26 @@
 package com.gdairport.config;
 
+import com.gdairport.storage.StorageClientMetrics;
 import io.minio.BucketExistsArgs;
 import io.minio.MakeBucketArgs;
 import io.minio.MinioClient;
 import lombok.extern.slf4j.Slf4j;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
 @Slf4j
 @Configuration
+@ConditionalOnProperty(name = "storage.type", havingValue = "minio", matchIfMissing = true)
 public class MinIOConfig {
 
     @Value("${minio.endpoint}")
@@ -24,11 +35,64 @@ public class MinIOConfig {
     @Value("${minio.bucket}")
     private String bucketName;
 
+    // 所有请求的最大并发数（OkHttp 默认 64）
+    @Value("${minio.client.max-requests}")
+    private int maxRequests;
+
+    // 单个主机的最大并发数（OkHttp 默认只有 5，并发上传时会排队）
+    @Value("${minio.client.max-requests-per-host}")
+    private int maxRequestsPerHost;
+
+    @Value("${minio.client.max-idle-connections}")
+    private int maxIdleConnections;
+
+    @Value("${minio.client.keep-alive}")
+    private Duration keepAlive;
+
+    @Value("${minio.client.connect-timeout}")
+    private Duration connectTimeout;
+
+    @Value("${minio.client.read-timeout}")
+    private Duration readTimeout;
+
+    @Value("${minio.client.write-timeout}")
+    private Duration writeTimeout;
+
+    // 仅在 https 端点上通过 ALPN 协商生效，http 端点始终使用 HTTP/1.1
+    @Value("${minio.client.http2-enabled}")
+    private boolean http2Enabled;
+
+    /**
+     * MinIO 使用的 OkHttp 客户端，全局唯一的连接池
+     */
+    @Bean
+    public OkHttpClient minioHttpClient(StorageClientMetrics storageClientMetrics) {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(maxRequests);
+        dispatcher.setMaxRequestsPerHost(maxRequestsPerHost);
+        List<Protocol> protocols = http2Enabled
+                ? List.of(Protocol.HTTP_2, Protocol.HTTP_1_1)
+                : List.of(Protocol.HTTP_1_1);
+        log.info("MinIO 客户端连接池: maxRequests={}, maxRequestsPerHost={}, maxIdleConnections={}, keepAlive={}",
+                maxRequests, maxRequestsPerHost, maxIdleConnections, keepAlive);
+        return new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .connectionPool(new ConnectionPool(maxIdleConnections, keepAlive.toMillis(), TimeUnit.MILLISECONDS))
+                .protocols(protocols)
+                .connectTimeout(connectTimeout)
+                .readTimeout(readTimeout)
+                .writeTimeout(writeTimeout)
+                .retryOnConnectionFailure(true)
+                .addInterceptor(storageClientMetrics)
+                .build();
+    }
+
     @Bean
-    public MinioClient minioClient() {
+    public MinioClient minioClient(OkHttpClient minioHttpClient) {
         MinioClient client = MinioClient.builder()
                 .endpoint(minioEndpoint)
                 .credentials(minioAccessKey, minioSecretKey)
+                .httpClient(minioHttpClient)
                 .build();
         try {
             boolean exists = client.bucketExists(BucketExistsArgs.builder().bucket(bucketName).build());
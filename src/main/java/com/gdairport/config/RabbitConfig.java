@@ -1,11 +1,24 @@
 package com.gdairport.config;
 
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpRejectAndDontRequeueException;
 import org.springframework.amqp.core.*;
+import org.springframework.amqp.rabbit.config.RetryInterceptorBuilder;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.retry.MessageBatchRecoverer;
+import org.springframework.amqp.rabbit.retry.RejectAndDontRequeueRecoverer;
+import org.springframework.amqp.rabbit.support.ListenerExecutionFailedException;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+import java.util.List;
+
+@Slf4j
 @Configuration
 public class RabbitConfig {
 
@@ -37,4 +50,149 @@ public class RabbitConfig {
     public Binding chatMessageBinding(Queue chatMessageQueue, DirectExchange chatMessageExchange) {
         return BindingBuilder.bind(chatMessageQueue).to(chatMessageExchange).with(MESSAGE_ROUTING_KEY);
     }
+
+
+    public static final String METRICS_QUEUE = "device-metrics-queue";
+    public static final String METRICS_EXCHANGE = "device-metrics-exchange";
+    public static final String METRICS_ROUTING_KEY = "device.metrics";
+
+    // 多次写库失败的指标批次进入死信队列，等待人工排查后重新投递
+    public static final String METRICS_DEAD_LETTER_QUEUE = "device-metrics-dead-letter-queue";
+    public static final String METRICS_DEAD_LETTER_EXCHANGE = "device-metrics-dead-letter-exchange";
+    public static final String METRICS_DEAD_LETTER_ROUTING_KEY = "device.metrics.dead";
+
+    public static final String DEVICE_EVENT_EXCHANGE = "device-event-exchange";
+    public static final String DEVICE_ONLINE_ROUTING_KEY = "device.status.online";
+    public static final String DEVICE_OFFLINE_ROUTING_KEY = "device.status.offline";
+    public static final String DEVICE_STATUS_BINDING_PATTERN = "device.status.*";
+
+    // 每个消费者的并发数
+    @Value("${device.metrics.rabbit.consumers}")
+    private int metricsConsumers;
+
+    // 一次回调合并的消息条数
+    @Value("${device.metrics.rabbit.consumer-batch-size}")
+    private int metricsConsumerBatchSize;
+
+    // 未攒满一批时最多等待的时间，超时后把已收到的消息作为一批交给消费者
+    @Value("${device.metrics.rabbit.receive-timeout}")
+    private Duration metricsReceiveTimeout;
+
+    @Value("${device.metrics.rabbit.prefetch}")
+    private int metricsPrefetch;
+
+    // 一批消息写库的最大尝试次数（含第一次），用尽后整批进入死信队列
+    @Value("${device.metrics.rabbit.retry.max-attempts}")
+    private int metricsRetryMaxAttempts;
+
+    @Value("${device.metrics.rabbit.retry.initial-interval}")
+    private Duration metricsRetryInitialInterval;
+
+    @Value("${device.metrics.rabbit.retry.max-interval}")
+    private Duration metricsRetryMaxInterval;
+
+    @Bean
+    public Queue deviceMetricsQueue() {
+        return QueueBuilder.durable(METRICS_QUEUE)
+                .lazy()
+                .deadLetterExchange(METRICS_DEAD_LETTER_EXCHANGE)
+                .deadLetterRoutingKey(METRICS_DEAD_LETTER_ROUTING_KEY)
+                .build();
+    }
+
+    @Bean
+    public Queue deviceMetricsDeadLetterQueue() {
+        return QueueBuilder.durable(METRICS_DEAD_LETTER_QUEUE)
+                .lazy()
+                .build();
+    }
+
+    @Bean
+    public DirectExchange deviceMetricsDeadLetterExchange() {
+        return new DirectExchange(METRICS_DEAD_LETTER_EXCHANGE);
+    }
+
+    @Bean
+    public Binding deviceMetricsDeadLetterBinding(Queue deviceMetricsDeadLetterQueue,
+                                                  DirectExchange deviceMetricsDeadLetterExchange) {
+        return BindingBuilder.bind(deviceMetricsDeadLetterQueue).to(deviceMetricsDeadLetterExchange)
+                .with(METRICS_DEAD_LETTER_ROUTING_KEY);
+    }
+
+    @Bean
+    public DirectExchange deviceMetricsExchange() {
+        return new DirectExchange(METRICS_EXCHANGE);
+    }
+
+    @Bean
+    public Binding deviceMetricsBinding(Queue deviceMetricsQueue, DirectExchange deviceMetricsExchange) {
+        return BindingBuilder.bind(deviceMetricsQueue).to(deviceMetricsExchange).with(METRICS_ROUTING_KEY);
+    }
+
+    /**
+     * 设备事件交换机，订阅方按 device.status.* 等路由键自行绑定队列
+     */
+    @Bean
+    public TopicExchange deviceEventExchange() {
+        return new TopicExchange(DEVICE_EVENT_EXCHANGE);
+    }
+
+    /**
+     * 设备推送通道的节点队列：每个节点一个匿名（排他、自动删除）队列，设备状态事件广播到所有节点，
+     * 各节点只推送给自己持有连接的设备
+     */
+    @Bean
+    public AnonymousQueue devicePushQueue() {
+        return new AnonymousQueue();
+    }
+
+    @Bean
+    public Binding devicePushBinding(AnonymousQueue devicePushQueue, TopicExchange deviceEventExchange) {
+        return BindingBuilder.bind(devicePushQueue).to(deviceEventExchange).with(DEVICE_STATUS_BINDING_PATTERN);
+    }
+
+    /**
+     * 指标批量消费的容器工厂
+     * <p>
+     * consumer batching 把多条消息合并成一次回调，消费者再合并成一条多行 INSERT；
+     * prefetch 不能小于批大小，否则一批永远攒不满，只能等 receive-timeout。
+     */
+    @Bean
+    public SimpleRabbitListenerContainerFactory metricsBatchContainerFactory(ConnectionFactory connectionFactory,
+                                                                            MessageConverter messageConverter) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        factory.setConnectionFactory(connectionFactory);
+        factory.setMessageConverter(messageConverter);
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(metricsConsumerBatchSize);
+        factory.setReceiveTimeout(metricsReceiveTimeout.toMillis());
+        factory.setPrefetchCount(Math.max(metricsPrefetch, metricsConsumerBatchSize));
+        factory.setConcurrentConsumers(metricsConsumers);
+        factory.setMaxConcurrentConsumers(metricsConsumers);
+        factory.setAcknowledgeMode(AcknowledgeMode.AUTO);
+        // 写库失败时在本地按指数退避重试，用尽后整批拒绝且不重新入队，由死信交换机转入死信队列
+        factory.setAdviceChain(RetryInterceptorBuilder.stateless()
+                .maxAttempts(metricsRetryMaxAttempts)
+                .backOffOptions(metricsRetryInitialInterval.toMillis(), 2.0, metricsRetryMaxInterval.toMillis())
+                .recoverer(new RejectBatchRecoverer())
+                .build());
+        factory.setDefaultRequeueRejected(false);
+        return factory;
+    }
+
+    /**
+     * 批量监听器的兜底处理：整批消息拒绝且不重新入队
+     * <p>
+     * RejectAndDontRequeueRecoverer 只处理单条消息，批量监听器重试用尽时需要 MessageBatchRecoverer。
+     */
+    private static class RejectBatchRecoverer extends RejectAndDontRequeueRecoverer implements MessageBatchRecoverer {
+
+        @Override
+        public void recover(List<Message> messages, Throwable cause) {
+            log.error("指标批次重试用尽, {} 条消息转入死信队列", messages.size(), cause);
+            throw new ListenerExecutionFailedException("指标批次重试用尽",
+                    new AmqpRejectAndDontRequeueException(cause), messages.toArray(new Message[0]));
+        }
+    }
 }
@@ -0,0 +1,95 @@
+package com.gdairport.controller;
+
+import com.gdairport.cache.AlgorithmAssignmentTable.CompiledAssignment;
+import com.gdairport.domain.ResponseResult;
+import com.gdairport.domain.dto.AlgorithmDeviceBindDto;
+import com.gdairport.service.AlgorithmService;
+import com.gdairport.service.ModelDistributionService;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/algorithms")
+@Validated
+public class AlgorithmController {
+
+    private final AlgorithmService algorithmService;
+
+    private final ModelDistributionService modelDistributionService;
+
+    /**
+     * 边缘设备轮询应运行的算法
+     * 支持 If-None-Match，分配结果未变化时返回 304；响应体是预编译的字节，直接写出
+     */
+    @GetMapping("/assignments/{deviceId}")
+    public void assignments(@PathVariable("deviceId") Long deviceId,
+                            ServletWebRequest webRequest, HttpServletResponse response) throws IOException {
+        CompiledAssignment assignment = algorithmService.getAssignment(deviceId);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().getHeaderValue());
+        if (webRequest.checkNotModified(assignment.etag())) {
+            return;
+        }
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(assignment.body().length);
+        response.getOutputStream().write(assignment.body());
+    }
+
+    /**
+     * 边缘设备下载已发布版本的模型文件
+     * ETag 为模型 SHA-256；支持 Range / If-Range 断点续传，并发下载超限时返回 503 + Retry-After
+     */
+    @GetMapping("/models/{versionId}")
+    public void downloadModel(@PathVariable("versionId") Long versionId,
+                              ServletWebRequest webRequest, HttpServletResponse response) {
+        modelDistributionService.download(versionId, webRequest, response);
+    }
+
+    /** 把算法分配给设备 */
+    @PostMapping("/{id}/devices")
+    public ResponseResult<Void> bindDevices(@PathVariable("id") Long id,
+                                            @Valid @RequestBody AlgorithmDeviceBindDto bindDto) {
+        algorithmService.bindDevices(id, bindDto.getDeviceIds());
+        return ResponseResult.success();
+    }
+
+    /** 取消设备的算法分配 */
+    @DeleteMapping("/{id}/devices/{deviceId}")
+    public ResponseResult<Void> unbindDevice(@PathVariable("id") Long id,
+                                             @PathVariable("deviceId") Long deviceId) {
+        algorithmService.unbindDevice(id, deviceId);
+        return ResponseResult.success();
+    }
+
+    /** 启动（ACTIVE）或关闭（INACTIVE）算法 */
+    @PutMapping("/{id}/status")
+    public ResponseResult<Void> updateStatus(@PathVariable("id") Long id,
+                                             @RequestParam("status") String status) {
+        algorithmService.updateStatus(id, status);
+        return ResponseResult.success();
+    }
+
+    /** 切换算法当前使用的版本 */
+    @PutMapping("/{id}/version")
+    public ResponseResult<Void> switchVersion(@PathVariable("id") Long id,
+                                              @RequestParam("version-id") Long versionId) {
+        algorithmService.switchVersion(id, versionId);
+        return ResponseResult.success();
+    }
+
+    /** 发布版本 */
+    @PutMapping("/versions/{versionId}/release")
+    public ResponseResult<Void> releaseVersion(@PathVariable("versionId") Long versionId) {
+        algorithmService.releaseVersion(versionId);
+        return ResponseResult.success();
+    }
+}
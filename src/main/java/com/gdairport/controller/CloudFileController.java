@@ -1,17 +1,30 @@
 package com.gdairport.controller;
 
 import com.gdairport.domain.ResponseResult;
+import com.gdairport.domain.dto.BatchGetDto;
+import com.gdairport.domain.dto.BatchMoveDto;
 import com.gdairport.domain.dto.CreateFolderDto;
 import com.gdairport.domain.dto.MoveFileDto;
 import com.gdairport.domain.dto.RenameDto;
 import com.gdairport.domain.entity.File;
+import com.gdairport.domain.vo.BatchGetResultVo;
+import com.gdairport.domain.vo.BatchUploadResultVo;
+import com.gdairport.domain.vo.FileChangesVo;
+import com.gdairport.domain.vo.FileSearchVo;
+import com.gdairport.domain.vo.FileTreeVo;
+import com.gdairport.domain.vo.StorageQuotaVo;
 import com.gdairport.exception.NotFoundException;
 import com.gdairport.service.CloudFileService;
+import com.gdairport.service.FileChangeService;
+import com.gdairport.service.StorageQuotaService;
 import com.gdairport.util.UserContextUtil;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
 import lombok.RequiredArgsConstructor;
 import org.apache.poi.ss.formula.functions.T;
 import org.springframework.validation.annotation.Validated;
@@ -28,6 +41,10 @@ public class CloudFileController {
 
     private final CloudFileService cloudFileService;
 
+    private final StorageQuotaService storageQuotaService;
+
+    private final FileChangeService fileChangeService;
+
     /*@GetMapping("/file/download")
     public void fileDownload(HttpServletResponse response, @RequestParam("filePath") String filePath) {
         File file = new File(filePath);
@@ -101,6 +118,13 @@ public class CloudFileController {
         cloudFileService.fileDownload(response, id);
     }
 
+    /** 将整个文件夹打包为 ZIP 流式下载 */
+    @GetMapping("/download-zip")
+    public void downloadZip(HttpServletResponse response,
+                            @RequestParam("id") @NotNull(message = "文件夹ID不能为空") Long id) throws NotFoundException {
+        cloudFileService.downloadZip(response, id);
+    }
+
     /**
      * 文件上传处理
      * @param file 上传的文件 (来自表单的 'file' 字段)
@@ -115,6 +139,18 @@ public class CloudFileController {
         return ResponseResult.success();
     }
 
+    /**
+     * 批量上传，逐个返回每个文件的结果
+     * @param files 上传的文件 (来自表单的 'files' 字段)
+     * @param parentId 文件的父目录ID (可选, null表示根目录)
+     */
+    @PostMapping("/upload/batch")
+    public ResponseResult<List<BatchUploadResultVo>> batchUpload(@RequestParam("files") @NotEmpty(message = "文件不能为空") List<MultipartFile> files,
+                                                                 @RequestParam(value = "parent-id", required = false) Long parentId) throws NotFoundException {
+        Long userId = UserContextUtil.getUserId();
+        return ResponseResult.success(cloudFileService.batchUpload(files, parentId, userId));
+    }
+
 
 
     /** 创建文件夹 */
@@ -125,6 +161,14 @@ public class CloudFileController {
         return ResponseResult.success();
     }
 
+    /**
+     * 批量查询文件信息，替代逐条调用 /{id}；结果按请求顺序返回，不存在的ID found 为 false
+     */
+    @PostMapping("/batch-get")
+    public ResponseResult<List<BatchGetResultVo>> batchGet(@Valid @RequestBody BatchGetDto batchGetDto) {
+        return ResponseResult.success(cloudFileService.batchGet(batchGetDto.getIds()));
+    }
+
     @GetMapping("/{id}")
     public ResponseResult<File> getFileById(@PathVariable @NotNull(message = "文件ID不能为空")
                                                   @Min(value = 1, message = "文件ID必须大于0") Long id) {
@@ -142,6 +186,86 @@ public class CloudFileController {
     }
 
 
+    /**
+     * 一次返回多层子树，替代逐个文件夹调用 /list 展开
+     * @param id 文件夹ID，不传表示根目录
+     * @param depth 展开层数
+     * @param limit 每个文件夹、以及每一层合计最多返回的子节点数，超出时节点的 truncated 为 true
+     */
+    @GetMapping("/tree")
+    public ResponseResult<FileTreeVo> getFileTree(@RequestParam(value = "id", required = false) Long id,
+                                                  @RequestParam(value = "depth", defaultValue = "2")
+                                                  @Min(value = 1, message = "depth 必须大于0")
+                                                  @Max(value = 10, message = "depth 不能超过10") int depth,
+                                                  @RequestParam(value = "limit", defaultValue = "100")
+                                                  @Min(value = 1, message = "limit 必须大于0")
+                                                  @Max(value = 200, message = "limit 不能超过200") int limit) {
+        return ResponseResult.success(cloudFileService.getFileTree(id, depth, limit));
+    }
+
+    /**
+     * 按文件名检索
+     * @param keyword 文件名关键字
+     * @param match PREFIX-前缀匹配，CONTAINS-包含（默认）
+     * @param extension 扩展名，如 mp4
+     * @param folderId 只在该文件夹子树内检索（可选）
+     * @param cursor 上一页返回的 nextCursor
+     */
+    @GetMapping("/search")
+    public ResponseResult<FileSearchVo> search(@RequestParam(value = "keyword", required = false) String keyword,
+                                               @RequestParam(value = "match", defaultValue = "CONTAINS")
+                                               @Pattern(regexp = "PREFIX|CONTAINS", message = "匹配方式只能是 PREFIX 或 CONTAINS") String match,
+                                               @RequestParam(value = "extension", required = false) String extension,
+                                               @RequestParam(value = "folder-id", required = false) Long folderId,
+                                               @RequestParam(value = "cursor", required = false) Long cursor,
+                                               @RequestParam(value = "limit", defaultValue = "50")
+                                               @Min(value = 1, message = "limit 必须大于0")
+                                               @Max(value = 200, message = "limit 不能超过200") int limit) {
+        return ResponseResult.success(cloudFileService.search(keyword, match, extension, folderId, cursor, limit));
+    }
+
+    /** 按路径获取文件或文件夹，如 /2026/10/T3/gate-12/clip.mp4 */
+    @GetMapping("/path")
+    public ResponseResult<File> getFileByPath(@RequestParam("path") @NotEmpty(message = "路径不能为空") String path) {
+        return ResponseResult.success(cloudFileService.getFileByPath(path));
+    }
+
+    /** 按路径列出文件夹内容，不传路径时列出根目录 */
+    @GetMapping("/path/list")
+    public ResponseResult<List<File>> listFilesByPath(@RequestParam(value = "path", required = false) String path) {
+        return ResponseResult.success(cloudFileService.getFileListByPath(path));
+    }
+
+    /**
+     * 上传到指定路径的文件夹，不存在的文件夹自动创建
+     * @param path 目标文件夹路径，如 /2026/10/T3/gate-12
+     */
+    @PostMapping("/path/upload")
+    public ResponseResult<T> uploadToPath(@RequestParam("file") @NotNull(message = "文件不能为空") MultipartFile file,
+                                          @RequestParam(value = "path", required = false) String path) throws NotFoundException {
+        Long userId = UserContextUtil.getUserId();
+        cloudFileService.uploadToPath(file, path, userId);
+        return ResponseResult.success();
+    }
+
+    /**
+     * 增量同步：游标之后的新建、重命名、移动、删除
+     * @param since 上次返回的 cursor，首次同步使用 /changes/head 的返回值
+     */
+    @GetMapping("/changes")
+    public ResponseResult<FileChangesVo> listChanges(@RequestParam(value = "since", defaultValue = "0") long since,
+                                                     @RequestParam(value = "limit", defaultValue = "500")
+                                                     @Min(value = 1, message = "limit 必须大于0")
+                                                     @Max(value = 5000, message = "limit 不能超过5000") int limit) {
+        return ResponseResult.success(fileChangeService.getChanges(since, limit));
+    }
+
+    /** 当前最新的变更游标，全量同步前获取 */
+    @GetMapping("/changes/head")
+    public ResponseResult<Long> changesHead() {
+        return ResponseResult.success(fileChangeService.getHead());
+    }
+
     @PutMapping("/rename")
     public ResponseResult<T> renameFile(@Valid @RequestBody RenameDto renameDto) throws NotFoundException {
         Long userId = UserContextUtil.getUserId();
@@ -163,4 +287,26 @@ public class CloudFileController {
         cloudFileService.move(moveDto.getId(), moveDto.getNewParentId(), userId);
         return ResponseResult.success();
     }
+
+    /** 批量移动到同一目录，任一项不合法时整体失败 */
+    @PutMapping("/move/batch")
+    public ResponseResult<T> batchMoveFiles(@Valid @RequestBody BatchMoveDto batchMoveDto) throws NotFoundException {
+        Long userId = UserContextUtil.getUserId();
+        cloudFileService.batchMove(batchMoveDto.getIds(), batchMoveDto.getNewParentId(), userId);
+        return ResponseResult.success();
+    }
+
+    /**
+     * 查询配额和已使用空间，默认查询当前用户
+     * @param scope USER-用户，FOLDER-文件夹
+     */
+    @GetMapping("/quota")
+    public ResponseResult<StorageQuotaVo> getQuota(@RequestParam(value = "scope", defaultValue = "USER")
+                                                   @Pattern(regexp = "USER|FOLDER", message = "配额范围只能是 USER 或 FOLDER") String scope,
+                                                   @RequestParam(value = "scope-id", required = false) Long scopeId) {
+        if (scopeId == null) {
+            scopeId = UserContextUtil.getUserId();
+        }
+        return ResponseResult.success(storageQuotaService.getUsage(scope, scopeId));
+    }
 }
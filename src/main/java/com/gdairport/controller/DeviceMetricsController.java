@@ -0,0 +1,87 @@
+package com.gdairport.controller;
+
+import com.gdairport.domain.ResponseResult;
+import com.gdairport.domain.dto.DeviceMetricBatchDto;
+import com.gdairport.domain.entity.DeviceMetric;
+import com.gdairport.domain.vo.MetricsIngestStatsVo;
+import com.gdairport.domain.vo.MetricsPartitionVo;
+import com.gdairport.domain.vo.MetricsSeriesVo;
+import com.gdairport.service.DeviceMetricsService;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/device/metrics")
+@Validated
+public class DeviceMetricsController {
+
+    private final DeviceMetricsService deviceMetricsService;
+
+    /** 边缘设备批量上报运行指标 */
+    @PostMapping
+    public ResponseResult<Void> ingest(@Valid @RequestBody DeviceMetricBatchDto batchDto) {
+        deviceMetricsService.ingest(batchDto.getSamples());
+        return ResponseResult.success();
+    }
+
+    /** 指标写入统计（缓冲区水位、写入速率等） */
+    @GetMapping("/ingest-stats")
+    public ResponseResult<MetricsIngestStatsVo> ingestStats() {
+        return ResponseResult.success(deviceMetricsService.getIngestStats());
+    }
+
+    /** 所有设备（或指定区域及下级区域）的当前状态（最新指标 + 设备状态/位置），直接流式输出 */
+    @GetMapping("/latest")
+    public void latestSnapshot(HttpServletResponse response,
+                               @RequestParam(value = "region-id", required = false) Long regionId) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        deviceMetricsService.writeLatestSnapshot(regionId, response.getOutputStream());
+    }
+
+    /** 查询单个设备在 [from, to) 内的原始指标 */
+    @GetMapping("/{deviceId}")
+    public ResponseResult<List<DeviceMetric>> listDeviceMetrics(
+            @PathVariable("deviceId") Long deviceId,
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(value = "limit", defaultValue = "1000") int limit) {
+        return ResponseResult.success(deviceMetricsService.listDeviceMetrics(deviceId, from, to, limit));
+    }
+
+    /** 设备趋势曲线，按时间范围自动选择 1m / 5m / 1h 汇总粒度 */
+    @GetMapping("/{deviceId}/series")
+    public ResponseResult<MetricsSeriesVo> deviceSeries(
+            @PathVariable("deviceId") Long deviceId,
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(value = "max-points", defaultValue = "500") int maxPoints) {
+        return ResponseResult.success(deviceMetricsService.getDeviceSeries(deviceId, from, to, maxPoints));
+    }
+
+    /** 区域趋势曲线（包含所有下级区域的设备） */
+    @GetMapping("/regions/{regionId}/series")
+    public ResponseResult<MetricsSeriesVo> regionSeries(
+            @PathVariable("regionId") Long regionId,
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(value = "max-points", defaultValue = "500") int maxPoints) {
+        return ResponseResult.success(deviceMetricsService.getRegionSeries(regionId, from, to, maxPoints));
+    }
+
+    /** device_metrics 按天分区列表 */
+    @GetMapping("/partitions")
+    public ResponseResult<List<MetricsPartitionVo>> listPartitions() {
+        return ResponseResult.success(deviceMetricsService.listPartitions());
+    }
+}
@@ -0,0 +1,32 @@
+package com.gdairport.controller;
+
+import com.gdairport.domain.ResponseResult;
+import com.gdairport.domain.vo.DevicePushStatsVo;
+import com.gdairport.push.DevicePushRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/device/push")
+public class DevicePushController {
+
+    private final DevicePushRegistry devicePushRegistry;
+
+    /**
+     * 设备订阅配置变更（SSE）
+     * 事件 assignment：算法分配结果的新 ETag；事件 status：设备状态。连接超时后设备重连即可
+     */
+    @GetMapping(value = "/{deviceId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe(@PathVariable("deviceId") Long deviceId) {
+        return devicePushRegistry.subscribe(deviceId);
+    }
+
+    /** 本节点推送通道统计 */
+    @GetMapping("/stats")
+    public ResponseResult<DevicePushStatsVo> stats() {
+        return ResponseResult.success(devicePushRegistry.getStats());
+    }
+}
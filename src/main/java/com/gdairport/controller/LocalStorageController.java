@@ -0,0 +1,61 @@
+package com.gdairport.controller;
+
+import com.gdairport.exception.FileStorageException;
+import com.gdairport.exception.NotFoundException;
+import com.gdairport.exception.UnauthorizedException;
+import com.gdairport.storage.LocalStorageBackend;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 本地存储后端的预签名下载地址
+ */
+@Slf4j
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/storage/local")
+@ConditionalOnProperty(name = "storage.type", havingValue = "local")
+public class LocalStorageController {
+
+    private final LocalStorageBackend localStorageBackend;
+
+    @GetMapping("/object")
+    public void download(HttpServletResponse response,
+                         @RequestParam("key") String key,
+                         @RequestParam("expires") long expires,
+                         @RequestParam("signature") String signature) {
+        if (!localStorageBackend.verifySignature(key, expires, signature)) {
+            throw new UnauthorizedException("下载地址无效或已过期");
+        }
+        Path path = localStorageBackend.resolve(key);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            response.setContentType("application/octet-stream");
+            response.setContentLengthLong(size);
+            WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+            long position = 0;
+            while (position < size) {
+                position += channel.transferTo(position, size - position, target);
+            }
+        } catch (NoSuchFileException e) {
+            throw new NotFoundException("对象不存在: " + key);
+        } catch (IOException e) {
+            log.error("本地对象下载失败, key: {}", key, e);
+            throw new FileStorageException("本地对象下载失败", e);
+        }
+    }
+}
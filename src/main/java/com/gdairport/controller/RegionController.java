@@ -0,0 +1,64 @@
+package com.gdairport.controller;
+
+import com.gdairport.domain.ResponseResult;
+import com.gdairport.domain.dto.RegionDeviceBindDto;
+import com.gdairport.domain.entity.Region;
+import com.gdairport.domain.vo.RegionTreeVo;
+import com.gdairport.service.RegionService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/regions")
+@Validated
+public class RegionController {
+
+    private final RegionService regionService;
+
+    /** 整棵区域树（含每个区域子树内的设备数） */
+    @GetMapping("/tree")
+    public ResponseResult<List<RegionTreeVo>> tree() {
+        return ResponseResult.success(regionService.getTree());
+    }
+
+    /** 区域及所有下级区域 */
+    @GetMapping("/{id}/descendants")
+    public ResponseResult<List<Region>> descendants(@PathVariable("id") Long id) {
+        return ResponseResult.success(regionService.listSubtreeRegions(id));
+    }
+
+    /** 区域及所有下级区域的设备ID */
+    @GetMapping("/{id}/devices")
+    public ResponseResult<List<Long>> devices(@PathVariable("id") Long id) {
+        return ResponseResult.success(Arrays.stream(regionService.listSubtreeDeviceIds(id)).boxed().toList());
+    }
+
+    /** 把设备绑定到区域 */
+    @PostMapping("/{id}/devices")
+    public ResponseResult<Void> bindDevices(@PathVariable("id") Long id,
+                                            @Valid @RequestBody RegionDeviceBindDto bindDto) {
+        regionService.bindDevices(id, bindDto.getDeviceIds());
+        return ResponseResult.success();
+    }
+
+    /** 解除设备与区域的绑定 */
+    @DeleteMapping("/{id}/devices/{deviceId}")
+    public ResponseResult<Void> unbindDevice(@PathVariable("id") Long id,
+                                             @PathVariable("deviceId") Long deviceId) {
+        regionService.unbindDevice(id, deviceId);
+        return ResponseResult.success();
+    }
+
+    /** 直接修改数据库后手动刷新区域树索引 */
+    @PostMapping("/refresh")
+    public ResponseResult<Void> refresh() {
+        regionService.refresh();
+        return ResponseResult.success();
+    }
+}
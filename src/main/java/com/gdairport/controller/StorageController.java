@@ -0,0 +1,36 @@
+package com.gdairport.controller;
+
+import com.gdairport.domain.ResponseResult;
+import com.gdairport.domain.vo.StorageMetricsVo;
+import com.gdairport.storage.StorageClientMetrics;
+import lombok.RequiredArgsConstructor;
+import okhttp3.OkHttpClient;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/storage")
+@ConditionalOnProperty(name = "storage.type", havingValue = "minio", matchIfMissing = true)
+public class StorageController {
+
+    private final OkHttpClient minioHttpClient;
+
+    private final StorageClientMetrics storageClientMetrics;
+
+    /** 对象存储客户端连接池及请求指标 */
+    @GetMapping("/metrics")
+    public ResponseResult<StorageMetricsVo> metrics() {
+        StorageMetricsVo vo = StorageMetricsVo.builder()
+                .inFlight(storageClientMetrics.getInFlight())
+                .runningCalls(minioHttpClient.dispatcher().runningCallsCount())
+                .queuedCalls(minioHttpClient.dispatcher().queuedCallsCount())
+                .connections(minioHttpClient.connectionPool().connectionCount())
+                .idleConnections(minioHttpClient.connectionPool().idleConnectionCount())
+                .operations(storageClientMetrics.snapshot())
+                .build();
+        return ResponseResult.success(vo);
+    }
+}
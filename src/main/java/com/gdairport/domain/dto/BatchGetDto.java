@@ -0,0 +1,17 @@
+package com.gdairport.domain.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BatchGetDto {
+
+    /** 文件ID列表，允许重复，结果按此顺序返回 */
+    @NotEmpty(message = "文件ID列表不能为空")
+    @Size(max = 1000, message = "单次最多查询1000个文件或文件夹")
+    private List<@NotNull(message = "文件ID不能为空") Long> ids;
+}
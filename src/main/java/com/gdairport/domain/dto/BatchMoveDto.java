@@ -0,0 +1,18 @@
+package com.gdairport.domain.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BatchMoveDto {
+
+    @NotEmpty(message = "文件ID列表不能为空")
+    @Size(max = 1000, message = "单次最多移动1000个文件或文件夹")
+    private List<Long> ids;
+
+    /** 新的父目录ID（null 表示移动到根目录） */
+    private Long newParentId;
+}
@@ -0,0 +1,18 @@
+package com.gdairport.domain.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 批量上报的运行指标
+ */
+@Data
+public class DeviceMetricBatchDto {
+
+    @Valid
+    @NotEmpty(message = "指标数据不能为空")
+    private List<DeviceMetricDto> samples;
+}
@@ -0,0 +1,42 @@
+package com.gdairport.domain.dto;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 边缘设备上报的一条运行指标
+ */
+@Data
+public class DeviceMetricDto {
+
+    @NotNull(message = "设备ID不能为空")
+    private Long deviceId;
+
+    @DecimalMin(value = "0", message = "CPU使用率不能小于0")
+    @DecimalMax(value = "100", message = "CPU使用率不能大于100")
+    private BigDecimal cpuUsage;
+
+    @DecimalMin(value = "0", message = "内存使用率不能小于0")
+    @DecimalMax(value = "100", message = "内存使用率不能大于100")
+    private BigDecimal memoryUsage;
+
+    @DecimalMin(value = "0", message = "GPU使用率不能小于0")
+    @DecimalMax(value = "100", message = "GPU使用率不能大于100")
+    private BigDecimal gpuUsage;
+
+    @DecimalMin(value = "0", message = "磁盘使用率不能小于0")
+    @DecimalMax(value = "100", message = "磁盘使用率不能大于100")
+    private BigDecimal diskUsage;
+
+    @Size(max = 128, message = "网络状况长度不能超过128个字符")
+    private String networkStatus;
+
+    /** 采集时间（为空时使用服务端接收时间） */
+    private LocalDateTime collectedAt;
+}
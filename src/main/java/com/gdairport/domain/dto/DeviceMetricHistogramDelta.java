@@ -0,0 +1,28 @@
+package com.gdairport.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 汇总桶内一个指标某个 1% 区间新增的样本数，写入时与表中已有计数相加
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeviceMetricHistogramDelta {
+
+    private Long deviceId;
+
+    private LocalDateTime bucketStart;
+
+    /** cpu / memory / gpu */
+    private String metric;
+
+    /** 取整后的使用率，0-100 */
+    private Integer bin;
+
+    private Integer sampleCount;
+}
@@ -0,0 +1,40 @@
+package com.gdairport.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 一个节点自上次写入后在一个汇总桶内新增的统计量，写入时与表中已有的值相加 / 取极值合并
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DeviceMetricRollupDelta {
+
+    private Long deviceId;
+
+    private LocalDateTime bucketStart;
+
+    private Integer sampleCount;
+
+    private Integer cpuCount;
+    private BigDecimal cpuSum;
+    private BigDecimal cpuMin;
+    private BigDecimal cpuMax;
+
+    private Integer memoryCount;
+    private BigDecimal memorySum;
+    private BigDecimal memoryMin;
+    private BigDecimal memoryMax;
+
+    private Integer gpuCount;
+    private BigDecimal gpuSum;
+    private BigDecimal gpuMin;
+    private BigDecimal gpuMax;
+}
@@ -0,0 +1,29 @@
+package com.gdairport.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 设备上线/离线事件，发布到 RabbitMQ 的 device-event-exchange
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeviceStatusEvent {
+
+    private Long deviceId;
+
+    /** ACTIVE-上线，INACTIVE-离线 */
+    private String status;
+
+    /** 最后一次收到指标的时间 */
+    private LocalDateTime lastSeenAt;
+
+    /** 状态变化时间 */
+    private LocalDateTime occurredAt;
+}
@@ -0,0 +1,16 @@
+package com.gdairport.domain.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 把设备绑定到区域
+ */
+@Data
+public class RegionDeviceBindDto {
+
+    @NotEmpty(message = "设备ID不能为空")
+    private List<Long> deviceIds;
+}
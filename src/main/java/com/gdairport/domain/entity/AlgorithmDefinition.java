@@ -0,0 +1,41 @@
+package com.gdairport.domain.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 算法定义，对应数据库表 algorithm_definitions
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@TableName("algorithm_definitions")
+public class AlgorithmDefinition {
+
+    /** 主键ID */
+    @TableId(value = "id", type = IdType.AUTO)
+    private Long id;
+
+    /** 算法标识符 */
+    private String algorithmCode;
+
+    /** 算法名称 */
+    private String algorithmName;
+
+    /** 启动状态：INACTIVE-关闭，ACTIVE-启动 */
+    private String status;
+
+    /** 当前使用的版本ID */
+    private Long versionId;
+
+    /** 创建时间 */
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,53 @@
+package com.gdairport.domain.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 算法版本，对应数据库表 algorithm_versions
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@TableName("algorithm_versions")
+public class AlgorithmVersion {
+
+    /** 主键ID */
+    @TableId(value = "id", type = IdType.AUTO)
+    private Long id;
+
+    /** 版本名称 */
+    private String versionName;
+
+    /** 描述 */
+    private String description;
+
+    /** 算法定义ID */
+    private Long definitionId;
+
+    /** 状态：DRAFT-训练 RELEASE-发布 */
+    private String status;
+
+    /** 版本号 */
+    private Integer version;
+
+    /** 模型存储索引（对象存储Key） */
+    private String modelStorageKey;
+
+    /** 模型文件大小（字节） */
+    private Long modelSize;
+
+    /** 模型文件 SHA-256（十六进制） */
+    private String modelSha256;
+
+    /** 创建时间 */
+    private LocalDateTime createdAt;
+}
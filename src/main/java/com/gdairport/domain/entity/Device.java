@@ -0,0 +1,62 @@
+package com.gdairport.domain.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 边缘设备，对应数据库表 devices
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@TableName("devices")
+public class Device {
+
+    /** 主键ID */
+    @TableId(value = "id", type = IdType.AUTO)
+    private Long id;
+
+    /** 边缘设备编号 */
+    private String deviceCode;
+
+    /** 应用区域 */
+    private String applyRegion;
+
+    /** 所在位置 */
+    private String location;
+
+    /** 启动状态：INACTIVE-关闭，ACTIVE-启动 */
+    private String status;
+
+    /** 产品型号 */
+    private String productModel;
+
+    /** 搭载芯片 */
+    private String chip;
+
+    /** CPU型号 */
+    private String cpu;
+
+    /** 峰值算力（TOPS） */
+    private String aiComputePower;
+
+    /** 操作系统 */
+    private String os;
+
+    /** 更新用户 */
+    private String updatedBy;
+
+    /** 更新时间 */
+    private LocalDateTime updatedAt;
+
+    /** 创建时间 */
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,35 @@
+package com.gdairport.domain.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 设备算法关系，对应数据库表 device_algorithm_rel
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@TableName("device_algorithm_rel")
+public class DeviceAlgorithmRel {
+
+    /** 主键ID */
+    @TableId(value = "id", type = IdType.AUTO)
+    private Long id;
+
+    /** 算法ID */
+    private Long algorithmId;
+
+    /** 设备ID */
+    private Long deviceId;
+
+    /** 创建时间 */
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,48 @@
+package com.gdairport.domain.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 边缘设备运行指标，对应数据库表 device_metrics
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@TableName("device_metrics")
+public class DeviceMetric {
+
+    /** 主键ID */
+    @TableId(value = "id", type = IdType.AUTO)
+    private Long id;
+
+    /** 设备ID */
+    private Long deviceId;
+
+    /** CPU使用率（0-100） */
+    private BigDecimal cpuUsage;
+
+    /** 内存使用率（0-100） */
+    private BigDecimal memoryUsage;
+
+    /** GPU使用率（0-100） */
+    private BigDecimal gpuUsage;
+
+    /** 磁盘使用率（0-100） */
+    private BigDecimal diskUsage;
+
+    /** 网络状况（如：good / poor / offline / RTTxx） */
+    private String networkStatus;
+
+    /** 采集时间 */
+    private LocalDateTime createdAt;
+}
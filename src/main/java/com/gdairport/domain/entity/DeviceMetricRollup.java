@@ -0,0 +1,43 @@
+package com.gdairport.domain.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 设备指标汇总，对应数据库表 device_metrics_1m / device_metrics_5m / device_metrics_1h
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DeviceMetricRollup {
+
+    /** 设备ID（区域汇总时为空） */
+    private Long deviceId;
+
+    /** 桶起始时间 */
+    private LocalDateTime bucketStart;
+
+    /** 桶内样本数 */
+    private Integer sampleCount;
+
+    private BigDecimal cpuMin;
+    private BigDecimal cpuMax;
+    private BigDecimal cpuAvg;
+    private BigDecimal cpuP95;
+
+    private BigDecimal memoryMin;
+    private BigDecimal memoryMax;
+    private BigDecimal memoryAvg;
+    private BigDecimal memoryP95;
+
+    private BigDecimal gpuMin;
+    private BigDecimal gpuMax;
+    private BigDecimal gpuAvg;
+    private BigDecimal gpuP95;
+}
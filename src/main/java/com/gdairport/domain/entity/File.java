@@ -28,6 +28,10 @@ public class File {
     @Size(max = 255, message = "文件名长度不能超过255个字符")
     private String name;
 
+    /** 小写扩展名，数据库生成列，不参与写入 */
+    @TableField(insertStrategy = FieldStrategy.NEVER, updateStrategy = FieldStrategy.NEVER)
+    private String extension;
+
     /** 父目录ID（null 表示根目录） */
     private Long parentId;
 
@@ -52,4 +56,20 @@ public class File {
     /** 文件在服务器的存储位置（相对路径或唯一存储ID） */
     @Builder.Default
     private String storageId = UUID.randomUUID().toString();
+
+    /** 子树内所有文件的总大小（字节），仅文件夹有效；只通过增量 UPDATE 维护，updateById 不写入 */
+    @TableField(updateStrategy = FieldStrategy.NEVER)
+    private Long totalSize;
+
+    /** 子树内文件数（不含自身），仅文件夹有效 */
+    @TableField(updateStrategy = FieldStrategy.NEVER)
+    private Integer fileCount;
+
+    /** 子树内文件夹数（不含自身），仅文件夹有效 */
+    @TableField(updateStrategy = FieldStrategy.NEVER)
+    private Integer folderCount;
+
+    /** 乐观锁版本号，updateById 时自动校验并递增 */
+    @Version
+    private Integer version;
 }
@@ -0,0 +1,53 @@
+package com.gdairport.domain.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 文件变更日志，对应数据库表 file_changes
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@TableName("file_changes")
+public class FileChange {
+
+    /** 变更序号，单调递增，用作同步游标 */
+    @TableId(value = "seq", type = IdType.AUTO)
+    private Long seq;
+
+    /** 文件或文件夹ID */
+    private Long fileId;
+
+    /** 变更类型：CREATE / RENAME / MOVE / DELETE */
+    private String type;
+
+    /** 变更后的名称 */
+    private String name;
+
+    /** 变更后的父目录ID（删除时为原父目录） */
+    private Long parentId;
+
+    /** 重命名前的名称 */
+    private String oldName;
+
+    /** 移动前的父目录ID */
+    private Long oldParentId;
+
+    /** 是否为文件夹，删除文件夹时其子树一并删除，不再逐个记录 */
+    private Boolean folder;
+
+    /** 操作人 */
+    private Long userId;
+
+    /** 写入时间 */
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,50 @@
+package com.gdairport.domain.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 应用区域（多级），对应数据库表 regions
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@TableName("regions")
+public class Region {
+
+    /** 主键ID */
+    @TableId(value = "id", type = IdType.AUTO)
+    private Long id;
+
+    /** 区域编码 */
+    private String regionCode;
+
+    /** 区域名称 */
+    private String regionName;
+
+    /** 父区域ID */
+    private Long parentId;
+
+    /** 区域层级：1-省/大区，2-市，3-区县，4-站点 */
+    private Integer regionLevel;
+
+    /** 区域描述说明 */
+    private String description;
+
+    /** 更新用户 */
+    private String updatedBy;
+
+    /** 更新时间 */
+    private LocalDateTime updatedAt;
+
+    /** 创建时间 */
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,38 @@
+package com.gdairport.domain.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 存储配额，对应数据库表 storage_quotas
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@TableName("storage_quotas")
+public class StorageQuota {
+
+    /** 主键ID */
+    @TableId(value = "id", type = IdType.AUTO)
+    private Long id;
+
+    /** 配额范围：USER-用户，FOLDER-文件夹（含子树） */
+    private String scope;
+
+    /** 用户ID或文件夹ID */
+    private Long scopeId;
+
+    /** 配额（字节） */
+    private Long quotaBytes;
+
+    /** 创建时间 */
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,43 @@
+package com.gdairport.domain.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 设备应运行的一个算法及其发布版本
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AlgorithmAssignmentVo {
+
+    private Long algorithmId;
+
+    private String algorithmCode;
+
+    private String algorithmName;
+
+    private Long versionId;
+
+    private String versionName;
+
+    private Integer version;
+
+    /** 模型文件的对象存储Key */
+    private String modelStorageKey;
+
+    /** 模型文件大小（字节） */
+    private Long modelSize;
+
+    /** 模型文件 SHA-256，与本地已有模型一致时无需重新下载 */
+    private String modelSha256;
+
+    /**
+     * 首次发现该版本后等待多少秒再开始下载
+     * 按设备和版本散列到发布窗口内，避免全部设备同时下载
+     */
+    private Long downloadDelaySeconds;
+}
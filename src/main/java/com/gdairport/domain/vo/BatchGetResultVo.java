@@ -0,0 +1,24 @@
+package com.gdairport.domain.vo;
+
+import com.gdairport.domain.entity.File;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 批量查询中单个ID的结果
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchGetResultVo {
+
+    /** 请求的文件ID */
+    private Long id;
+
+    /** 文件或文件夹是否存在 */
+    private boolean found;
+
+    /** 存在时为文件信息 */
+    private File file;
+}
@@ -0,0 +1,34 @@
+package com.gdairport.domain.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 批量上传中单个文件的结果
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchUploadResultVo {
+
+    /** 上传的原始文件名 */
+    private String fileName;
+
+    /** 是否成功 */
+    private boolean success;
+
+    /** 成功时为新文件ID */
+    private Long id;
+
+    /** 失败原因 */
+    private String message;
+
+    public static BatchUploadResultVo success(String fileName, Long id) {
+        return new BatchUploadResultVo(fileName, true, id, null);
+    }
+
+    public static BatchUploadResultVo fail(String fileName, String message) {
+        return new BatchUploadResultVo(fileName, false, null, message);
+    }
+}
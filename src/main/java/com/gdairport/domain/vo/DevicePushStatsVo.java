@@ -0,0 +1,30 @@
+package com.gdairport.domain.vo;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class DevicePushStatsVo {
+
+    /** 本节点当前的推送连接数 */
+    private int connections;
+
+    /** 本节点持有连接的设备数 */
+    private int devices;
+
+    /** 连接数上限 */
+    private int maxConnections;
+
+    /** 发送队列中等待的任务数 */
+    private int pendingSends;
+
+    /** 累计推送成功的事件数（含心跳） */
+    private long delivered;
+
+    /** 因发送队列满被丢弃的事件数 */
+    private long dropped;
+
+    /** 因写入超时被结束的连接数 */
+    private long stalled;
+}
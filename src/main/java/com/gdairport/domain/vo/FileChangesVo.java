@@ -0,0 +1,21 @@
+package com.gdairport.domain.vo;
+
+import com.gdairport.domain.entity.FileChange;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class FileChangesVo {
+
+    /** 按序号升序的变更 */
+    private List<FileChange> changes;
+
+    /** 下次请求使用的游标（本页最后一条的序号，没有新变更时等于请求的游标） */
+    private Long cursor;
+
+    /** 是否还有更多已稳定的变更，为 true 时应立即继续拉取 */
+    private boolean hasMore;
+}
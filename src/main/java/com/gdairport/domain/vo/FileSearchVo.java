@@ -0,0 +1,18 @@
+package com.gdairport.domain.vo;
+
+import com.gdairport.domain.entity.File;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class FileSearchVo {
+
+    /** 本页结果，按 id 倒序（新上传的在前） */
+    private List<File> files;
+
+    /** 下一页的 cursor，null 表示没有更多结果 */
+    private Long nextCursor;
+}
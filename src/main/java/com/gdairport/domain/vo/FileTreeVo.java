@@ -0,0 +1,45 @@
+package com.gdairport.domain.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 文件树节点
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FileTreeVo {
+
+    /** 文件或文件夹ID，根目录为 null */
+    private Long id;
+
+    private String name;
+
+    private Boolean folder;
+
+    private Long size;
+
+    /** 子树内文件总大小，仅文件夹有效 */
+    private Long totalSize;
+
+    /** 子树内文件数，仅文件夹有效 */
+    private Integer fileCount;
+
+    /** 子树内文件夹数，仅文件夹有效 */
+    private Integer folderCount;
+
+    private LocalDateTime updated;
+
+    /** 子节点（文件夹在前、按名称排序）；null 表示超出请求深度未展开 */
+    private List<FileTreeVo> children;
+
+    /** 子节点未全部返回（超过每个文件夹或每层的 limit），其余需通过 /file/list 获取 */
+    private boolean truncated;
+}
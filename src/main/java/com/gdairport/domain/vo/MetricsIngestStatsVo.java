@@ -0,0 +1,33 @@
+package com.gdairport.domain.vo;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class MetricsIngestStatsVo {
+
+    /** 缓冲区中待写入的条数 */
+    private int buffered;
+
+    /** 缓冲区容量 */
+    private int capacity;
+
+    /** 累计接收条数 */
+    private long acceptedRows;
+
+    /** 因缓冲区满被拒绝的条数 */
+    private long rejectedRows;
+
+    /** 累计写入数据库条数 */
+    private long writtenRows;
+
+    /** 写入失败被丢弃的条数 */
+    private long failedRows;
+
+    /** 最近一秒的写入速率（行/秒） */
+    private double writeRate;
+
+    /** 汇总桶已关闭后才到达、未计入汇总的样本数 */
+    private long rollupLateSamples;
+}
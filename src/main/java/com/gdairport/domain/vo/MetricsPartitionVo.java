@@ -0,0 +1,30 @@
+package com.gdairport.domain.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * device_metrics 的一个按天分区
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MetricsPartitionVo {
+
+    /** 分区名（pYYYYMMDD） */
+    private String partitionName;
+
+    /** 分区保存的日期 */
+    private LocalDate day;
+
+    /** 分区上界（不含），即 day 的下一天 */
+    private LocalDate upperBound;
+
+    /** 估算行数（来自 information_schema，非精确值） */
+    private Long tableRows;
+}
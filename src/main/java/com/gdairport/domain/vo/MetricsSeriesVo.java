@@ -0,0 +1,24 @@
+package com.gdairport.domain.vo;
+
+import com.gdairport.domain.entity.DeviceMetricRollup;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 指标趋势曲线
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MetricsSeriesVo {
+
+    /** 实际使用的汇总粒度（1m / 5m / 1h） */
+    private String resolution;
+
+    private List<DeviceMetricRollup> points;
+}
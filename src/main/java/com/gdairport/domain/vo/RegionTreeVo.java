@@ -0,0 +1,31 @@
+package com.gdairport.domain.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 区域树节点
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RegionTreeVo {
+
+    private Long id;
+
+    private String regionCode;
+
+    private String regionName;
+
+    private Integer regionLevel;
+
+    /** 本区域及所有下级区域的设备数（去重） */
+    private Integer deviceCount;
+
+    private List<RegionTreeVo> children;
+}
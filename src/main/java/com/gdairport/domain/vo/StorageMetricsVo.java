@@ -0,0 +1,30 @@
+package com.gdairport.domain.vo;
+
+import com.gdairport.storage.StorageClientMetrics;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+@Builder
+public class StorageMetricsVo {
+
+    /** 已发出但尚未收到响应头的请求数 */
+    private int inFlight;
+
+    /** Dispatcher 中正在执行的请求数 */
+    private int runningCalls;
+
+    /** Dispatcher 中排队等待的请求数 */
+    private int queuedCalls;
+
+    /** 连接池中的连接总数 */
+    private int connections;
+
+    /** 连接池中的空闲连接数 */
+    private int idleConnections;
+
+    /** 按 HTTP 方法统计的请求指标 */
+    private Map<String, StorageClientMetrics.OperationStats> operations;
+}
@@ -0,0 +1,24 @@
+package com.gdairport.domain.vo;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class StorageQuotaVo {
+
+    /** 配额范围：USER / FOLDER */
+    private String scope;
+
+    /** 用户ID或文件夹ID */
+    private Long scopeId;
+
+    /** 配额（字节），null 表示不限制 */
+    private Long quotaBytes;
+
+    /** 已使用（字节） */
+    private long usedBytes;
+
+    /** 正在上传、已预留但尚未确认的空间（字节） */
+    private long reservedBytes;
+}
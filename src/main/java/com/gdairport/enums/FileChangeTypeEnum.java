@@ -0,0 +1,11 @@
+package com.gdairport.enums;
+
+/**
+ * 文件树变更类型
+ */
+public enum FileChangeTypeEnum {
+    CREATE,
+    RENAME,
+    MOVE,
+    DELETE
+}
@@ -0,0 +1,52 @@
+package com.gdairport.enums;
+
+import lombok.Getter;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * 设备指标汇总粒度，按从细到粗排列
+ */
+@Getter
+public enum RollupResolutionEnum {
+    MINUTE("1m", Duration.ofMinutes(1), "device_metrics_1m", "device_metrics_1m_hist"),
+    FIVE_MINUTES("5m", Duration.ofMinutes(5), "device_metrics_5m", "device_metrics_5m_hist"),
+    HOUR("1h", Duration.ofHours(1), "device_metrics_1h", "device_metrics_1h_hist");
+
+    private final String code;
+    private final Duration bucket;
+    private final String tableName;
+    // 分位数直方图表
+    private final String histTableName;
+
+    RollupResolutionEnum(String code, Duration bucket, String tableName, String histTableName) {
+        this.code = code;
+        this.bucket = bucket;
+        this.tableName = tableName;
+        this.histTableName = histTableName;
+    }
+
+    /**
+     * 时间所在桶的起始时间
+     */
+    public LocalDateTime bucketStart(LocalDateTime time) {
+        long epochSecond = time.toEpochSecond(ZoneOffset.UTC);
+        long bucketSeconds = bucket.getSeconds();
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(epochSecond, bucketSeconds) * bucketSeconds, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * 选择点数不超过 maxPoints 的最细粒度，都超过时返回最粗粒度
+     */
+    public static RollupResolutionEnum forRange(LocalDateTime from, LocalDateTime to, int maxPoints) {
+        long rangeSeconds = Duration.between(from, to).getSeconds();
+        for (RollupResolutionEnum resolution : values()) {
+            if (rangeSeconds / resolution.bucket.getSeconds() <= maxPoints) {
+                return resolution;
+            }
+        }
+        return HOUR;
+    }
+}
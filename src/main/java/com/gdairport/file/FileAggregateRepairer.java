@@ -0,0 +1,155 @@
+package com.gdairport.file;
+
+import com.gdairport.domain.entity.File;
+import com.gdairport.mapper.FileMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 文件夹子树汇总值（total_size / file_count / folder_count）的修复任务
+ * <p>
+ * 汇总值平时由上传、删除、移动时沿祖先链增量累加维护；递归删除中途失败、历史数据等情况会产生偏差，
+ * 由本任务定时全量重算：一条语句读取全表结构和当前汇总值（一致性快照），在内存中自底向上计算，
+ * 只对不一致的文件夹做条件更新（汇总值仍等于快照中的值才写入），不会覆盖快照之后并发累加的变化量。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FileAggregateRepairer {
+
+    private static final String LOCK_KEY = "lock:file:aggregate-repair";
+
+    private final FileMapper fileMapper;
+
+    private final RedissonClient redissonClient;
+
+    @Value("${file.aggregate.repair-enabled}")
+    private boolean enabled;
+
+    /**
+     * 启动后执行一次，补齐新增字段前已有的数据
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        repair();
+    }
+
+    @Scheduled(cron = "${file.aggregate.repair-cron}")
+    public void repair() {
+        if (!enabled) {
+            return;
+        }
+        RLock lock = redissonClient.getLock(LOCK_KEY);
+        if (!lock.tryLock()) {
+            log.info("其他实例正在修复文件夹汇总值, 跳过本次执行");
+            return;
+        }
+        try {
+            long start = System.nanoTime();
+            List<File> snapshot = fileMapper.listAggregateSnapshot();
+            Map<Long, File> computed = compute(snapshot);
+            int drifted = 0;
+            int repaired = 0;
+            for (File stored : snapshot) {
+                File actual = computed.get(stored.getId());
+                if (actual == null || sameAggregates(stored, actual)) {
+                    continue;
+                }
+                drifted++;
+                repaired += fileMapper.repairAggregates(stored.getId(), stored, actual);
+            }
+            log.info("文件夹汇总值修复完成, 节点: {}, 不一致: {}, 已修复: {}, 耗时: {} ms", snapshot.size(), drifted,
+                    repaired, (System.nanoTime() - start) / 1_000_000);
+        } catch (Exception e) {
+            log.error("修复文件夹汇总值失败", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 自底向上计算每个文件夹的子树汇总值（迭代后序遍历，避免深层目录栈溢出）
+     */
+    private Map<Long, File> compute(List<File> snapshot) {
+        Map<Long, File> byId = new HashMap<>(snapshot.size() * 2);
+        for (File file : snapshot) {
+            byId.put(file.getId(), file);
+        }
+        Map<Long, List<File>> children = new HashMap<>();
+        List<File> roots = new ArrayList<>();
+        for (File file : snapshot) {
+            if (file.getParentId() == null || !byId.containsKey(file.getParentId())) {
+                roots.add(file);
+            } else {
+                children.computeIfAbsent(file.getParentId(), k -> new ArrayList<>()).add(file);
+            }
+        }
+
+        Map<Long, File> computed = new HashMap<>();
+        // 栈中存放 {节点, 是否已展开}
+        Deque<Object[]> stack = new ArrayDeque<>();
+        roots.forEach(root -> stack.push(new Object[]{root, Boolean.FALSE}));
+        while (!stack.isEmpty()) {
+            Object[] frame = stack.pop();
+            File file = (File) frame[0];
+            if (!Boolean.TRUE.equals(file.getFolder())) {
+                continue;
+            }
+            List<File> kids = children.getOrDefault(file.getId(), List.of());
+            if (!(Boolean) frame[1]) {
+                if (computed.containsKey(file.getId())) {
+                    // parent_id 形成环时跳过重复访问
+                    continue;
+                }
+                computed.put(file.getId(), null);
+                stack.push(new Object[]{file, Boolean.TRUE});
+                kids.forEach(kid -> stack.push(new Object[]{kid, Boolean.FALSE}));
+                continue;
+            }
+            long totalSize = 0;
+            int fileCount = 0;
+            int folderCount = 0;
+            for (File kid : kids) {
+                if (Boolean.TRUE.equals(kid.getFolder())) {
+                    File sub = computed.get(kid.getId());
+                    if (sub != null) {
+                        totalSize += sub.getTotalSize();
+                        fileCount += sub.getFileCount();
+                        folderCount += sub.getFolderCount();
+                    }
+                    folderCount++;
+                } else {
+                    totalSize += kid.getSize() == null ? 0 : kid.getSize();
+                    fileCount++;
+                }
+            }
+            computed.put(file.getId(), File.builder()
+                    .totalSize(totalSize)
+                    .fileCount(fileCount)
+                    .folderCount(folderCount)
+                    .build());
+        }
+        return computed;
+    }
+
+    private static boolean sameAggregates(File stored, File actual) {
+        return Objects.equals(stored.getTotalSize(), actual.getTotalSize())
+                && Objects.equals(stored.getFileCount(), actual.getFileCount())
+                && Objects.equals(stored.getFolderCount(), actual.getFolderCount());
+    }
+}
@@ -0,0 +1,65 @@
+package com.gdairport.file;
+
+import com.gdairport.mapper.FileChangeMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * 清理超过保留期的变更日志，分批删除避免长事务；清理水位（已清理的最大序号）持久化在 file_change_watermark 中，
+ * 游标小于水位的客户端会收到 410 并全量同步
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FileChangeCompactor {
+
+    private static final String LOCK_KEY = "lock:file:changes-compact";
+
+    // 每批删除的记录数
+    private static final int DELETE_BATCH = 5000;
+
+    private final FileChangeMapper fileChangeMapper;
+
+    private final RedissonClient redissonClient;
+
+    @Value("${file.changes.retention}")
+    private Duration retention;
+
+    @Scheduled(cron = "${file.changes.compact-cron}")
+    public void compact() {
+        RLock lock = redissonClient.getLock(LOCK_KEY);
+        if (!lock.tryLock()) {
+            log.info("其他实例正在清理文件变更日志, 跳过本次执行");
+            return;
+        }
+        try {
+            long start = System.nanoTime();
+            Long upTo = fileChangeMapper.selectMaxSeqBefore(LocalDateTime.now().minus(retention));
+            if (upTo == null) {
+                return;
+            }
+            // 先推进水位再删除：删除过程中到达的请求已按水位返回 410，不会读到被删了一半的日志
+            fileChangeMapper.advanceCompactedSeq(upTo);
+            long deleted = 0;
+            int batch;
+            do {
+                batch = fileChangeMapper.deleteUpTo(upTo, DELETE_BATCH);
+                deleted += batch;
+            } while (batch == DELETE_BATCH);
+            log.info("文件变更日志清理完成, 删除: {}, 保留序号 > {}, 耗时: {} ms", deleted, upTo,
+                    (System.nanoTime() - start) / 1_000_000);
+        } catch (Exception e) {
+            log.error("清理文件变更日志失败", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.gdairport.file;
+
+import com.gdairport.domain.entity.File;
+import com.gdairport.enums.FileChangeTypeEnum;
+
+/**
+ * 文件树变更事件，由 CloudFileServiceImpl 的 *WithTransaction 方法在事务内发布；
+ * 监听方通过 @TransactionalEventListener 按需在提交前（同一事务）或提交后处理，回滚的变更不会被处理
+ *
+ * @param parentId 变更后的父目录（删除时为原父目录）
+ * @param oldName 重命名前的名称，其他类型为 null
+ * @param oldParentId 移动前的父目录，其他类型为 null
+ */
+public record FileChangeEvent(FileChangeTypeEnum type, Long fileId, String name, Long parentId,
+                              String oldName, Long oldParentId, boolean folder, Long userId) {
+
+    public static FileChangeEvent created(File file, Long userId) {
+        return new FileChangeEvent(FileChangeTypeEnum.CREATE, file.getId(), file.getName(), file.getParentId(),
+                null, null, isFolder(file), userId);
+    }
+
+    public static FileChangeEvent renamed(File file, String oldName, Long userId) {
+        return new FileChangeEvent(FileChangeTypeEnum.RENAME, file.getId(), file.getName(), file.getParentId(),
+                oldName, null, isFolder(file), userId);
+    }
+
+    public static FileChangeEvent moved(File file, Long newParentId, Long oldParentId, Long userId) {
+        return new FileChangeEvent(FileChangeTypeEnum.MOVE, file.getId(), file.getName(), newParentId,
+                null, oldParentId, isFolder(file), userId);
+    }
+
+    public static FileChangeEvent deleted(File file, Long userId) {
+        return new FileChangeEvent(FileChangeTypeEnum.DELETE, file.getId(), file.getName(), file.getParentId(),
+                null, null, isFolder(file), userId);
+    }
+
+    private static boolean isFolder(File file) {
+        return Boolean.TRUE.equals(file.getFolder());
+    }
+}
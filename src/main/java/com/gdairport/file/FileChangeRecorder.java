@@ -0,0 +1,63 @@
+package com.gdairport.file;
+
+import com.gdairport.domain.entity.FileChange;
+import com.gdairport.mapper.FileChangeMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 把文件树变更写入 file_changes
+ * <p>
+ * 同一事务内的变更先在内存中收集，提交前（beforeCommit，仍在同一事务中）一条多行 INSERT 写入，
+ * 事务回滚时变更日志一起回滚；序号分配到提交之间只隔一次提交，配合读取端的稳定窗口保证游标不会跳过未提交的变更。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FileChangeRecorder {
+
+    private final FileChangeMapper fileChangeMapper;
+
+    @EventListener
+    public void onFileChanged(FileChangeEvent event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            log.warn("文件变更不在事务中发布, 未写入变更日志: {}", event);
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        List<FileChange> pending = (List<FileChange>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            List<FileChange> batch = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, batch);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    fileChangeMapper.insertBatch(batch);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(FileChangeRecorder.this);
+                }
+            });
+            pending = batch;
+        }
+        pending.add(FileChange.builder()
+                .fileId(event.fileId())
+                .type(event.type().name())
+                .name(event.name())
+                .parentId(event.parentId())
+                .oldName(event.oldName())
+                .oldParentId(event.oldParentId())
+                .folder(event.folder())
+                .userId(event.userId())
+                .build());
+    }
+}
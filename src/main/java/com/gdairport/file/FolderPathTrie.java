@@ -0,0 +1,268 @@
+package com.gdairport.file;
+
+import com.gdairport.domain.entity.File;
+import com.gdairport.exception.BadRequestException;
+import com.gdairport.mapper.FileMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 文件夹路径 -> ID 的内存前缀树
+ * <p>
+ * 只保存文件夹（名称、父节点、子节点），解析 /2026/10/T3/gate-12 这样的路径只需逐级查 Map，不访问数据库。
+ * 启动时全量加载；本节点的新建、重命名、移动、删除在事务提交后直接更新，同时通过 Redis 频道广播文件夹ID，
+ * 其他节点收到后从数据库重新读取该文件夹；另有定时全量重建兜底。
+ * 读取不加锁，写入串行；树可能短暂落后于数据库（变更广播丢失、多个节点的更新乱序），
+ * 命中后用一条主键查询读取整条祖先链校验，只返回数据库中确实存在的前缀；调用方未完全命中时应回退到数据库逐级查询。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FolderPathTrie implements MessageListener {
+
+    private static final String CHANNEL = "file:path:changed";
+
+    private static final String SEPARATOR = "/";
+
+    private final FileMapper fileMapper;
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+
+    // 虚拟根节点，子节点为根目录下的文件夹
+    private volatile Node root = new Node(null, "", null);
+
+    private volatile Map<Long, Node> nodes = new ConcurrentHashMap<>();
+
+    /**
+     * 路径的解析结果
+     * @param folderId 最深一级已存在的文件夹，null 表示根目录
+     * @param matched 已匹配的段数，等于总段数时表示整个路径都存在
+     */
+    public record Resolution(Long folderId, int matched) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuildAll();
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    /**
+     * 把路径拆分为文件夹 / 文件名列表，忽略多余的分隔符；空路径表示根目录
+     */
+    public static List<String> parse(String path) {
+        List<String> segments = new ArrayList<>();
+        if (!StringUtils.hasText(path)) {
+            return segments;
+        }
+        for (String segment : path.split(SEPARATOR)) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            if (".".equals(segment) || "..".equals(segment)) {
+                throw new BadRequestException("路径中不能包含 . 或 ..: " + path);
+            }
+            segments.add(segment);
+        }
+        return segments;
+    }
+
+    /**
+     * 沿路径逐级匹配文件夹，返回最深的已匹配位置；树中命中的部分经数据库校验，过期时截断到仍然有效的前缀并修正树
+     */
+    public Resolution resolve(List<String> segments) {
+        Node node = root;
+        int matched = 0;
+        for (String segment : segments) {
+            Node child = node.children.get(segment);
+            if (child == null) {
+                break;
+            }
+            node = child;
+            matched++;
+        }
+        if (matched == 0) {
+            return new Resolution(null, 0);
+        }
+        return validate(segments, node.id, matched);
+    }
+
+    /**
+     * 读取命中文件夹在数据库中的祖先链，与路径逐段比较（与 utf8mb4_unicode_ci 一致，忽略大小写）；
+     * 链本身就是数据库中的真实路径，所以与路径相同的最长前缀一定存在
+     */
+    private Resolution validate(List<String> segments, Long folderId, int matched) {
+        List<File> chain = fileMapper.listAncestorPath(folderId);
+        int valid = 0;
+        if (!chain.isEmpty() && chain.get(0).getParentId() == null) {
+            while (valid < matched && valid < chain.size() && chain.get(valid).getName().equalsIgnoreCase(segments.get(valid))) {
+                valid++;
+            }
+        }
+        if (valid == matched && chain.size() == matched) {
+            return new Resolution(folderId, matched);
+        }
+        log.debug("路径树命中已过期, 按数据库修正, id: {}, 命中段数: {}, 有效段数: {}", folderId, matched, valid);
+        if (chain.isEmpty()) {
+            remove(folderId);
+        } else {
+            chain.forEach(folder -> upsert(folder.getId(), folder.getName(), folder.getParentId()));
+        }
+        return valid == 0 ? new Resolution(null, 0) : new Resolution(chain.get(valid - 1).getId(), valid);
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    @Scheduled(fixedDelayString = "${file.path.rebuild-interval}", initialDelayString = "${file.path.rebuild-interval}")
+    public synchronized void rebuildAll() {
+        long start = System.nanoTime();
+        List<File> folders;
+        try {
+            folders = fileMapper.listAllFolders();
+        } catch (Exception e) {
+            log.error("加载文件夹路径失败, 继续使用当前路径树", e);
+            return;
+        }
+        Node newRoot = new Node(null, "", null);
+        Map<Long, Node> newNodes = new ConcurrentHashMap<>(folders.size() * 2);
+        for (File folder : folders) {
+            newNodes.put(folder.getId(), new Node(folder.getId(), folder.getName(), null));
+        }
+        int orphans = 0;
+        for (File folder : folders) {
+            Node node = newNodes.get(folder.getId());
+            Node parent = folder.getParentId() == null ? newRoot : newNodes.get(folder.getParentId());
+            if (parent == null) {
+                orphans++;
+                newNodes.remove(folder.getId());
+                continue;
+            }
+            node.parent = parent;
+            parent.children.put(node.name, node);
+        }
+        root = newRoot;
+        nodes = newNodes;
+        log.info("文件夹路径树已重建, 文件夹: {}, 孤立节点: {}, 耗时: {} ms", newNodes.size(), orphans,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * 本节点的变更在事务提交后直接更新，再通知其他节点
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onFileChanged(FileChangeEvent event) {
+        if (!event.folder()) {
+            return;
+        }
+        switch (event.type()) {
+            case DELETE -> remove(event.fileId());
+            case CREATE, RENAME, MOVE -> upsert(event.fileId(), event.name(), event.parentId());
+        }
+        try {
+            stringRedisTemplate.convertAndSend(CHANNEL, String.valueOf(event.fileId()));
+        } catch (Exception e) {
+            log.warn("广播文件夹路径变更失败, 其他节点将在下次全量重建时更新: {}", event.fileId(), e);
+        }
+    }
+
+    /**
+     * 其他节点（也包括本节点自己）广播的变更，从数据库读取最新状态，重复处理无副作用
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        try {
+            Long id = Long.valueOf(body);
+            File folder = fileMapper.selectById(id);
+            if (folder == null || !Boolean.TRUE.equals(folder.getFolder())) {
+                remove(id);
+            } else {
+                upsert(folder.getId(), folder.getName(), folder.getParentId());
+            }
+        } catch (Exception e) {
+            log.error("处理文件夹路径变更消息失败: {}", body, e);
+        }
+    }
+
+    private synchronized void upsert(Long id, String name, Long parentId) {
+        Node parent = parentId == null ? root : nodes.get(parentId);
+        if (parent == null) {
+            // 父目录的变更还未到达，解析时会回退到数据库，全量重建后补齐
+            log.debug("文件夹的父目录不在路径树中, id: {}, parentId: {}", id, parentId);
+            remove(id);
+            return;
+        }
+        Node node = nodes.get(id);
+        if (node == null) {
+            node = new Node(id, name, parent);
+            nodes.put(id, node);
+            parent.children.put(name, node);
+            return;
+        }
+        if (node.parent != parent || !node.name.equals(name)) {
+            node.parent.children.remove(node.name, node);
+            node.name = name;
+            node.parent = parent;
+            parent.children.put(name, node);
+        }
+    }
+
+    /**
+     * 删除文件夹及其整个子树
+     */
+    private synchronized void remove(Long id) {
+        Node node = nodes.get(id);
+        if (node == null) {
+            return;
+        }
+        node.parent.children.remove(node.name, node);
+        Deque<Node> stack = new ArrayDeque<>();
+        stack.push(node);
+        while (!stack.isEmpty()) {
+            Node current = stack.pop();
+            nodes.remove(current.id, current);
+            current.children.values().forEach(stack::push);
+        }
+    }
+
+    private static final class Node {
+
+        private final Long id;
+
+        private volatile String name;
+
+        private volatile Node parent;
+
+        private final Map<String, Node> children = new ConcurrentHashMap<>();
+
+        private Node(Long id, String name, Node parent) {
+            this.id = id;
+            this.name = name;
+            this.parent = parent;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.gdairport.file;
+
+import com.gdairport.service.StorageQuotaService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 存储配额校正任务：启动时和定时以数据库为准校正 Redis 中的已使用量，
+ * 修正结算失败、移动文件（移动不经过配额计数）等造成的偏差
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StorageQuotaReconciler {
+
+    private static final String LOCK_KEY = "lock:file:quota-reconcile";
+
+    private final StorageQuotaService storageQuotaService;
+
+    private final RedissonClient redissonClient;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        reconcile();
+    }
+
+    @Scheduled(cron = "${file.quota.reconcile-cron}")
+    public void reconcile() {
+        RLock lock = redissonClient.getLock(LOCK_KEY);
+        if (!lock.tryLock()) {
+            log.info("其他实例正在校正存储配额, 跳过本次执行");
+            return;
+        }
+        try {
+            storageQuotaService.reconcile();
+        } catch (Exception e) {
+            log.error("校正存储配额失败", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
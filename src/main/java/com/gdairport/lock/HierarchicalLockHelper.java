@@ -8,8 +8,11 @@ import org.redisson.api.RReadWriteLock;
 import org.redisson.api.RedissonClient;
 import org.springframework.stereotype.Component;
 
+import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @Component
 @RequiredArgsConstructor
@@ -49,6 +52,30 @@ public class HierarchicalLockHelper {
                 .toList(); // 返回不可变 List
     }
 
+    /**
+     * 按文件ID获取锁（调用方已查出需要加锁的节点），用于批量操作
+     */
+    public List<RReadWriteLock> getReadWriteLocks(Collection<Long> fileIds) {
+        if (fileIds == null || fileIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return fileIds.stream()
+                .map(id -> redissonClient.getReadWriteLock("rwlock:file:" + id))
+                .toList();
+    }
+
+    /**
+     * 合并多组锁并按锁名去重，避免同一把锁在 MultiLock 中出现多次
+     */
+    @SafeVarargs
+    public final List<RReadWriteLock> distinct(List<RReadWriteLock>... groups) {
+        Map<String, RReadWriteLock> merged = new LinkedHashMap<>();
+        for (List<RReadWriteLock> group : groups) {
+            group.forEach(lock -> merged.putIfAbsent(lock.readLock().getName(), lock));
+        }
+        return List.copyOf(merged.values());
+    }
+
     /**
      * 锁定所有读锁 (用于下载等共享操作)
      * @param rwLocks 要锁定的读写锁列表
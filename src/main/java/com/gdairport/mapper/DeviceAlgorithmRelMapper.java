@@ -0,0 +1,9 @@
+package com.gdairport.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.gdairport.domain.entity.DeviceAlgorithmRel;
+import org.apache.ibatis.annotations.Mapper;
+
+@Mapper
+public interface DeviceAlgorithmRelMapper extends BaseMapper<DeviceAlgorithmRel> {
+}
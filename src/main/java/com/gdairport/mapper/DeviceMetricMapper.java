@@ -0,0 +1,43 @@
+package com.gdairport.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.gdairport.domain.entity.DeviceMetric;
+import com.gdairport.domain.vo.MetricsPartitionVo;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Mapper
+public interface DeviceMetricMapper extends BaseMapper<DeviceMetric> {
+
+    /**
+     * 多行 INSERT，一条语句写入整批数据
+     */
+    int insertBatch(@Param("list") List<DeviceMetric> list);
+
+    /**
+     * 按设备和时间范围查询，走 (device_id, created_at) 索引并按 created_at 裁剪分区
+     */
+    List<DeviceMetric> listByDeviceAndRange(@Param("deviceId") Long deviceId,
+                                            @Param("from") LocalDateTime from,
+                                            @Param("to") LocalDateTime to,
+                                            @Param("limit") int limit);
+
+    /**
+     * 查询 device_metrics 的全部分区（含 pmax）
+     * 只返回分区名和估算行数，日期由调用方从分区名解析
+     */
+    List<MetricsPartitionVo> listPartitions();
+
+    /**
+     * 把 pmax 拆分为若干按天分区 + 新的 pmax
+     */
+    void addPartitions(@Param("partitions") List<MetricsPartitionVo> partitions);
+
+    /**
+     * 删除分区，只修改数据字典，与分区中的行数无关
+     */
+    void dropPartitions(@Param("names") List<String> names);
+}
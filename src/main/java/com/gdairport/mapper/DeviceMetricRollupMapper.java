@@ -0,0 +1,52 @@
+package com.gdairport.mapper;
+
+import com.gdairport.domain.dto.DeviceMetricHistogramDelta;
+import com.gdairport.domain.dto.DeviceMetricRollupDelta;
+import com.gdairport.domain.entity.DeviceMetricRollup;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 汇总表按粒度分为三张结构相同的表，表名由 RollupResolutionEnum 提供
+ */
+@Mapper
+public interface DeviceMetricRollupMapper {
+
+    /**
+     * 写入桶的增量：样本数、和相加，最小/最大值取极值
+     */
+    int upsertBatch(@Param("table") String table, @Param("list") List<DeviceMetricRollupDelta> list);
+
+    /**
+     * 直方图计数相加
+     */
+    int addHistogramBatch(@Param("table") String table, @Param("list") List<DeviceMetricHistogramDelta> list);
+
+    /**
+     * 单个设备的序列，平均值由和 / 样本数计算，P95 由直方图计算
+     */
+    List<DeviceMetricRollup> listDeviceSeries(@Param("table") String table,
+                                              @Param("histTable") String histTable,
+                                              @Param("deviceId") Long deviceId,
+                                              @Param("from") LocalDateTime from,
+                                              @Param("to") LocalDateTime to);
+
+    /**
+     * 一组设备按桶求样本数、和，取最小/最大值，结果可以与其他组继续合并
+     */
+    List<DeviceMetricRollupDelta> sumSeries(@Param("table") String table,
+                                            @Param("deviceIds") long[] deviceIds,
+                                            @Param("from") LocalDateTime from,
+                                            @Param("to") LocalDateTime to);
+
+    /**
+     * 一组设备按桶、指标、区间求直方图计数之和
+     */
+    List<DeviceMetricHistogramDelta> sumHistogram(@Param("histTable") String histTable,
+                                                  @Param("deviceIds") long[] deviceIds,
+                                                  @Param("from") LocalDateTime from,
+                                                  @Param("to") LocalDateTime to);
+}
@@ -0,0 +1,48 @@
+package com.gdairport.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.gdairport.domain.entity.FileChange;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Mapper
+public interface FileChangeMapper extends BaseMapper<FileChange> {
+
+    int insertBatch(@Param("list") List<FileChange> list);
+
+    /**
+     * 序号大于 since 的已稳定变更：只返回最早一条未稳定（写入时间在 settleMillis 之内）变更之前的记录，
+     * 序号较小但尚未提交的事务不会被跳过
+     */
+    List<FileChange> listSince(@Param("since") long since,
+                               @Param("settleMillis") long settleMillis,
+                               @Param("limit") int limit);
+
+    /**
+     * 最新的已稳定序号，没有变更时返回 0
+     */
+    long selectSettledHead(@Param("settleMillis") long settleMillis);
+
+    /**
+     * 已清理的最大序号（清理水位），从未清理过时返回 0
+     */
+    long selectCompactedSeq();
+
+    /**
+     * 把清理水位推进到 upTo，不会后退
+     */
+    int advanceCompactedSeq(@Param("upTo") long upTo);
+
+    /**
+     * 写入时间早于 before 的最大序号，没有时返回 null
+     */
+    Long selectMaxSeqBefore(@Param("before") LocalDateTime before);
+
+    /**
+     * 删除序号不超过 upTo 的最多 limit 条记录
+     */
+    int deleteUpTo(@Param("upTo") long upTo, @Param("limit") int limit);
+}
@@ -8,6 +8,7 @@ import org.apache.ibatis.annotations.CacheNamespace;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 @Mapper
@@ -20,4 +21,87 @@ public interface FileMapper extends BaseMapper<File> {
     List<File> listAllAncestors(@Param("id") Long id);
 
     List<File> listAllDescendants(@Param("id") Long id);
+
+    /**
+     * 子树内所有节点的完整记录（包含自身）
+     */
+    List<File> listDescendantFiles(@Param("id") Long id);
+
+    /**
+     * 多个节点及其所有子孙（去重），用于批量操作一次性加锁
+     */
+    List<File> listAllDescendantsOfAll(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 绕过二级缓存按主键读取完整记录（含版本号），乐观重试时必须读到数据库中的最新版本
+     */
+    File selectByIdUncached(@Param("id") Long id);
+
+    /**
+     * 给指定行加共享锁（FOR SHARE）直到事务结束，返回 id 和 parent_id
+     */
+    List<File> lockForShare(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 加排他锁读取节点的父目录和子树汇总值（FOR UPDATE）
+     */
+    List<File> selectAggregatesForUpdate(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 按 id 升序逐行加排他锁（FOR UPDATE），返回 id 和 parent_id；所有累加汇总值的事务都按这个顺序加锁
+     */
+    List<File> lockAggregatesInOrder(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 按行累加汇总值，deltas 中每项的 totalSize / fileCount / folderCount 是该行的变化量
+     */
+    int addAggregates(@Param("deltas") Collection<File> deltas);
+
+    /**
+     * 全表的结构和汇总值（单条语句，一致性快照），用于修复任务
+     */
+    List<File> listAggregateSnapshot();
+
+    /**
+     * 汇总值仍等于 expected 时才写入 actual，避免覆盖快照之后并发累加的变化量
+     */
+    int repairAggregates(@Param("id") Long id,
+                         @Param("expected") File expected,
+                         @Param("actual") File actual);
+
+    /**
+     * 每个创建人的文件大小之和（createdBy + size），userIds 为 null 时统计所有用户
+     */
+    List<File> sumFileSizeByCreator(@Param("userIds") Collection<Long> userIds);
+
+    /**
+     * 按文件名 / 扩展名检索，按 id 倒序返回 id 小于 cursor 的前 limit 条
+     * @param pattern LIKE 模式，为空时不按名称过滤
+     * @param fulltext 全文检索短语（BOOLEAN MODE），不为空时先用 ngram 索引缩小范围
+     * @param folderId 不为空时只在该文件夹子树内检索
+     */
+    List<File> searchByName(@Param("pattern") String pattern,
+                            @Param("fulltext") String fulltext,
+                            @Param("extension") String extension,
+                            @Param("folderId") Long folderId,
+                            @Param("cursor") Long cursor,
+                            @Param("limit") int limit);
+
+    /**
+     * 所有文件夹的 id、名称和父目录，用于构建路径树
+     */
+    List<File> listAllFolders();
+
+    /**
+     * 从根目录到 id 的整条祖先链（含自身）的 id、名称和父目录，按从根到叶的顺序，不走二级缓存；用于校验路径树的命中
+     */
+    List<File> listAncestorPath(@Param("id") Long id);
+
+    /**
+     * 一组父目录（0 表示根目录）的子节点，每个父目录最多 fanout 个，合计最多 total 个；
+     * 按父目录在参数中的顺序、组内文件夹在前按名称排序
+     */
+    List<File> listChildrenCapped(@Param("parentIds") List<Long> parentIds,
+                                  @Param("fanout") int fanout,
+                                  @Param("total") int total);
 }
@@ -0,0 +1,260 @@
+package com.gdairport.metrics;
+
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import com.gdairport.domain.entity.Device;
+import com.gdairport.domain.entity.DeviceMetric;
+import com.gdairport.mapper.DeviceMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 所有边缘设备的最新状态（最新一条指标 + 设备状态/位置）
+ * <p>
+ * 每批指标写库成功后更新内存中的 deviceId -> {@link DeviceState}，看板查询“所有设备当前状态”时直接读内存，
+ * 不再对 device_metrics 做分组取最新。变化的设备定时批量写入 Redis Hash，其他节点定时从 Redis 合并，
+ * 以采集时间较新的为准。每次写入递增一个序号，并把写入的设备以该序号记入变更有序集合，
+ * 各节点只读取序号大于上次合并位置的设备，不再每次读取整个 Hash。设备基本信息（状态、位置）从 devices 表定时加载。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DeviceLatestStateStore implements DeviceMetricsWriteListener {
+
+    private static final String REDIS_KEY = "device:latest-state";
+
+    private static final String SEQ_KEY = "device:latest-state:seq";
+
+    // member 为设备ID，score 为最近一次写入时的序号，大小不超过设备总数
+    private static final String CHANGES_KEY = "device:latest-state:changes";
+
+    /**
+     * 只在采集时间比 Redis 中的更新时才覆盖，避免多个节点互相覆盖为旧值；有写入时递增序号并记入变更集合
+     * ARGV 按 (deviceId, collectedAt, value) 三个一组
+     */
+    private static final RedisScript<Long> PUT_IF_NEWER_SCRIPT = new DefaultRedisScript<>("""
+            local updated = {}
+            for i = 1, #ARGV, 3 do
+                local current = redis.call('HGET', KEYS[1], ARGV[i])
+                local currentTime = current and tonumber(string.match(current, '^[^|]*|[^|]*|[^|]*|[^|]*|(%d+)'))
+                if not currentTime or currentTime < tonumber(ARGV[i + 1]) then
+                    redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 2])
+                    table.insert(updated, ARGV[i])
+                end
+            end
+            if #updated > 0 then
+                local seq = redis.call('INCR', KEYS[2])
+                for _, id in ipairs(updated) do
+                    redis.call('ZADD', KEYS[3], seq, id)
+                end
+            end
+            return #updated
+            """, Long.class);
+
+    /**
+     * 读取序号大于 ARGV[1] 的设备状态
+     * 返回 {当前序号, 设备ID, 状态, ...}；当前序号小于 ARGV[1]（Redis 数据被清空）时只返回序号，由调用方全量合并
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> CHANGES_SCRIPT = new DefaultRedisScript<>("""
+            local seq = tonumber(redis.call('GET', KEYS[2]) or '0')
+            local since = tonumber(ARGV[1])
+            local result = {tostring(seq)}
+            if seq <= since then
+                return result
+            end
+            local ids = redis.call('ZRANGEBYSCORE', KEYS[3], '(' .. since, '+inf')
+            -- unpack 的参数个数有上限，分段读取
+            for from = 1, #ids, 1000 do
+                local to = math.min(from + 999, #ids)
+                local values = redis.call('HMGET', KEYS[1], unpack(ids, from, to))
+                for i = from, to do
+                    local value = values[i - from + 1]
+                    if value then
+                        table.insert(result, ids[i])
+                        table.insert(result, value)
+                    end
+                end
+            end
+            return result
+            """, List.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final DeviceMapper deviceMapper;
+
+    private final Map<Long, DeviceState> states = new ConcurrentHashMap<>();
+
+    // 自上次同步后在本节点更新过的设备
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+
+    private volatile Map<Long, Device> devices = Collections.emptyMap();
+
+    // 已合并到的变更序号，-1 表示还没有做过全量合并
+    private long mergedSeq = -1;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        refreshDevices();
+        sync();
+    }
+
+    @Override
+    public void onWritten(List<DeviceMetric> samples) {
+        ZoneId zone = ZoneId.systemDefault();
+        for (DeviceMetric sample : samples) {
+            long collectedAt = sample.getCreatedAt().atZone(zone).toInstant().toEpochMilli();
+            DeviceState state = DeviceState.of(sample, collectedAt);
+            if (update(sample.getDeviceId(), state)) {
+                dirty.add(sample.getDeviceId());
+            }
+        }
+    }
+
+    /**
+     * 把本节点更新过的设备写入 Redis，并合并其他节点写入的状态
+     */
+    @Scheduled(fixedDelayString = "${device.metrics.latest-state.sync-interval}")
+    public synchronized void sync() {
+        try {
+            pushToRedis();
+            mergeFromRedis();
+        } catch (Exception e) {
+            log.warn("同步设备最新状态到 Redis 失败", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${device.metrics.latest-state.device-refresh-interval}")
+    public void refreshDevices() {
+        try {
+            List<Device> list = deviceMapper.selectList(Wrappers.<Device>lambdaQuery()
+                    .select(Device::getId, Device::getDeviceCode, Device::getApplyRegion,
+                            Device::getLocation, Device::getStatus));
+            Map<Long, Device> loaded = new HashMap<>(list.size() * 2);
+            for (Device device : list) {
+                loaded.put(device.getId(), device);
+            }
+            devices = loaded;
+        } catch (Exception e) {
+            log.warn("加载设备信息失败", e);
+        }
+    }
+
+    /**
+     * 设备状态变化时由调用方同步更新，无需等待下次加载
+     */
+    public void updateDeviceStatus(Long deviceId, String status) {
+        Device device = devices.get(deviceId);
+        if (device != null) {
+            device.setStatus(status);
+        }
+    }
+
+    public Map<Long, DeviceState> getStates() {
+        return Collections.unmodifiableMap(states);
+    }
+
+    public Map<Long, Device> getDevices() {
+        return devices;
+    }
+
+    private boolean update(Long deviceId, DeviceState state) {
+        DeviceState[] applied = new DeviceState[1];
+        states.compute(deviceId, (id, current) -> {
+            if (state.isNewerThan(current)) {
+                applied[0] = state;
+                return state;
+            }
+            return current;
+        });
+        return applied[0] != null;
+    }
+
+    private void pushToRedis() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+        List<Long> deviceIds = new ArrayList<>(dirty);
+        dirty.removeAll(deviceIds);
+        List<String> args = new ArrayList<>(deviceIds.size() * 3);
+        for (Long deviceId : deviceIds) {
+            DeviceState state = states.get(deviceId);
+            if (state != null) {
+                args.add(String.valueOf(deviceId));
+                args.add(String.valueOf(state.getCollectedAt()));
+                args.add(state.toRedisValue());
+            }
+        }
+        if (args.isEmpty()) {
+            return;
+        }
+        try {
+            stringRedisTemplate.execute(PUT_IF_NEWER_SCRIPT, List.of(REDIS_KEY, SEQ_KEY, CHANGES_KEY), args.toArray());
+        } catch (RuntimeException e) {
+            // 下次同步时重试
+            dirty.addAll(deviceIds);
+            throw e;
+        }
+    }
+
+    private void mergeFromRedis() {
+        if (mergedSeq < 0) {
+            mergeAllFromRedis();
+            return;
+        }
+        List<?> result = stringRedisTemplate.execute(CHANGES_SCRIPT, List.of(REDIS_KEY, SEQ_KEY, CHANGES_KEY),
+                String.valueOf(mergedSeq));
+        if (result == null || result.isEmpty()) {
+            return;
+        }
+        long seq = Long.parseLong(String.valueOf(result.get(0)));
+        if (seq < mergedSeq) {
+            // 序号变小说明 Redis 数据被清空过，重新全量合并
+            mergeAllFromRedis();
+            return;
+        }
+        for (int i = 1; i + 1 < result.size(); i += 2) {
+            merge(String.valueOf(result.get(i)), String.valueOf(result.get(i + 1)));
+        }
+        mergedSeq = seq;
+    }
+
+    /**
+     * 启动时（以及 Redis 数据被清空后）读取整个 Hash；先取序号再读 Hash，期间的写入下次会再读一遍，重复合并无影响
+     */
+    private void mergeAllFromRedis() {
+        String seq = stringRedisTemplate.opsForValue().get(SEQ_KEY);
+        Map<Object, Object> entries = stringRedisTemplate.opsForHash().entries(REDIS_KEY);
+        for (Map.Entry<Object, Object> entry : entries.entrySet()) {
+            merge((String) entry.getKey(), (String) entry.getValue());
+        }
+        mergedSeq = seq == null ? 0 : Long.parseLong(seq);
+    }
+
+    private void merge(String deviceId, String value) {
+        DeviceState state = DeviceState.fromRedisValue(value);
+        if (state == null) {
+            return;
+        }
+        try {
+            update(Long.valueOf(deviceId), state);
+        } catch (NumberFormatException ignored) {
+            // 非法的设备ID，忽略
+        }
+    }
+}
@@ -0,0 +1,416 @@
+package com.gdairport.metrics;
+
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import com.gdairport.config.RabbitConfig;
+import com.gdairport.domain.dto.DeviceStatusEvent;
+import com.gdairport.domain.entity.Device;
+import com.gdairport.domain.entity.DeviceMetric;
+import com.gdairport.mapper.DeviceMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 设备在线检测（Redis 中的分层时间轮，所有节点共享）
+ * <p>
+ * 时间按 tick 划分，设备的截止 tick 为 最后上报 tick + ceil(timeout / tick)，记录在截止时间 Hash 中，
+ * 同时放入槽 截止 tick % wheel-size 对应的集合。收到指标时只把设备从旧槽移到新槽，操作次数固定，与设备总数无关；
+ * 设备原本不在时间轮中时记入“新上线”集合。同一设备的指标进入哪个节点都可以。
+ * <p>
+ * 每个 tick 由取得锁的一个节点推进时间轮：只检查从上次推进位置到当前 tick 之间的槽，到期的设备移出时间轮并记入“已过期”Hash。
+ * 随后读取新上线和已过期的设备，先批量更新 devices.status，成功后才从两个集合中删除并发布 RabbitMQ 事件；
+ * 写库失败时状态变化留在 Redis 中，下一个 tick 重试。状态变化只有这一个写入方，且每个设备在一次 tick 中只有一个最终状态，
+ * 不会出现先后顺序颠倒。时间统一取 Redis 服务器时间，不受各节点时钟偏差影响。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DeviceLivenessTracker implements DeviceMetricsWriteListener {
+
+    private static final String STATUS_ACTIVE = "ACTIVE";
+
+    private static final String STATUS_INACTIVE = "INACTIVE";
+
+    // deviceId -> 截止 tick
+    private static final String DEADLINE_KEY = "device:liveness:deadline-tick";
+
+    // 槽集合的前缀，后接槽号；脚本内拼接键名，只适用于单机 Redis
+    private static final String WHEEL_KEY_PREFIX = "device:liveness:wheel:";
+
+    private static final String JOINED_KEY = "device:liveness:joined";
+
+    // deviceId -> 到期时的截止 tick，写库成功后删除
+    private static final String EXPIRED_KEY = "device:liveness:expired";
+
+    // 时间轮已推进到的 tick
+    private static final String CURSOR_KEY = "device:liveness:cursor";
+
+    private static final String LOCK_KEY = "lock:device:liveness";
+
+    // 每个 tick 最多处理的状态变化数，剩余的留到下一个 tick
+    private static final int TICK_BATCH = 5000;
+
+    // wheelArgs() 中固定参数的个数
+    private static final int WHEEL_ARGS = 4;
+
+    /**
+     * 把设备移到新截止 tick 所在的槽，原本不在时间轮中的设备记入新上线集合
+     * ARGV 依次为 tick（毫秒）、timeout 对应的 tick 数、槽数、槽键前缀，其余为设备ID
+     */
+    private static final RedisScript<Long> TOUCH_SCRIPT = new DefaultRedisScript<>("""
+            local t = redis.call('TIME')
+            local now = math.floor((t[1] * 1000 + math.floor(t[2] / 1000)) / tonumber(ARGV[1]))
+            local deadline = now + tonumber(ARGV[2])
+            local wheel = tonumber(ARGV[3])
+            local joined = 0
+            for i = 5, #ARGV do
+                local old = tonumber(redis.call('HGET', KEYS[1], ARGV[i]))
+                if old ~= deadline then
+                    if old then
+                        redis.call('SREM', ARGV[4] .. (old % wheel), ARGV[i])
+                    else
+                        redis.call('SADD', KEYS[2], ARGV[i])
+                        joined = joined + 1
+                    end
+                    redis.call('SADD', ARGV[4] .. (deadline % wheel), ARGV[i])
+                    redis.call('HSET', KEYS[1], ARGV[i], deadline)
+                end
+            end
+            return joined
+            """, Long.class);
+
+    /**
+     * 只在设备不在时间轮中时加入（启动时把数据库中在线的设备纳入检测），参数同 TOUCH_SCRIPT
+     */
+    private static final RedisScript<Long> SEED_SCRIPT = new DefaultRedisScript<>("""
+            local t = redis.call('TIME')
+            local now = math.floor((t[1] * 1000 + math.floor(t[2] / 1000)) / tonumber(ARGV[1]))
+            local deadline = now + tonumber(ARGV[2])
+            local wheel = tonumber(ARGV[3])
+            local added = 0
+            for i = 5, #ARGV do
+                if redis.call('HSETNX', KEYS[1], ARGV[i], deadline) == 1 then
+                    redis.call('SADD', ARGV[4] .. (deadline % wheel), ARGV[i])
+                    added = added + 1
+                end
+            end
+            return added
+            """, Long.class);
+
+    /**
+     * 推进时间轮：检查上次推进位置之后到当前 tick 的槽（落后超过一圈时检查全部槽），到期设备移入已过期 Hash
+     * ARGV 依次为 tick（毫秒）、槽数、槽键前缀；返回本次到期的设备数
+     */
+    private static final RedisScript<Long> ADVANCE_SCRIPT = new DefaultRedisScript<>("""
+            local t = redis.call('TIME')
+            local now = math.floor((t[1] * 1000 + math.floor(t[2] / 1000)) / tonumber(ARGV[1]))
+            local cursor = tonumber(redis.call('GET', KEYS[3]) or (now - 1))
+            if cursor >= now then
+                return 0
+            end
+            local wheel = tonumber(ARGV[2])
+            local from = math.max(cursor + 1, now - wheel + 1)
+            local expired = 0
+            for tick = from, now do
+                local slot = ARGV[3] .. (tick % wheel)
+                for _, id in ipairs(redis.call('SMEMBERS', slot)) do
+                    local deadline = tonumber(redis.call('HGET', KEYS[1], id))
+                    if not deadline then
+                        redis.call('SREM', slot, id)
+                    elseif deadline <= now then
+                        redis.call('SREM', slot, id)
+                        redis.call('HDEL', KEYS[1], id)
+                        redis.call('HSET', KEYS[2], id, deadline)
+                        expired = expired + 1
+                    end
+                end
+            end
+            redis.call('SET', KEYS[3], now)
+            return expired
+            """, Long.class);
+
+    /**
+     * 读取（不删除）待写库的状态变化：仍在时间轮中的新上线设备，以及没有重新上报的已过期设备
+     * 返回 {上线数, 上线设备, 截止 tick, ..., 离线设备, 截止 tick, ...}；ARGV[1] 为单次最多处理的数量
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> PENDING_SCRIPT = new DefaultRedisScript<>("""
+            local result = {'0'}
+            local online = 0
+            for _, id in ipairs(redis.call('SRANDMEMBER', KEYS[2], tonumber(ARGV[1]))) do
+                local deadline = redis.call('HGET', KEYS[1], id)
+                if deadline then
+                    table.insert(result, id)
+                    table.insert(result, deadline)
+                    online = online + 1
+                else
+                    -- 上线后写库前又已到期，由已过期 Hash 处理
+                    redis.call('SREM', KEYS[2], id)
+                end
+            end
+            result[1] = tostring(online)
+            local expired = redis.call('HRANDFIELD', KEYS[3], tonumber(ARGV[1]), 'WITHVALUES')
+            for i = 1, #expired, 2 do
+                if redis.call('HEXISTS', KEYS[1], expired[i]) == 1 then
+                    -- 写库前已重新上报，由新上线集合处理
+                    redis.call('HDEL', KEYS[3], expired[i])
+                else
+                    table.insert(result, expired[i])
+                    table.insert(result, expired[i + 1])
+                end
+            end
+            return result
+            """, List.class);
+
+    private final DeviceMapper deviceMapper;
+
+    private final RabbitTemplate rabbitTemplate;
+
+    private final DeviceLatestStateStore deviceLatestStateStore;
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final RedissonClient redissonClient;
+
+    @Value("${device.liveness.enabled}")
+    private boolean enabled;
+
+    // 超过该时间没有收到指标视为离线
+    @Value("${device.liveness.timeout}")
+    private Duration timeout;
+
+    // 时间轮精度，同一设备在一个 tick 内最多刷新一次截止时间
+    @Value("${device.liveness.tick}")
+    private Duration tick;
+
+    // 槽数，必须大于 timeout 对应的 tick 数，设备只会落在当前一圈内的槽里
+    @Value("${device.liveness.wheel-size}")
+    private int wheelSize;
+
+    private long timeoutTicks;
+
+    // 本节点最近一次为设备刷新截止时间的时间，只用于减少 Redis 写入
+    private final Map<Long, Long> lastTouched = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService ticker;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        timeoutTicks = (timeout.toMillis() + tick.toMillis() - 1) / tick.toMillis();
+        if (wheelSize <= timeoutTicks) {
+            throw new IllegalStateException(String.format(
+                    "device.liveness.wheel-size(%d) 必须大于 timeout / tick(%d)", wheelSize, timeoutTicks));
+        }
+        seedActiveDevices();
+        ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "device-liveness-ticker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleWithFixedDelay(this::onTick, tick.toMillis(), tick.toMillis(), TimeUnit.MILLISECONDS);
+        log.info("设备在线检测已启动, 超时: {}, tick: {}, 槽数: {}", timeout, tick, wheelSize);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+    }
+
+    @Override
+    public void onWritten(List<DeviceMetric> samples) {
+        if (ticker == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        List<String> args = wheelArgs();
+        for (DeviceMetric sample : samples) {
+            Long deviceId = sample.getDeviceId();
+            Long last = lastTouched.get(deviceId);
+            // 一个 tick 内刷新过的设备离到期至少还有 timeout - tick，不会被判为离线
+            if (last != null && now - last < tick.toMillis()) {
+                continue;
+            }
+            lastTouched.put(deviceId, now);
+            args.add(String.valueOf(deviceId));
+        }
+        if (args.size() == WHEEL_ARGS) {
+            return;
+        }
+        try {
+            stringRedisTemplate.execute(TOUCH_SCRIPT, List.of(DEADLINE_KEY, JOINED_KEY), args.toArray());
+        } catch (Exception e) {
+            // 下一批指标会重新刷新
+            args.subList(WHEEL_ARGS, args.size()).forEach(id -> lastTouched.remove(Long.valueOf(id)));
+            log.warn("刷新设备在线截止时间失败, 设备数: {}", args.size() - WHEEL_ARGS, e);
+        }
+    }
+
+    /**
+     * 当前在线的设备数
+     */
+    public long getOnlineCount() {
+        Long count = stringRedisTemplate.opsForHash().size(DEADLINE_KEY);
+        return count == null ? 0 : count;
+    }
+
+    private void onTick() {
+        // 超过一个 tick 的记录已不再用于限流
+        long cutoff = System.currentTimeMillis() - tick.toMillis();
+        lastTouched.values().removeIf(last -> last < cutoff);
+
+        RLock lock = redissonClient.getLock(LOCK_KEY);
+        boolean locked = false;
+        try {
+            // 未取得锁说明其他节点正在处理本次 tick
+            locked = lock.tryLock();
+            if (!locked) {
+                return;
+            }
+            stringRedisTemplate.execute(ADVANCE_SCRIPT, List.of(DEADLINE_KEY, EXPIRED_KEY, CURSOR_KEY),
+                    String.valueOf(tick.toMillis()), String.valueOf(wheelSize), WHEEL_KEY_PREFIX);
+            List<?> result = stringRedisTemplate.execute(PENDING_SCRIPT, List.of(DEADLINE_KEY, JOINED_KEY, EXPIRED_KEY),
+                    String.valueOf(TICK_BATCH));
+            if (result == null || result.size() <= 1) {
+                return;
+            }
+            int onlineCount = Integer.parseInt(String.valueOf(result.get(0)));
+            Map<Long, Long> online = new LinkedHashMap<>();
+            Map<Long, Long> offline = new LinkedHashMap<>();
+            for (int i = 1; i + 1 < result.size(); i += 2) {
+                Long deviceId = Long.valueOf(String.valueOf(result.get(i)));
+                long lastSeen = (Long.parseLong(String.valueOf(result.get(i + 1))) - timeoutTicks) * tick.toMillis();
+                (i < onlineCount * 2 ? online : offline).put(deviceId, lastSeen);
+            }
+            // 持有锁期间完成写库和发布，下一个 tick 的变化一定在本次之后生效
+            applyChanges(online, offline);
+        } catch (Exception e) {
+            log.error("设备在线检测 tick 执行失败", e);
+        } finally {
+            if (locked) {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 两组设备互不重叠，每个设备只有本次 tick 的最终状态；值为最后上报时间
+     * 写库失败时抛出异常，状态变化仍留在 Redis 中，下一个 tick 重试
+     */
+    private void applyChanges(Map<Long, Long> online, Map<Long, Long> offline) {
+        updateStatus(new ArrayList<>(online.keySet()), STATUS_ACTIVE);
+        updateStatus(new ArrayList<>(offline.keySet()), STATUS_INACTIVE);
+        if (!online.isEmpty()) {
+            stringRedisTemplate.opsForSet().remove(JOINED_KEY,
+                    online.keySet().stream().map(String::valueOf).toArray());
+        }
+        if (!offline.isEmpty()) {
+            stringRedisTemplate.opsForHash().delete(EXPIRED_KEY,
+                    offline.keySet().stream().map(String::valueOf).toArray());
+        }
+        long now = System.currentTimeMillis();
+        online.forEach((deviceId, lastSeen) ->
+                publish(event(deviceId, STATUS_ACTIVE, lastSeen, now), RabbitConfig.DEVICE_ONLINE_ROUTING_KEY));
+        offline.forEach((deviceId, lastSeen) ->
+                publish(event(deviceId, STATUS_INACTIVE, lastSeen, now), RabbitConfig.DEVICE_OFFLINE_ROUTING_KEY));
+        log.info("设备状态变化, 上线: {}, 离线: {}", online.size(), offline.size());
+    }
+
+    private void updateStatus(List<Long> deviceIds, String status) {
+        if (deviceIds.isEmpty()) {
+            return;
+        }
+        deviceMapper.update(null, Wrappers.<Device>lambdaUpdate()
+                .set(Device::getStatus, status)
+                .in(Device::getId, deviceIds));
+        deviceIds.forEach(id -> deviceLatestStateStore.updateDeviceStatus(id, status));
+    }
+
+    private void publish(DeviceStatusEvent event, String routingKey) {
+        try {
+            rabbitTemplate.convertAndSend(RabbitConfig.DEVICE_EVENT_EXCHANGE, routingKey, event);
+        } catch (Exception e) {
+            log.warn("发布设备状态事件失败, 设备: {}, 状态: {}", event.getDeviceId(), event.getStatus(), e);
+        }
+    }
+
+    /**
+     * 时间轮不存在时（首次部署或 Redis 数据丢失），把数据库中在线的设备纳入检测，超时仍未上报的会被标记为离线；
+     * 在 tick 的锁内执行，只有一个节点会写入，已在时间轮中的设备不受影响
+     */
+    private void seedActiveDevices() {
+        RLock lock = redissonClient.getLock(LOCK_KEY);
+        if (!lock.tryLock()) {
+            log.info("其他实例正在处理设备在线状态, 跳过本次初始化");
+            return;
+        }
+        try {
+            if (Boolean.TRUE.equals(stringRedisTemplate.hasKey(DEADLINE_KEY))) {
+                return;
+            }
+            List<Device> active = deviceMapper.selectList(Wrappers.<Device>lambdaQuery()
+                    .select(Device::getId)
+                    .eq(Device::getStatus, STATUS_ACTIVE));
+            for (int from = 0; from < active.size(); from += TICK_BATCH) {
+                List<String> args = wheelArgs();
+                active.subList(from, Math.min(from + TICK_BATCH, active.size()))
+                        .forEach(device -> args.add(String.valueOf(device.getId())));
+                stringRedisTemplate.execute(SEED_SCRIPT, List.of(DEADLINE_KEY), args.toArray());
+            }
+            log.info("已将在线设备纳入在线检测, 设备数: {}", active.size());
+        } catch (Exception e) {
+            log.warn("加载在线设备失败", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * TOUCH_SCRIPT / SEED_SCRIPT 的固定参数，设备ID追加在后面
+     */
+    private List<String> wheelArgs() {
+        List<String> args = new ArrayList<>();
+        args.add(String.valueOf(tick.toMillis()));
+        args.add(String.valueOf(timeoutTicks));
+        args.add(String.valueOf(wheelSize));
+        args.add(WHEEL_KEY_PREFIX);
+        return args;
+    }
+
+    private static DeviceStatusEvent event(Long deviceId, String status, long lastSeen, long now) {
+        ZoneId zone = ZoneId.systemDefault();
+        return DeviceStatusEvent.builder()
+                .deviceId(deviceId)
+                .status(status)
+                .lastSeenAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(lastSeen), zone))
+                .occurredAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(now), zone))
+                .build();
+    }
+}
@@ -0,0 +1,148 @@
+package com.gdairport.metrics;
+
+import com.gdairport.domain.entity.DeviceMetric;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 设备指标内存缓冲 + 后台批量刷盘
+ * <p>
+ * 上报线程只把数据放入环形缓冲区；单个刷盘线程攒够 batch-size 条或距上次刷盘超过 flush-interval 时写库。
+ * 缓冲区满时上报方最多等待 offer-timeout，仍放不下则拒绝（反压），不会为每条数据占用一个数据库连接。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DeviceMetricsBuffer {
+
+    private final DeviceMetricsWriter deviceMetricsWriter;
+
+    @Value("${device.metrics.buffer-capacity}")
+    private int bufferCapacity;
+
+    @Value("${device.metrics.batch-size}")
+    private int batchSize;
+
+    @Value("${device.metrics.flush-interval}")
+    private Duration flushInterval;
+
+    @Value("${device.metrics.offer-timeout}")
+    private Duration offerTimeout;
+
+    private MetricsRingBuffer<DeviceMetric> buffer;
+
+    private Thread flusher;
+
+    private volatile boolean running;
+
+    private final LongAdder acceptedRows = new LongAdder();
+
+    private final LongAdder rejectedRows = new LongAdder();
+
+    // 最近一个统计窗口的写入速率（行/秒），由刷盘线程更新
+    private volatile double writeRate;
+
+    @Value("${device.metrics.max-samples-per-request}")
+    private int maxSamplesPerRequest;
+
+    @PostConstruct
+    public void start() {
+        if (maxSamplesPerRequest > bufferCapacity) {
+            log.warn("max-samples-per-request({}) 大于 buffer-capacity({})，超过容量的批次将被拒绝", maxSamplesPerRequest, bufferCapacity);
+        }
+        buffer = new MetricsRingBuffer<>(bufferCapacity);
+        running = true;
+        flusher = new Thread(this::flushLoop, "device-metrics-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+        log.info("设备指标缓冲区已启动, 容量: {}, 批大小: {}, 刷盘间隔: {}", bufferCapacity, batchSize, flushInterval);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        flusher.interrupt();
+        flusher.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    /**
+     * 整批放入缓冲区
+     * @return 放入成功返回 true；缓冲区已满且等待超时返回 false
+     */
+    public boolean offer(List<DeviceMetric> samples) {
+        try {
+            if (buffer.offerAll(samples, offerTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                acceptedRows.add(samples.size());
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        rejectedRows.add(samples.size());
+        return false;
+    }
+
+    private void flushLoop() {
+        List<DeviceMetric> batch = new ArrayList<>(batchSize);
+        long deadline = System.nanoTime() + flushInterval.toNanos();
+        long windowStart = System.nanoTime();
+        long windowWritten = deviceMetricsWriter.getWrittenRows();
+        while (running || buffer.size() > 0) {
+            try {
+                long wait = Math.max(deadline - System.nanoTime(), 0);
+                buffer.drainTo(batch, batchSize - batch.size(), running ? wait : 0, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                // 停止时继续把缓冲区剩余数据写完
+                continue;
+            }
+            long now = System.nanoTime();
+            if (batch.size() >= batchSize || now >= deadline || !running) {
+                if (!batch.isEmpty()) {
+                    deviceMetricsWriter.write(batch);
+                    batch.clear();
+                }
+                deadline = now + flushInterval.toNanos();
+            }
+            if (now - windowStart >= TimeUnit.SECONDS.toNanos(1)) {
+                long written = deviceMetricsWriter.getWrittenRows();
+                writeRate = (written - windowWritten) * 1_000_000_000.0 / (now - windowStart);
+                windowStart = now;
+                windowWritten = written;
+            }
+        }
+        if (!batch.isEmpty()) {
+            deviceMetricsWriter.write(batch);
+        }
+        log.info("设备指标刷盘线程已退出");
+    }
+
+    public int getBuffered() {
+        return buffer.size();
+    }
+
+    public int getCapacity() {
+        return buffer.capacity();
+    }
+
+    public long getAcceptedRows() {
+        return acceptedRows.sum();
+    }
+
+    public long getRejectedRows() {
+        return rejectedRows.sum();
+    }
+
+    public double getWriteRate() {
+        return writeRate;
+    }
+}
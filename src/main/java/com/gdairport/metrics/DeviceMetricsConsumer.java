@@ -0,0 +1,42 @@
+package com.gdairport.metrics;
+
+import com.gdairport.config.RabbitConfig;
+import com.gdairport.domain.dto.DeviceMetricBatchDto;
+import com.gdairport.domain.dto.DeviceMetricDto;
+import com.gdairport.service.DeviceMetricsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 从 RabbitMQ 批量消费指标并写入 MySQL
+ * <p>
+ * 容器开启 consumer batching，一次回调拿到最多 consumer-batch-size 条消息，合并后批量写库。
+ * 整批消息在一个事务中写库；失败时由容器在本地退避重试，多次失败后整批进入死信队列，不会无限重投。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "device.metrics.ingest-mode", havingValue = "rabbit")
+public class DeviceMetricsConsumer {
+
+    private final DeviceMetricsService deviceMetricsService;
+
+    @RabbitListener(queues = RabbitConfig.METRICS_QUEUE, containerFactory = "metricsBatchContainerFactory")
+    public void onMessages(List<DeviceMetricBatchDto> batches) {
+        List<DeviceMetricDto> samples = new ArrayList<>();
+        for (DeviceMetricBatchDto batch : batches) {
+            if (batch.getSamples() != null) {
+                samples.addAll(batch.getSamples());
+            }
+        }
+        if (!samples.isEmpty()) {
+            deviceMetricsService.persist(samples);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.gdairport.metrics;
+
+import com.gdairport.domain.vo.MetricsPartitionVo;
+import com.gdairport.mapper.DeviceMetricMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * device_metrics 按天分区的维护任务
+ * <p>
+ * 预建未来 create-ahead-days 天的分区（从空的 pmax 拆分，不搬数据），
+ * 删除早于 retention-days 的分区（DROP PARTITION 只改数据字典，代价与行数无关），取代按时间 DELETE 的清理方式。
+ * 多实例部署时通过分布式锁保证同一时刻只有一个实例执行 DDL。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DeviceMetricsPartitionMaintainer {
+
+    private static final String LOCK_KEY = "lock:device-metrics:partition";
+
+    private static final String PARTITION_PREFIX = "p";
+
+    private static final String MAX_PARTITION = "pmax";
+
+    private static final DateTimeFormatter NAME_FORMAT = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private final DeviceMetricMapper deviceMetricMapper;
+
+    private final RedissonClient redissonClient;
+
+    @Value("${device.metrics.partition.enabled}")
+    private boolean enabled;
+
+    // 保留最近多少天的数据（含今天）
+    @Value("${device.metrics.partition.retention-days}")
+    private int retentionDays;
+
+    // 提前创建未来多少天的分区
+    @Value("${device.metrics.partition.create-ahead-days}")
+    private int createAheadDays;
+
+    /**
+     * 启动后立即执行一次，保证当天分区存在
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        maintain();
+    }
+
+    @Scheduled(cron = "${device.metrics.partition.cron}")
+    public void maintain() {
+        if (!enabled) {
+            return;
+        }
+        RLock lock = redissonClient.getLock(LOCK_KEY);
+        if (!lock.tryLock()) {
+            log.info("其他实例正在维护 device_metrics 分区, 跳过本次执行");
+            return;
+        }
+        try {
+            LocalDate today = LocalDate.now();
+            List<MetricsPartitionVo> partitions = listPartitions();
+            createPartitions(partitions, today);
+            dropExpiredPartitions(partitions, today);
+        } catch (Exception e) {
+            log.error("维护 device_metrics 分区失败", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 查询现有的按天分区（不含 pmax），并从分区名解析日期
+     */
+    public List<MetricsPartitionVo> listPartitions() {
+        List<MetricsPartitionVo> partitions = new ArrayList<>();
+        for (MetricsPartitionVo partition : deviceMetricMapper.listPartitions()) {
+            LocalDate day = parseDay(partition.getPartitionName());
+            if (day == null) {
+                continue;
+            }
+            partition.setDay(day);
+            partition.setUpperBound(day.plusDays(1));
+            partitions.add(partition);
+        }
+        return partitions;
+    }
+
+    private void createPartitions(List<MetricsPartitionVo> existing, LocalDate today) {
+        // 分区必须按上界递增，只能在最后一个按天分区之后追加
+        LocalDate start = existing.isEmpty() ? today : existing.get(existing.size() - 1).getUpperBound();
+        // 停机多日后恢复时，过期的日期不再补建，这些数据会落入第一个新分区
+        LocalDate earliest = today.minusDays(retentionDays - 1L);
+        if (start.isBefore(earliest)) {
+            start = earliest;
+        }
+        LocalDate end = today.plusDays(createAheadDays);
+        List<MetricsPartitionVo> toCreate = new ArrayList<>();
+        for (LocalDate day = start; !day.isAfter(end); day = day.plusDays(1)) {
+            toCreate.add(MetricsPartitionVo.builder()
+                    .partitionName(PARTITION_PREFIX + day.format(NAME_FORMAT))
+                    .day(day)
+                    .upperBound(day.plusDays(1))
+                    .build());
+        }
+        if (toCreate.isEmpty()) {
+            return;
+        }
+        deviceMetricMapper.addPartitions(toCreate);
+        log.info("已创建 device_metrics 分区: {} ~ {}", toCreate.get(0).getPartitionName(),
+                toCreate.get(toCreate.size() - 1).getPartitionName());
+    }
+
+    private void dropExpiredPartitions(List<MetricsPartitionVo> existing, LocalDate today) {
+        LocalDate earliest = today.minusDays(retentionDays - 1L);
+        List<String> expired = existing.stream()
+                .filter(partition -> !partition.getUpperBound().isAfter(earliest))
+                .map(MetricsPartitionVo::getPartitionName)
+                .toList();
+        if (expired.isEmpty()) {
+            return;
+        }
+        deviceMetricMapper.dropPartitions(expired);
+        log.info("已删除过期 device_metrics 分区: {}", expired);
+    }
+
+    private LocalDate parseDay(String partitionName) {
+        if (partitionName == null || MAX_PARTITION.equals(partitionName) || !partitionName.startsWith(PARTITION_PREFIX)) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(partitionName.substring(PARTITION_PREFIX.length()), NAME_FORMAT);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
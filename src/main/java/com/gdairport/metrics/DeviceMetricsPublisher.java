@@ -0,0 +1,65 @@
+package com.gdairport.metrics;
+
+import com.gdairport.config.RabbitConfig;
+import com.gdairport.domain.dto.DeviceMetricBatchDto;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 把上报的指标发布到 RabbitMQ
+ * <p>
+ * 每次 HTTP 上报发布为一条消息，并等待 broker 的发布确认（publisher confirm），
+ * 确认成功才向设备返回成功，broker 持久化之前的数据不会因为应用重启而丢失。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DeviceMetricsPublisher {
+
+    private final RabbitTemplate rabbitTemplate;
+
+    @Value("${device.metrics.rabbit.confirm-timeout}")
+    private Duration confirmTimeout;
+
+    /**
+     * 发布一批指标
+     * @return broker 确认返回 true；被拒绝或等待确认超时返回 false
+     */
+    public boolean publish(DeviceMetricBatchDto batch) {
+        CorrelationData correlationData = new CorrelationData(UUID.randomUUID().toString());
+        rabbitTemplate.convertAndSend(RabbitConfig.METRICS_EXCHANGE, RabbitConfig.METRICS_ROUTING_KEY,
+                batch, correlationData);
+        try {
+            CorrelationData.Confirm confirm = correlationData.getFuture()
+                    .get(confirmTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            if (!confirm.isAck()) {
+                log.warn("指标消息被 broker 拒绝, id: {}, 原因: {}", correlationData.getId(), confirm.getReason());
+                return false;
+            }
+            if (correlationData.getReturned() != null) {
+                log.warn("指标消息无法路由到队列, id: {}", correlationData.getId());
+                return false;
+            }
+            return true;
+        } catch (TimeoutException e) {
+            log.warn("等待指标消息确认超时, id: {}", correlationData.getId());
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            log.warn("指标消息发布失败, id: {}", correlationData.getId(), e);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.gdairport.metrics;
+
+import com.gdairport.domain.dto.DeviceMetricHistogramDelta;
+import com.gdairport.domain.dto.DeviceMetricRollupDelta;
+import com.gdairport.domain.entity.DeviceMetric;
+import com.gdairport.enums.RollupResolutionEnum;
+import com.gdairport.mapper.DeviceMetricRollupMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 设备指标增量汇总（1m / 5m / 1h）
+ * <p>
+ * 每批原始数据写库成功后，在内存中累加到各粒度当前的桶；后台定时把桶自上次写入后的增量（样本数、和、最小/最大值、
+ * 1% 直方图）写入汇总表，由 ON DUPLICATE KEY 与表中已有的值相加 / 取极值合并，平均值和 P95 在查询时计算。
+ * 因此多个节点、多个消费者汇总同一设备，或节点在桶中途重启，结果都是所有增量之和，不会互相覆盖。
+ * 写入失败时增量放回桶中，下次重试；桶结束超过 late-grace 后做最后一次写入，写入成功后才从内存移除，
+ * 之后到达的样本只计入原始表，不再计入汇总。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DeviceMetricsRollupEngine implements DeviceMetricsWriteListener {
+
+    private final DeviceMetricRollupMapper deviceMetricRollupMapper;
+
+    // 汇总值和直方图在同一事务中写入，失败重试时不会重复计入其中一部分
+    private final TransactionTemplate transactionTemplate;
+
+    // 桶结束后继续接收迟到样本的时间
+    @Value("${device.metrics.rollup.late-grace}")
+    private Duration lateGrace;
+
+    @Value("${device.metrics.batch-size}")
+    private int batchSize;
+
+    private final Map<BucketKey, Accumulator> buckets = new ConcurrentHashMap<>();
+
+    private final LongAdder lateSamples = new LongAdder();
+
+    @Override
+    public void onWritten(List<DeviceMetric> samples) {
+        LocalDateTime now = LocalDateTime.now();
+        for (DeviceMetric sample : samples) {
+            for (RollupResolutionEnum resolution : RollupResolutionEnum.values()) {
+                LocalDateTime bucketStart = resolution.bucketStart(sample.getCreatedAt());
+                if (isClosed(resolution, bucketStart, now)) {
+                    lateSamples.increment();
+                    continue;
+                }
+                BucketKey key = new BucketKey(resolution, sample.getDeviceId(), bucketStart);
+                Accumulator accumulator = buckets.computeIfAbsent(key, k -> new Accumulator());
+                if (!accumulator.add(sample)) {
+                    // 桶刚好在这一刻被关闭
+                    lateSamples.increment();
+                }
+            }
+        }
+    }
+
+    /**
+     * 把有变化的桶写入汇总表，关闭已过迟到窗口的桶
+     */
+    @Scheduled(fixedDelayString = "${device.metrics.rollup.flush-interval}")
+    public void flush() {
+        flush(false);
+    }
+
+    @PreDestroy
+    public void flushAll() {
+        flush(true);
+    }
+
+    public long getLateSamples() {
+        return lateSamples.sum();
+    }
+
+    private synchronized void flush(boolean closeAll) {
+        LocalDateTime now = LocalDateTime.now();
+        Map<RollupResolutionEnum, List<PendingWrite>> pending = new EnumMap<>(RollupResolutionEnum.class);
+        for (Map.Entry<BucketKey, Accumulator> entry : buckets.entrySet()) {
+            BucketKey key = entry.getKey();
+            Accumulator accumulator = entry.getValue();
+            boolean close = closeAll || isClosed(key.resolution, key.bucketStart, now);
+            Delta delta = accumulator.drain(close);
+            if (delta != null) {
+                pending.computeIfAbsent(key.resolution, r -> new ArrayList<>())
+                        .add(new PendingWrite(key, accumulator, delta));
+            } else if (close) {
+                buckets.remove(key, accumulator);
+            }
+        }
+        pending.forEach(this::write);
+    }
+
+    private void write(RollupResolutionEnum resolution, List<PendingWrite> writes) {
+        for (int from = 0; from < writes.size(); from += batchSize) {
+            List<PendingWrite> chunk = writes.subList(from, Math.min(from + batchSize, writes.size()));
+            List<DeviceMetricRollupDelta> rollups = new ArrayList<>(chunk.size());
+            List<DeviceMetricHistogramDelta> bins = new ArrayList<>();
+            for (PendingWrite write : chunk) {
+                rollups.add(write.delta.toRollup(write.key));
+                write.delta.collectBins(write.key, bins);
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    deviceMetricRollupMapper.upsertBatch(resolution.getTableName(), rollups);
+                    for (int i = 0; i < bins.size(); i += batchSize) {
+                        deviceMetricRollupMapper.addHistogramBatch(resolution.getHistTableName(),
+                                bins.subList(i, Math.min(i + batchSize, bins.size())));
+                    }
+                });
+            } catch (RuntimeException e) {
+                // 增量放回桶中，下次写入时重试；已关闭的桶保留到写入成功为止
+                chunk.forEach(write -> write.accumulator.restore(write.delta));
+                log.error("写入设备指标汇总失败, 下次重试, 粒度: {}, 条数: {}", resolution.getCode(), chunk.size(), e);
+                continue;
+            }
+            for (PendingWrite write : chunk) {
+                if (write.accumulator.isClosed()) {
+                    buckets.remove(write.key, write.accumulator);
+                }
+            }
+        }
+    }
+
+    private boolean isClosed(RollupResolutionEnum resolution, LocalDateTime bucketStart, LocalDateTime now) {
+        return bucketStart.plus(resolution.getBucket()).plus(lateGrace).isBefore(now);
+    }
+
+    private record BucketKey(RollupResolutionEnum resolution, Long deviceId, LocalDateTime bucketStart) {
+    }
+
+    private record PendingWrite(BucketKey key, Accumulator accumulator, Delta delta) {
+    }
+
+    /**
+     * 一个桶自上次写入后的增量
+     */
+    private record Delta(int sampleCount, MetricStats cpu, MetricStats memory, MetricStats gpu) {
+
+        DeviceMetricRollupDelta toRollup(BucketKey key) {
+            return DeviceMetricRollupDelta.builder()
+                    .deviceId(key.deviceId)
+                    .bucketStart(key.bucketStart)
+                    .sampleCount(sampleCount)
+                    .cpuCount(cpu.count()).cpuSum(cpu.sum()).cpuMin(cpu.min()).cpuMax(cpu.max())
+                    .memoryCount(memory.count()).memorySum(memory.sum())
+                    .memoryMin(memory.min()).memoryMax(memory.max())
+                    .gpuCount(gpu.count()).gpuSum(gpu.sum()).gpuMin(gpu.min()).gpuMax(gpu.max())
+                    .build();
+        }
+
+        void collectBins(BucketKey key, List<DeviceMetricHistogramDelta> bins) {
+            collectBins(key, "cpu", cpu, bins);
+            collectBins(key, "memory", memory, bins);
+            collectBins(key, "gpu", gpu, bins);
+        }
+
+        private static void collectBins(BucketKey key, String metric, MetricStats stats,
+                                        List<DeviceMetricHistogramDelta> bins) {
+            for (int bin = 0; bin < MetricStats.BINS; bin++) {
+                int count = stats.binCount(bin);
+                if (count > 0) {
+                    bins.add(new DeviceMetricHistogramDelta(key.deviceId, key.bucketStart, metric, bin, count));
+                }
+            }
+        }
+    }
+
+    /**
+     * 一个设备在一个桶内尚未写库的统计量
+     */
+    private static class Accumulator {
+
+        private MetricStats cpu = new MetricStats();
+        private MetricStats memory = new MetricStats();
+        private MetricStats gpu = new MetricStats();
+
+        private int sampleCount;
+
+        private boolean closed;
+
+        synchronized boolean add(DeviceMetric sample) {
+            if (closed) {
+                return false;
+            }
+            cpu.add(sample.getCpuUsage());
+            memory.add(sample.getMemoryUsage());
+            gpu.add(sample.getGpuUsage());
+            sampleCount++;
+            return true;
+        }
+
+        /**
+         * 取出增量并清零，没有新样本时返回 null
+         */
+        synchronized Delta drain(boolean close) {
+            closed |= close;
+            if (sampleCount == 0) {
+                return null;
+            }
+            Delta delta = new Delta(sampleCount, cpu, memory, gpu);
+            cpu = new MetricStats();
+            memory = new MetricStats();
+            gpu = new MetricStats();
+            sampleCount = 0;
+            return delta;
+        }
+
+        synchronized void restore(Delta delta) {
+            cpu.merge(delta.cpu);
+            memory.merge(delta.memory);
+            gpu.merge(delta.gpu);
+            sampleCount += delta.sampleCount;
+        }
+
+        synchronized boolean isClosed() {
+            return closed;
+        }
+    }
+}
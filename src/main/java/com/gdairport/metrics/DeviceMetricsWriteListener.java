@@ -0,0 +1,15 @@
+package com.gdairport.metrics;
+
+import com.gdairport.domain.entity.DeviceMetric;
+
+import java.util.List;
+
+/**
+ * 设备指标写入数据库成功后的回调
+ * <p>
+ * 在写入线程中同步调用，实现方应只做内存操作，耗时操作交给自己的后台任务。
+ */
+public interface DeviceMetricsWriteListener {
+
+    void onWritten(List<DeviceMetric> samples);
+}
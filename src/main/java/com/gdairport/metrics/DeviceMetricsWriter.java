@@ -0,0 +1,108 @@
+package com.gdairport.metrics;
+
+import com.gdairport.domain.entity.DeviceMetric;
+import com.gdairport.mapper.DeviceMetricMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 设备指标批量写入 MySQL
+ * <p>
+ * 按 device.metrics.batch-size 切分为多行 INSERT，每批一次往返。
+ * 每批写入成功后通知 {@link DeviceMetricsWriteListener}（汇总、最新状态等）。
+ * MQ 消费者使用的 {@link #writeOrThrow} 把整批消息放在一个事务中写入，提交后才通知监听器，
+ * 失败重投时不会出现前半批已写入、再次写入导致重复的情况。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DeviceMetricsWriter {
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final DeviceMetricMapper deviceMetricMapper;
+
+    private final ObjectProvider<DeviceMetricsWriteListener> writeListeners;
+
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${device.metrics.batch-size}")
+    private int batchSize;
+
+    private final LongAdder writtenRows = new LongAdder();
+
+    private final LongAdder failedRows = new LongAdder();
+
+    /**
+     * 写入一批数据，失败时重试，多次失败后丢弃并计数
+     */
+    public void write(List<DeviceMetric> samples) {
+        for (int from = 0; from < samples.size(); from += batchSize) {
+            writeChunk(samples.subList(from, Math.min(from + batchSize, samples.size())));
+        }
+    }
+
+    /**
+     * 在一个事务中写入整批数据，失败时抛出异常且一条都不写入，由调用方决定是否重投（MQ 消费者使用）
+     */
+    public void writeOrThrow(List<DeviceMetric> samples) {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int from = 0; from < samples.size(); from += batchSize) {
+                deviceMetricMapper.insertBatch(samples.subList(from, Math.min(from + batchSize, samples.size())));
+            }
+        });
+        writtenRows.add(samples.size());
+        notifyListeners(samples);
+    }
+
+    private void writeChunk(List<DeviceMetric> chunk) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                deviceMetricMapper.insertBatch(chunk);
+                writtenRows.add(chunk.size());
+                notifyListeners(chunk);
+                return;
+            } catch (RuntimeException e) {
+                if (attempt == MAX_ATTEMPTS) {
+                    failedRows.add(chunk.size());
+                    log.error("设备指标写入失败, 丢弃 {} 条数据", chunk.size(), e);
+                    return;
+                }
+                log.warn("设备指标写入失败, 第 {} 次重试", attempt, e);
+                try {
+                    Thread.sleep(100L * attempt);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    failedRows.add(chunk.size());
+                    return;
+                }
+            }
+        }
+    }
+
+    private void notifyListeners(List<DeviceMetric> chunk) {
+        writeListeners.orderedStream().forEach(listener -> {
+            try {
+                listener.onWritten(chunk);
+            } catch (RuntimeException e) {
+                // 监听器失败不影响原始数据写入
+                log.error("设备指标写入监听器执行失败: {}", listener.getClass().getSimpleName(), e);
+            }
+        });
+    }
+
+    public long getWrittenRows() {
+        return writtenRows.sum();
+    }
+
+    public long getFailedRows() {
+        return failedRows.sum();
+    }
+}
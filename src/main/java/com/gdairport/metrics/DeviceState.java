@@ -0,0 +1,118 @@
+package com.gdairport.metrics;
+
+import com.gdairport.domain.entity.DeviceMetric;
+
+import java.math.BigDecimal;
+
+/**
+ * 设备最新一条指标的紧凑表示
+ * <p>
+ * 使用率以百分之一为单位存为 short（-1 表示未上报），采集时间存为毫秒时间戳，
+ * 每个设备只占一个小对象；不可变，更新时整体替换。
+ */
+public final class DeviceState {
+
+    private static final short ABSENT = -1;
+
+    private static final char SEPARATOR = '|';
+
+    private final short cpu;
+    private final short memory;
+    private final short gpu;
+    private final short disk;
+    private final long collectedAt;
+    private final String networkStatus;
+
+    private DeviceState(short cpu, short memory, short gpu, short disk, long collectedAt, String networkStatus) {
+        this.cpu = cpu;
+        this.memory = memory;
+        this.gpu = gpu;
+        this.disk = disk;
+        this.collectedAt = collectedAt;
+        this.networkStatus = networkStatus;
+    }
+
+    public static DeviceState of(DeviceMetric metric, long collectedAt) {
+        return new DeviceState(encode(metric.getCpuUsage()), encode(metric.getMemoryUsage()),
+                encode(metric.getGpuUsage()), encode(metric.getDiskUsage()), collectedAt, metric.getNetworkStatus());
+    }
+
+    /**
+     * Redis 中的格式：cpu|memory|gpu|disk|collectedAt|networkStatus
+     */
+    public String toRedisValue() {
+        StringBuilder sb = new StringBuilder(48);
+        sb.append(cpu).append(SEPARATOR).append(memory).append(SEPARATOR)
+                .append(gpu).append(SEPARATOR).append(disk).append(SEPARATOR)
+                .append(collectedAt).append(SEPARATOR);
+        if (networkStatus != null) {
+            sb.append(networkStatus);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 解析失败返回 null
+     */
+    public static DeviceState fromRedisValue(String value) {
+        String[] parts = value.split("\\|", 6);
+        if (parts.length != 6) {
+            return null;
+        }
+        try {
+            return new DeviceState(Short.parseShort(parts[0]), Short.parseShort(parts[1]),
+                    Short.parseShort(parts[2]), Short.parseShort(parts[3]), Long.parseLong(parts[4]),
+                    parts[5].isEmpty() ? null : parts[5]);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public boolean isNewerThan(DeviceState other) {
+        return other == null || collectedAt > other.collectedAt;
+    }
+
+    public boolean hasCpu() {
+        return cpu != ABSENT;
+    }
+
+    public boolean hasMemory() {
+        return memory != ABSENT;
+    }
+
+    public boolean hasGpu() {
+        return gpu != ABSENT;
+    }
+
+    public boolean hasDisk() {
+        return disk != ABSENT;
+    }
+
+    public double getCpu() {
+        return cpu / 100.0;
+    }
+
+    public double getMemory() {
+        return memory / 100.0;
+    }
+
+    public double getGpu() {
+        return gpu / 100.0;
+    }
+
+    public double getDisk() {
+        return disk / 100.0;
+    }
+
+    public long getCollectedAt() {
+        return collectedAt;
+    }
+
+    public String getNetworkStatus() {
+        return networkStatus;
+    }
+
+    private static short encode(BigDecimal value) {
+        return value == null ? ABSENT : (short) Math.round(value.doubleValue() * 100);
+    }
+}
@@ -0,0 +1,77 @@
+package com.gdairport.metrics;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * 单个使用率指标（0-100）在一个汇总桶内的统计量
+ * <p>
+ * 只保存可合并的量：样本数、和、最小/最大值，以及 1% 宽度的直方图（固定 101 个计数），
+ * 多个节点、多次写入的结果在数据库中直接相加 / 取极值即可合并，分位数在查询时由直方图计算。
+ * 非线程安全，由调用方加锁。
+ */
+class MetricStats {
+
+    static final int BINS = 101;
+
+    private final int[] histogram = new int[BINS];
+
+    private int count;
+
+    // 以 0.01 为单位累加，避免浮点误差
+    private long sumHundredths;
+
+    private double min = Double.POSITIVE_INFINITY;
+
+    private double max = Double.NEGATIVE_INFINITY;
+
+    void add(BigDecimal value) {
+        if (value == null) {
+            return;
+        }
+        double v = value.doubleValue();
+        count++;
+        sumHundredths += value.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue();
+        min = Math.min(min, v);
+        max = Math.max(max, v);
+        int bin = (int) Math.round(v);
+        histogram[Math.max(0, Math.min(BINS - 1, bin))]++;
+    }
+
+    /**
+     * 把另一份统计量合并进来（写库失败时把未写入的增量放回）
+     */
+    void merge(MetricStats other) {
+        count += other.count;
+        sumHundredths += other.sumHundredths;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        for (int bin = 0; bin < BINS; bin++) {
+            histogram[bin] += other.histogram[bin];
+        }
+    }
+
+    int count() {
+        return count;
+    }
+
+    BigDecimal sum() {
+        return BigDecimal.valueOf(sumHundredths, 2);
+    }
+
+    BigDecimal min() {
+        return count == 0 ? null : scale(min);
+    }
+
+    BigDecimal max() {
+        return count == 0 ? null : scale(max);
+    }
+
+    int binCount(int bin) {
+        return histogram[bin];
+    }
+
+    private static BigDecimal scale(double value) {
+        return BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP);
+    }
+}
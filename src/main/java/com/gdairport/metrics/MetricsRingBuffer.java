@@ -0,0 +1,103 @@
+package com.gdairport.metrics;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 有界环形缓冲区
+ * <p>
+ * 与 ArrayBlockingQueue 的区别是整批写入：一批数据要么全部进入缓冲区，要么一条都不进入，
+ * 上报方在超时后可以原样重试整批数据而不会产生重复。
+ */
+public class MetricsRingBuffer<T> {
+
+    private final Object[] items;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+
+    private int head;
+    private int count;
+
+    public MetricsRingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity 必须大于 0");
+        }
+        this.items = new Object[capacity];
+    }
+
+    public int capacity() {
+        return items.length;
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 整批写入，缓冲区剩余空间不足时最多等待 timeout
+     * @return 写入成功返回 true，超时返回 false（此时一条都未写入）
+     */
+    public boolean offerAll(List<T> batch, long timeout, TimeUnit unit) throws InterruptedException {
+        if (batch.size() > items.length) {
+            throw new IllegalArgumentException("单批数据量超过缓冲区容量");
+        }
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (items.length - count < batch.size()) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = notFull.awaitNanos(nanos);
+            }
+            int tail = (head + count) % items.length;
+            for (T item : batch) {
+                items[tail] = item;
+                tail = tail + 1 == items.length ? 0 : tail + 1;
+            }
+            count += batch.size();
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 取出最多 maxElements 条数据，缓冲区为空时最多等待 timeout
+     * @return 取出的条数
+     */
+    @SuppressWarnings("unchecked")
+    public int drainTo(List<T> target, int maxElements, long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (count == 0) {
+                if (nanos <= 0) {
+                    return 0;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            int n = Math.min(maxElements, count);
+            for (int i = 0; i < n; i++) {
+                target.add((T) items[head]);
+                items[head] = null;
+                head = head + 1 == items.length ? 0 : head + 1;
+            }
+            count -= n;
+            notFull.signalAll();
+            return n;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
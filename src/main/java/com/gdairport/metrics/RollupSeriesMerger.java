@@ -0,0 +1,141 @@
+package com.gdairport.metrics;
+
+import com.gdairport.domain.dto.DeviceMetricHistogramDelta;
+import com.gdairport.domain.dto.DeviceMetricRollupDelta;
+import com.gdairport.domain.entity.DeviceMetricRollup;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 合并多组设备的汇总结果（区域序列按设备分批查询后使用）
+ * <p>
+ * 样本数、和相加，最小/最大值取极值，直方图计数相加；全部合并后再计算平均值和 P95，
+ * 与单条 SQL 合并所有设备的结果一致。非线程安全。
+ */
+public class RollupSeriesMerger {
+
+    private final Map<LocalDateTime, Bucket> buckets = new TreeMap<>();
+
+    public void addSeries(List<DeviceMetricRollupDelta> rows) {
+        for (DeviceMetricRollupDelta row : rows) {
+            Bucket bucket = buckets.computeIfAbsent(row.getBucketStart(), k -> new Bucket());
+            bucket.sampleCount += valueOf(row.getSampleCount());
+            bucket.cpu.add(row.getCpuCount(), row.getCpuSum(), row.getCpuMin(), row.getCpuMax());
+            bucket.memory.add(row.getMemoryCount(), row.getMemorySum(), row.getMemoryMin(), row.getMemoryMax());
+            bucket.gpu.add(row.getGpuCount(), row.getGpuSum(), row.getGpuMin(), row.getGpuMax());
+        }
+    }
+
+    public void addHistogram(List<DeviceMetricHistogramDelta> rows) {
+        for (DeviceMetricHistogramDelta row : rows) {
+            Bucket bucket = buckets.computeIfAbsent(row.getBucketStart(), k -> new Bucket());
+            Metric metric = switch (row.getMetric()) {
+                case "cpu" -> bucket.cpu;
+                case "memory" -> bucket.memory;
+                case "gpu" -> bucket.gpu;
+                default -> null;
+            };
+            if (metric != null && row.getBin() != null && row.getBin() >= 0 && row.getBin() < MetricStats.BINS) {
+                metric.histogram[row.getBin()] += valueOf(row.getSampleCount());
+            }
+        }
+    }
+
+    /**
+     * 按桶起始时间排序的合并结果；只有直方图没有汇总行的桶（两张表写入之间查询）不输出
+     */
+    public List<DeviceMetricRollup> result() {
+        List<DeviceMetricRollup> points = new ArrayList<>(buckets.size());
+        buckets.forEach((bucketStart, bucket) -> {
+            if (bucket.sampleCount == 0) {
+                return;
+            }
+            points.add(DeviceMetricRollup.builder()
+                    .bucketStart(bucketStart)
+                    .sampleCount((int) bucket.sampleCount)
+                    .cpuMin(bucket.cpu.min).cpuMax(bucket.cpu.max)
+                    .cpuAvg(bucket.cpu.avg()).cpuP95(bucket.cpu.p95())
+                    .memoryMin(bucket.memory.min).memoryMax(bucket.memory.max)
+                    .memoryAvg(bucket.memory.avg()).memoryP95(bucket.memory.p95())
+                    .gpuMin(bucket.gpu.min).gpuMax(bucket.gpu.max)
+                    .gpuAvg(bucket.gpu.avg()).gpuP95(bucket.gpu.p95())
+                    .build());
+        });
+        return points;
+    }
+
+    private static long valueOf(Integer value) {
+        return value == null ? 0 : value;
+    }
+
+    private static class Bucket {
+
+        private long sampleCount;
+
+        private final Metric cpu = new Metric();
+
+        private final Metric memory = new Metric();
+
+        private final Metric gpu = new Metric();
+    }
+
+    private static class Metric {
+
+        private final long[] histogram = new long[MetricStats.BINS];
+
+        private long count;
+
+        private BigDecimal sum = BigDecimal.ZERO;
+
+        private BigDecimal min;
+
+        private BigDecimal max;
+
+        private void add(Integer count, BigDecimal sum, BigDecimal min, BigDecimal max) {
+            this.count += valueOf(count);
+            if (sum != null) {
+                this.sum = this.sum.add(sum);
+            }
+            if (min != null && (this.min == null || min.compareTo(this.min) < 0)) {
+                this.min = min;
+            }
+            if (max != null && (this.max == null || max.compareTo(this.max) > 0)) {
+                this.max = max;
+            }
+        }
+
+        private BigDecimal avg() {
+            return count == 0 ? null : sum.divide(BigDecimal.valueOf(count), 2, RoundingMode.HALF_UP);
+        }
+
+        /**
+         * 与 SQL 中的计算方式一致：第一个累计数达到 95% 的区间，限制在实际最小/最大值之间
+         */
+        private BigDecimal p95() {
+            long total = 0;
+            for (long binCount : histogram) {
+                total += binCount;
+            }
+            if (total == 0 || min == null || max == null) {
+                return null;
+            }
+            long threshold = (long) Math.ceil(0.95 * total);
+            long cumulative = 0;
+            int bin = MetricStats.BINS - 1;
+            for (int i = 0; i < MetricStats.BINS; i++) {
+                cumulative += histogram[i];
+                if (cumulative >= threshold) {
+                    bin = i;
+                    break;
+                }
+            }
+            return BigDecimal.valueOf(bin).max(min).min(max);
+        }
+    }
+}
@@ -0,0 +1,370 @@
+package com.gdairport.push;
+
+import com.gdairport.cache.AlgorithmAssignmentListener;
+import com.gdairport.cache.AlgorithmAssignmentTable;
+import com.gdairport.domain.ResultCode;
+import com.gdairport.domain.entity.Device;
+import com.gdairport.domain.vo.DevicePushStatsVo;
+import com.gdairport.exception.BadRequestException;
+import com.gdairport.metrics.DeviceLatestStateStore;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 设备配置变更推送（SSE）
+ * <p>
+ * 设备保持一个 SSE 长连接，算法分配或设备状态变化时只推送一个很小的事件（新的 ETag 或状态），
+ * 设备收到后再按需拉取 /algorithms/assignments/{deviceId}。
+ * 连接基于 Servlet 异步请求，空闲时不占用线程；每个连接在本节点只保存一个 SseEmitter 和数组中的一个槽位。
+ * 推送交给多个发送线程，按设备ID分片（同一设备的事件保持顺序），调用方（分配表、RabbitMQ 消费者）只入队不等待；
+ * 发送队列满时丢弃事件，设备在连接超时重连时会收到当前 ETag，因此不会永久错过变更。
+ * Servlet 写入是阻塞的，客户端停止读取时会卡住发送线程：独立的检查线程定时检查每个发送线程，单次写入超过 write-timeout 时
+ * 移除该连接，并为该分片换一个新的发送线程继续处理队列，卡住的线程在写入失败后自行退出。
+ * 因此一个慢连接最多让同一分片的推送延迟约两个 write-timeout（检查间隔 + 超时），不影响其他分片。
+ * 卡住的写入持有 SseEmitter 的锁，结束连接（completeWithError）也要等这把锁，因此放到一次性的线程中执行，
+ * 等 Tomcat 的 socket 写超时让阻塞的写入失败后再完成，检查线程本身不会被卡住。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DevicePushRegistry implements AlgorithmAssignmentListener {
+
+    private static final SseEmitter[] NO_EMITTERS = new SseEmitter[0];
+
+    private static final String EVENT_ASSIGNMENT = "assignment";
+    private static final String EVENT_STATUS = "status";
+
+    private final AlgorithmAssignmentTable algorithmAssignmentTable;
+
+    private final DeviceLatestStateStore deviceLatestStateStore;
+
+    // 连接超时后由设备重连
+    @Value("${device.push.timeout}")
+    private Duration timeout;
+
+    @Value("${device.push.max-connections}")
+    private int maxConnections;
+
+    // 所有分片的发送队列总容量
+    @Value("${device.push.send-queue-capacity}")
+    private int sendQueueCapacity;
+
+    @Value("${device.push.senders}")
+    private int senderCount;
+
+    // 单次写入超过该时间视为客户端已停止读取
+    @Value("${device.push.write-timeout}")
+    private Duration writeTimeout;
+
+    // 同一设备通常只有一个连接，用数组而不是集合保存，减少每个连接的对象开销
+    private final Map<Long, SseEmitter[]> subscribers = new ConcurrentHashMap<>();
+
+    private final AtomicInteger connections = new AtomicInteger();
+
+    private final AtomicLong delivered = new AtomicLong();
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    private final AtomicLong stalled = new AtomicLong();
+
+    private Sender[] senders;
+
+    // 不使用 @Scheduled 的公共调度线程，避免与其他定时任务互相影响
+    private ScheduledExecutorService watchdog;
+
+    private volatile boolean stopped;
+
+    @PostConstruct
+    public void init() {
+        int capacity = Math.max(1, sendQueueCapacity / senderCount);
+        senders = new Sender[senderCount];
+        for (int i = 0; i < senderCount; i++) {
+            senders[i] = new Sender(i, capacity);
+            senders[i].startThread();
+        }
+        watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "device-push-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        watchdog.scheduleWithFixedDelay(this::checkStalledSenders,
+                writeTimeout.toMillis(), writeTimeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        stopped = true;
+        watchdog.shutdownNow();
+        for (Sender sender : senders) {
+            sender.thread.interrupt();
+        }
+        subscribers.values().forEach(emitters -> Arrays.stream(emitters).forEach(SseEmitter::complete));
+    }
+
+    /**
+     * 建立设备的推送连接，连接建立后立即推送当前的分配 ETag 和设备状态
+     */
+    public SseEmitter subscribe(Long deviceId) {
+        if (connections.incrementAndGet() > maxConnections) {
+            connections.decrementAndGet();
+            throw new BadRequestException(ResultCode.SERVICE_UNAVAILABLE, "推送连接数已达上限, 请稍后重试");
+        }
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        subscribers.compute(deviceId, (id, current) -> {
+            SseEmitter[] emitters = current == null ? NO_EMITTERS : current;
+            SseEmitter[] next = Arrays.copyOf(emitters, emitters.length + 1);
+            next[emitters.length] = emitter;
+            return next;
+        });
+        Runnable cleanup = () -> unsubscribe(deviceId, emitter);
+        emitter.onCompletion(cleanup);
+        emitter.onTimeout(cleanup);
+        emitter.onError(e -> cleanup.run());
+
+        send(deviceId, emitter, assignmentEvent(algorithmAssignmentTable.get(deviceId).etag()));
+        Device device = deviceLatestStateStore.getDevices().get(deviceId);
+        if (device != null && device.getStatus() != null) {
+            send(deviceId, emitter, statusEvent(device.getStatus()));
+        }
+        return emitter;
+    }
+
+    @Override
+    public void onAssignmentChanged(Long deviceId, String etag) {
+        if (subscribers.containsKey(deviceId)) {
+            dispatch(deviceId, assignmentEvent(etag));
+        }
+    }
+
+    public void onStatusChanged(Long deviceId, String status) {
+        if (subscribers.containsKey(deviceId)) {
+            dispatch(deviceId, statusEvent(status));
+        }
+    }
+
+    /**
+     * 定时发送心跳注释，及时发现已断开的连接，同时避免中间代理因空闲断开；每个分片只处理自己的设备
+     */
+    @Scheduled(fixedDelayString = "${device.push.heartbeat-interval}")
+    public void heartbeat() {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        for (Sender sender : senders) {
+            boolean queued = sender.queue.offer(() -> subscribers.forEach((deviceId, emitters) -> {
+                if (senderFor(deviceId) != sender) {
+                    return;
+                }
+                for (SseEmitter emitter : emitters) {
+                    send(deviceId, emitter, SseEmitter.event().comment("ping"));
+                }
+            }));
+            if (!queued) {
+                log.warn("推送发送队列已满, 跳过本次心跳, 分片: {}", sender.index);
+            }
+        }
+    }
+
+    /**
+     * 检查卡在写入上的发送线程：移除对应连接，并换新线程继续处理该分片的队列
+     */
+    private void checkStalledSenders() {
+        long now = System.nanoTime();
+        for (Sender sender : senders) {
+            SenderThread thread = sender.thread;
+            InFlight inFlight = thread.inFlight;
+            if (inFlight == null || now - inFlight.startedAt < writeTimeout.toNanos()) {
+                continue;
+            }
+            stalled.incrementAndGet();
+            log.warn("推送写入超时, 结束连接并更换发送线程, 设备: {}, 分片: {}", inFlight.deviceId, sender.index);
+            thread.abandoned = true;
+            sender.startThread();
+            thread.interrupt();
+            unsubscribe(inFlight.deviceId, inFlight.emitter);
+            // completeWithError 需要卡住的写入释放 emitter 的锁，不能在检查线程中等待
+            Thread closer = new Thread(() -> {
+                try {
+                    inFlight.emitter.completeWithError(new IOException("推送写入超时"));
+                } catch (Exception e) {
+                    log.debug("结束推送连接失败, 设备: {}", inFlight.deviceId, e);
+                }
+            }, "device-push-closer-" + sender.index);
+            closer.setDaemon(true);
+            closer.start();
+        }
+    }
+
+    public DevicePushStatsVo getStats() {
+        return DevicePushStatsVo.builder()
+                .connections(connections.get())
+                .devices(subscribers.size())
+                .maxConnections(maxConnections)
+                .pendingSends(Arrays.stream(senders).mapToInt(sender -> sender.queue.size()).sum())
+                .delivered(delivered.get())
+                .dropped(dropped.get())
+                .stalled(stalled.get())
+                .build();
+    }
+
+    private void dispatch(Long deviceId, SseEmitter.SseEventBuilder event) {
+        boolean queued = senderFor(deviceId).queue.offer(() -> {
+            for (SseEmitter emitter : subscribers.getOrDefault(deviceId, NO_EMITTERS)) {
+                send(deviceId, emitter, event);
+            }
+        });
+        if (!queued) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    private Sender senderFor(Long deviceId) {
+        return senders[(int) Math.floorMod(deviceId, (long) senders.length)];
+    }
+
+    private void send(Long deviceId, SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        // 在发送线程中执行时记录当前写入，供超时检查使用；订阅时的首次推送在请求线程中执行
+        SenderThread thread = Thread.currentThread() instanceof SenderThread t ? t : null;
+        if (thread != null) {
+            if (thread.abandoned) {
+                // 已被替换的线程不再继续当前任务中剩余的写入，避免与新线程并发写同一连接
+                return;
+            }
+            thread.inFlight = new InFlight(deviceId, emitter, System.nanoTime());
+        }
+        try {
+            emitter.send(event);
+            delivered.incrementAndGet();
+        } catch (IOException | IllegalStateException e) {
+            // 连接已断开或已结束
+            log.debug("推送失败, 设备: {}", deviceId, e);
+            unsubscribe(deviceId, emitter);
+            emitter.completeWithError(e);
+        } finally {
+            if (thread != null) {
+                thread.inFlight = null;
+            }
+        }
+    }
+
+    private void unsubscribe(Long deviceId, SseEmitter emitter) {
+        boolean[] removed = new boolean[1];
+        subscribers.computeIfPresent(deviceId, (id, emitters) -> {
+            int index = -1;
+            for (int i = 0; i < emitters.length; i++) {
+                if (emitters[i] == emitter) {
+                    index = i;
+                    break;
+                }
+            }
+            if (index < 0) {
+                return emitters;
+            }
+            removed[0] = true;
+            if (emitters.length == 1) {
+                return null;
+            }
+            SseEmitter[] next = new SseEmitter[emitters.length - 1];
+            System.arraycopy(emitters, 0, next, 0, index);
+            System.arraycopy(emitters, index + 1, next, index, emitters.length - index - 1);
+            return next;
+        });
+        // 完成、超时、出错的回调可能先后触发多次，只在真正移除时计数
+        if (removed[0]) {
+            connections.decrementAndGet();
+        }
+    }
+
+    /**
+     * 发送线程当前正在进行的写入
+     */
+    private record InFlight(Long deviceId, SseEmitter emitter, long startedAt) {
+    }
+
+    /**
+     * 一个发送分片：队列固定，处理队列的线程在写入卡住时可被替换
+     */
+    private final class Sender {
+
+        private final int index;
+
+        private final BlockingQueue<Runnable> queue;
+
+        private volatile SenderThread thread;
+
+        private Sender(int index, int capacity) {
+            this.index = index;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+        }
+
+        private void startThread() {
+            SenderThread next = new SenderThread(this);
+            thread = next;
+            next.start();
+        }
+    }
+
+    private final class SenderThread extends Thread {
+
+        private final Sender sender;
+
+        private volatile InFlight inFlight;
+
+        // 已被替换，完成当前写入后退出
+        private volatile boolean abandoned;
+
+        private SenderThread(Sender sender) {
+            super("device-push-sender-" + sender.index);
+            this.sender = sender;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (!stopped && !abandoned) {
+                Runnable task;
+                try {
+                    task = sender.queue.poll(1, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    continue;
+                }
+                if (task == null || abandoned) {
+                    continue;
+                }
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    log.warn("推送任务执行失败, 分片: {}", sender.index, e);
+                }
+            }
+        }
+    }
+
+    private static SseEmitter.SseEventBuilder assignmentEvent(String etag) {
+        return SseEmitter.event().name(EVENT_ASSIGNMENT).data(etag, MediaType.TEXT_PLAIN);
+    }
+
+    private static SseEmitter.SseEventBuilder statusEvent(String status) {
+        return SseEmitter.event().name(EVENT_STATUS).data(status, MediaType.TEXT_PLAIN);
+    }
+}
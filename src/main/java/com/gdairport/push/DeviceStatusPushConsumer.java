@@ -0,0 +1,28 @@
+package com.gdairport.push;
+
+import com.gdairport.domain.dto.DeviceStatusEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * 消费本节点匿名队列中的设备状态事件，转交推送通道
+ * <p>
+ * 每个节点都会收到全部状态事件，只有在本节点持有连接的设备才会被推送。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DeviceStatusPushConsumer {
+
+    private final DevicePushRegistry devicePushRegistry;
+
+    @RabbitListener(queues = "#{devicePushQueue.name}")
+    public void onStatusEvent(DeviceStatusEvent event) {
+        if (event.getDeviceId() == null || event.getStatus() == null) {
+            return;
+        }
+        devicePushRegistry.onStatusChanged(event.getDeviceId(), event.getStatus());
+    }
+}
@@ -0,0 +1,32 @@
+package com.gdairport.service;
+
+import com.gdairport.cache.AlgorithmAssignmentTable.CompiledAssignment;
+
+import java.util.List;
+
+public interface AlgorithmService {
+
+    /**
+     * 设备应运行的算法（预编译结果）
+     */
+    CompiledAssignment getAssignment(Long deviceId);
+
+    void bindDevices(Long algorithmId, List<Long> deviceIds);
+
+    void unbindDevice(Long algorithmId, Long deviceId);
+
+    /**
+     * 启动或关闭算法
+     */
+    void updateStatus(Long algorithmId, String status);
+
+    /**
+     * 切换算法当前使用的版本，版本必须已发布
+     */
+    void switchVersion(Long algorithmId, Long versionId);
+
+    /**
+     * 发布版本
+     */
+    void releaseVersion(Long versionId);
+}
@@ -3,6 +3,10 @@ package com.gdairport.service;
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.gdairport.domain.dto.CreateFolderDto;
 import com.gdairport.domain.entity.File;
+import com.gdairport.domain.vo.BatchUploadResultVo;
+import com.gdairport.domain.vo.BatchGetResultVo;
+import com.gdairport.domain.vo.FileSearchVo;
+import com.gdairport.domain.vo.FileTreeVo;
 import jakarta.servlet.http.HttpServletResponse;
 import com.gdairport.exception.NotFoundException;
 import org.springframework.web.multipart.MultipartFile;
@@ -14,12 +18,21 @@ public interface CloudFileService extends IService<File> {
 
     File getFileById(Long id);
 
+    /**
+     * 批量查询文件信息，一次查库，结果与 ids 顺序一一对应，不存在的ID found 为 false
+     */
+    List<BatchGetResultVo> batchGet(List<Long> ids);
+
     List<File> getFileListById(Long id);
 
     void fileDownload(HttpServletResponse response, Long id) throws NotFoundException;
 
+    void downloadZip(HttpServletResponse response, Long id) throws NotFoundException;
+
     void fileUpload(MultipartFile file, Long parentId, Long userId) throws NotFoundException;
 
+    List<BatchUploadResultVo> batchUpload(List<MultipartFile> files, Long parentId, Long userId) throws NotFoundException;
+
     void createFolder(CreateFolderDto folderDto, Long userId) throws NotFoundException;
 
     void rename(Long id, String newName, Long userId) throws NotFoundException;
@@ -27,4 +40,37 @@ public interface CloudFileService extends IService<File> {
     void delete(Long id, Long userId) throws NotFoundException;
 
     void move(Long id, Long newParentId, Long userId) throws NotFoundException;
+
+    /**
+     * 批量移动到同一目录，一次加锁、一个事务，任一项不合法时整体失败
+     */
+    void batchMove(List<Long> ids, Long newParentId, Long userId) throws NotFoundException;
+
+    /**
+     * 按文件名（前缀或子串）和扩展名检索，可限定在某个文件夹子树内，按 id 倒序 keyset 分页
+     * @param match PREFIX-前缀，CONTAINS-包含
+     * @param cursor 上一页返回的 nextCursor，第一页为空
+     */
+    FileSearchVo search(String keyword, String match, String extension, Long folderId, Long cursor, int limit);
+
+    /**
+     * 按路径获取文件或文件夹，如 /2026/10/T3/gate-12/clip.mp4
+     */
+    File getFileByPath(String path);
+
+    /**
+     * 按路径列出文件夹内容，空路径表示根目录
+     */
+    List<File> getFileListByPath(String path);
+
+    /**
+     * 上传到指定路径的文件夹，路径中不存在的文件夹在一个事务中自动创建
+     */
+    void uploadToPath(MultipartFile file, String path, Long userId) throws NotFoundException;
+
+    /**
+     * 一次返回文件夹下 depth 层的子树，每层每个文件夹最多 limit 个子节点
+     * @param id 文件夹ID，null 表示根目录
+     */
+    FileTreeVo getFileTree(Long id, int depth, int limit);
 }
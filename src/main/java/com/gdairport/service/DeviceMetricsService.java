@@ -0,0 +1,46 @@
+package com.gdairport.service;
+
+import com.gdairport.domain.dto.DeviceMetricDto;
+import com.gdairport.domain.entity.DeviceMetric;
+import com.gdairport.domain.vo.MetricsIngestStatsVo;
+import com.gdairport.domain.vo.MetricsPartitionVo;
+import com.gdairport.domain.vo.MetricsSeriesVo;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface DeviceMetricsService {
+
+    void ingest(List<DeviceMetricDto> samples);
+
+    /**
+     * 同步写入一批指标（MQ 消费者调用），失败时抛出异常
+     */
+    void persist(List<DeviceMetricDto> samples);
+
+    MetricsIngestStatsVo getIngestStats();
+
+    /**
+     * 查询单个设备在 [from, to) 内的原始指标
+     */
+    List<DeviceMetric> listDeviceMetrics(Long deviceId, LocalDateTime from, LocalDateTime to, int limit);
+
+    List<MetricsPartitionVo> listPartitions();
+
+    /**
+     * 设备趋势曲线，按时间范围和 maxPoints 自动选择汇总粒度
+     */
+    MetricsSeriesVo getDeviceSeries(Long deviceId, LocalDateTime from, LocalDateTime to, int maxPoints);
+
+    /**
+     * 区域趋势曲线（区域内设备按桶合并）
+     */
+    MetricsSeriesVo getRegionSeries(Long regionId, LocalDateTime from, LocalDateTime to, int maxPoints);
+
+    /**
+     * 把所有设备（或指定区域及下级区域的设备）的最新状态以 JSON 流式写出（不构造中间对象列表）
+     */
+    void writeLatestSnapshot(Long regionId, OutputStream out) throws IOException;
+}
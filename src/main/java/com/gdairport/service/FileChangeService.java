@@ -0,0 +1,16 @@
+package com.gdairport.service;
+
+import com.gdairport.domain.vo.FileChangesVo;
+
+public interface FileChangeService {
+
+    /**
+     * 游标之后的变更，游标早于已清理的日志时返回 410，客户端需全量同步后从 {@link #getHead()} 继续
+     */
+    FileChangesVo getChanges(long since, int limit);
+
+    /**
+     * 当前最新的已稳定序号，全量同步前获取，同步完成后以此为游标增量拉取
+     */
+    long getHead();
+}
@@ -0,0 +1,135 @@
+package com.gdairport.service.Impl;
+
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import com.gdairport.cache.AlgorithmAssignmentTable;
+import com.gdairport.cache.AlgorithmAssignmentTable.CompiledAssignment;
+import com.gdairport.domain.entity.AlgorithmDefinition;
+import com.gdairport.domain.entity.AlgorithmVersion;
+import com.gdairport.domain.entity.DeviceAlgorithmRel;
+import com.gdairport.exception.BadRequestException;
+import com.gdairport.exception.NotFoundException;
+import com.gdairport.mapper.AlgorithmDefinitionMapper;
+import com.gdairport.mapper.AlgorithmVersionMapper;
+import com.gdairport.mapper.DeviceAlgorithmRelMapper;
+import com.gdairport.service.AlgorithmService;
+import com.gdairport.service.ModelDistributionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AlgorithmServiceImpl implements AlgorithmService {
+
+    private static final String STATUS_ACTIVE = "ACTIVE";
+    private static final String STATUS_INACTIVE = "INACTIVE";
+    private static final String STATUS_RELEASE = "RELEASE";
+
+    private final AlgorithmDefinitionMapper algorithmDefinitionMapper;
+
+    private final AlgorithmVersionMapper algorithmVersionMapper;
+
+    private final DeviceAlgorithmRelMapper deviceAlgorithmRelMapper;
+
+    private final AlgorithmAssignmentTable algorithmAssignmentTable;
+
+    private final ModelDistributionService modelDistributionService;
+
+    @Override
+    public CompiledAssignment getAssignment(Long deviceId) {
+        return algorithmAssignmentTable.get(deviceId);
+    }
+
+    @Override
+    public void bindDevices(Long algorithmId, List<Long> deviceIds) {
+        getDefinition(algorithmId);
+        Set<Long> toBind = new LinkedHashSet<>(deviceIds);
+        List<DeviceAlgorithmRel> existing = deviceAlgorithmRelMapper.selectList(Wrappers.<DeviceAlgorithmRel>lambdaQuery()
+                .eq(DeviceAlgorithmRel::getAlgorithmId, algorithmId)
+                .in(DeviceAlgorithmRel::getDeviceId, toBind));
+        existing.forEach(rel -> toBind.remove(rel.getDeviceId()));
+        for (Long deviceId : toBind) {
+            try {
+                deviceAlgorithmRelMapper.insert(DeviceAlgorithmRel.builder()
+                        .algorithmId(algorithmId)
+                        .deviceId(deviceId)
+                        .build());
+            } catch (DuplicateKeyException e) {
+                // 并发分配同一设备，已存在即可
+            }
+            algorithmAssignmentTable.deviceRelationsChanged(deviceId);
+        }
+    }
+
+    @Override
+    public void unbindDevice(Long algorithmId, Long deviceId) {
+        int deleted = deviceAlgorithmRelMapper.delete(Wrappers.<DeviceAlgorithmRel>lambdaQuery()
+                .eq(DeviceAlgorithmRel::getAlgorithmId, algorithmId)
+                .eq(DeviceAlgorithmRel::getDeviceId, deviceId));
+        if (deleted == 0) {
+            throw new NotFoundException("设备未分配该算法, 算法: " + algorithmId + ", 设备: " + deviceId);
+        }
+        algorithmAssignmentTable.deviceRelationsChanged(deviceId);
+    }
+
+    @Override
+    public void updateStatus(Long algorithmId, String status) {
+        if (!STATUS_ACTIVE.equals(status) && !STATUS_INACTIVE.equals(status)) {
+            throw new BadRequestException("算法状态只能是 ACTIVE 或 INACTIVE");
+        }
+        AlgorithmDefinition definition = getDefinition(algorithmId);
+        definition.setStatus(status);
+        algorithmDefinitionMapper.updateById(definition);
+        algorithmAssignmentTable.definitionChanged(algorithmId);
+    }
+
+    @Override
+    public void switchVersion(Long algorithmId, Long versionId) {
+        AlgorithmDefinition definition = getDefinition(algorithmId);
+        AlgorithmVersion version = getVersion(versionId);
+        if (!algorithmId.equals(version.getDefinitionId())) {
+            throw new BadRequestException("版本不属于该算法");
+        }
+        if (!STATUS_RELEASE.equals(version.getStatus())) {
+            throw new BadRequestException("只能切换到已发布的版本");
+        }
+        definition.setVersionId(versionId);
+        algorithmDefinitionMapper.updateById(definition);
+        algorithmAssignmentTable.definitionChanged(algorithmId);
+    }
+
+    @Override
+    public void releaseVersion(Long versionId) {
+        AlgorithmVersion version = getVersion(versionId);
+        if (STATUS_RELEASE.equals(version.getStatus())) {
+            return;
+        }
+        // 发布前计算模型哈希，设备据此判断是否需要重新下载
+        modelDistributionService.computeDigest(version);
+        version.setStatus(STATUS_RELEASE);
+        algorithmVersionMapper.updateById(version);
+        algorithmAssignmentTable.versionChanged(versionId);
+    }
+
+    private AlgorithmDefinition getDefinition(Long algorithmId) {
+        AlgorithmDefinition definition = algorithmDefinitionMapper.selectById(algorithmId);
+        if (definition == null) {
+            throw new NotFoundException("算法不存在, id: " + algorithmId);
+        }
+        return definition;
+    }
+
+    private AlgorithmVersion getVersion(Long versionId) {
+        AlgorithmVersion version = algorithmVersionMapper.selectById(versionId);
+        if (version == null) {
+            throw new NotFoundException("算法版本不存在, id: " + versionId);
+        }
+        return version;
+    }
+}
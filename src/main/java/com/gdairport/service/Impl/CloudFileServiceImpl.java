@@ -2,17 +2,26 @@ package com.gdairport.service.Impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.toolkit.IdWorker;
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 
+import com.gdairport.cache.LocalObjectCache;
+import com.gdairport.domain.ResultCode;
 import com.gdairport.domain.dto.CreateFolderDto;
 import com.gdairport.domain.entity.File;
+import com.gdairport.domain.vo.BatchUploadResultVo;
+import com.gdairport.domain.vo.BatchGetResultVo;
+import com.gdairport.domain.vo.FileSearchVo;
+import com.gdairport.domain.vo.FileTreeVo;
 import com.gdairport.exception.BadRequestException;
 import com.gdairport.exception.FileStorageException;
+import com.gdairport.file.FileChangeEvent;
+import com.gdairport.file.FolderPathTrie;
 import com.gdairport.lock.HierarchicalLockHelper;
 import com.gdairport.mapper.FileMapper;
 import com.gdairport.service.CloudFileService;
-import com.gdairport.util.MinIOUtil;
-import io.minio.ObjectWriteResponse;
+import com.gdairport.service.StorageQuotaService;
+import com.gdairport.storage.StorageBackend;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -21,7 +30,12 @@ import org.redisson.api.RLock;
 import org.redisson.api.RReadWriteLock;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
@@ -31,10 +45,28 @@ import org.springframework.web.multipart.MultipartFile;
 import java.io.*;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
 import java.util.regex.Pattern;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 @Slf4j
 @Service
@@ -47,13 +79,50 @@ public class CloudFileServiceImpl extends ServiceImpl<FileMapper, File> implemen
     // 文件名最大长度（对应数据库varchar(255)限制）
     private static final int MAX_FILENAME_LENGTH = 255;
 
-    private final MinIOUtil minIOUtil;
+    // 与 MySQL 的 ngram_token_size 一致，更短的关键字无法使用全文索引
+    private static final int NGRAM_TOKEN_SIZE = 2;
+
+    private static final String MATCH_PREFIX = "PREFIX";
+
+    // 已压缩格式，打包时不再压缩
+    private static final Set<String> COMPRESSED_EXTENSIONS = Set.of(
+            "jpg", "jpeg", "png", "gif", "webp", "heic",
+            "mp4", "mov", "avi", "mkv", "flv", "webm", "h264", "h265",
+            "mp3", "aac", "m4a", "ogg",
+            "zip", "gz", "tgz", "bz2", "xz", "7z", "rar", "pt");
+
+    private final StorageBackend storageBackend;
 
     private final HierarchicalLockHelper hierarchicalLockHelper;
 
+    private final LocalObjectCache localObjectCache;
+
+    private final ThreadPoolTaskExecutor storageIoExecutor;
+
+    private final StorageQuotaService storageQuotaService;
+
+    private final FolderPathTrie folderPathTrie;
+
+    private final ApplicationEventPublisher applicationEventPublisher;
+
     @Value("${spring.servlet.multipart.max-file-size}")
     private DataSize maxFileSize;
 
+    @Value("${file.batch.max-files}")
+    private int batchMaxFiles;
+
+    // 打包下载时提前打开的对象流数量
+    @Value("${file.zip.prefetch}")
+    private int zipPrefetch;
+
+    // 重命名、移动的并发控制方式：lock-分布式读写锁，optimistic-版本号乐观锁
+    @Value("${file.concurrency.mode}")
+    private String concurrencyMode;
+
+    // 乐观模式下冲突后的最大尝试次数
+    @Value("${file.concurrency.max-attempts}")
+    private int maxAttempts;
+
     // 初始化后再注入、防止循环依赖
     @Lazy
     @Autowired
@@ -67,6 +136,28 @@ public class CloudFileServiceImpl extends ServiceImpl<FileMapper, File> implemen
         return this.getById(id);
     }
 
+    @Override
+    public List<BatchGetResultVo> batchGet(List<Long> ids) {
+        // 去重并排序后查询，相同的ID集合命中同一条二级缓存
+        TreeSet<Long> distinct = new TreeSet<>();
+        for (Long id : ids) {
+            if (id == null || id <= 0) {
+                throw new BadRequestException("文件ID无效: " + id);
+            }
+            distinct.add(id);
+        }
+        Map<Long, File> byId = new HashMap<>(distinct.size() * 2);
+        for (File file : baseMapper.selectBatchIds(distinct)) {
+            byId.put(file.getId(), file);
+        }
+        List<BatchGetResultVo> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            File file = byId.get(id);
+            result.add(new BatchGetResultVo(id, file != null, file));
+        }
+        return result;
+    }
+
     @Override
     public List<File> getFileListById(Long id) {
         if (id != null) {
@@ -90,6 +181,79 @@ public class CloudFileServiceImpl extends ServiceImpl<FileMapper, File> implemen
         return this.list(wrapper);
     }
 
+    @Override
+    public FileTreeVo getFileTree(Long id, int depth, int limit) {
+        FileTreeVo root;
+        if (id == null) {
+            root = FileTreeVo.builder().name("").folder(true).build();
+        } else {
+            File folder = this.getById(id);
+            if (folder == null) {
+                throw new NotFoundException(String.format("文件夹不存在, id: %d", id));
+            }
+            if (!Boolean.TRUE.equals(folder.getFolder())) {
+                throw new BadRequestException(String.format("指定的ID不是一个文件夹, id: %d", id));
+            }
+            root = toTreeVo(folder);
+        }
+        // 逐层展开：每层只展开上一层保留下来的文件夹，每层一条查询、最多返回 limit + 1 行
+        List<FileTreeVo> parents = List.of(root);
+        List<Long> parentKeys = List.of(id == null ? 0L : id);
+        for (int level = 1; level <= depth && !parents.isEmpty(); level++) {
+            List<File> rows = baseMapper.listChildrenCapped(parentKeys, limit + 1, limit + 1);
+            Map<Long, List<File>> byParent = new HashMap<>();
+            for (File row : rows) {
+                byParent.computeIfAbsent(treeKey(row.getParentId()), k -> new ArrayList<>()).add(row);
+            }
+            // 本层超出上限时，最后一行所属的父目录之后的父目录没有取到子节点，也标记为截断
+            Long cutKey = rows.size() > limit ? treeKey(rows.get(rows.size() - 1).getParentId()) : null;
+            boolean afterCut = false;
+            int remaining = limit;
+            List<FileTreeVo> nextParents = new ArrayList<>();
+            List<Long> nextKeys = new ArrayList<>();
+            for (int i = 0; i < parents.size(); i++) {
+                List<File> children = byParent.getOrDefault(parentKeys.get(i), List.of());
+                int take = Math.min(children.size(), remaining);
+                remaining -= take;
+                List<FileTreeVo> result = new ArrayList<>(take);
+                for (File child : children.subList(0, take)) {
+                    FileTreeVo childVo = toTreeVo(child);
+                    if (Boolean.TRUE.equals(child.getFolder()) && level < depth) {
+                        nextParents.add(childVo);
+                        nextKeys.add(child.getId());
+                    }
+                    result.add(childVo);
+                }
+                FileTreeVo parent = parents.get(i);
+                parent.setChildren(result);
+                parent.setTruncated(children.size() > take || afterCut);
+                if (parentKeys.get(i).equals(cutKey)) {
+                    afterCut = true;
+                }
+            }
+            parents = nextParents;
+            parentKeys = nextKeys;
+        }
+        return root;
+    }
+
+    private static Long treeKey(Long parentId) {
+        return parentId == null ? 0L : parentId;
+    }
+
+    private static FileTreeVo toTreeVo(File file) {
+        return FileTreeVo.builder()
+                .id(file.getId())
+                .name(file.getName())
+                .folder(file.getFolder())
+                .size(file.getSize())
+                .totalSize(file.getTotalSize())
+                .fileCount(file.getFileCount())
+                .folderCount(file.getFolderCount())
+                .updated(file.getUpdated())
+                .build();
+    }
+
     @Override
     public void fileDownload(HttpServletResponse response, Long id) throws NotFoundException {
         if (id == null || id <= 0) {
@@ -127,11 +291,16 @@ public class CloudFileServiceImpl extends ServiceImpl<FileMapper, File> implemen
             // 设置为通用的二进制流类型，强制下载
             response.setContentType("application/octet-stream");
             response.setContentLengthLong(localFile.getSize());
-            try (InputStream is = minIOUtil.getObject(storageId)) {
-                // 使用 Java 9+ 的 transferTo 方法，自动处理缓冲区和读写
-                is.transferTo(response.getOutputStream());
+            try {
+                OutputStream out = response.getOutputStream();
+                // 优先命中本地磁盘缓存，未命中时边读对象存储边写出并落盘
+                if (!localObjectCache.serve(storageId, localFile.getSize(), out)) {
+                    try (InputStream is = storageBackend.get(storageId)) {
+                        localObjectCache.writeThrough(storageId, is, localFile.getSize(), out);
+                    }
+                }
                 // 确保响应流被刷新
-                response.getOutputStream().flush();
+                out.flush();
             } catch (Exception e) {
                 log.error("文件下载失败, storageId: {}", storageId, e);
                 throw new FileStorageException(String.format("文件下载失败: %s", e.getMessage()), e);
@@ -141,53 +310,532 @@ public class CloudFileServiceImpl extends ServiceImpl<FileMapper, File> implemen
         }
     }
 
-    // 1. 先执行 I/O（上传） -> 2. 再获取锁 -> 3. 最后执行事务（写数据库）（失败回滚产生的孤儿数据节点可以定期清理）
     @Override
-    public void fileUpload(MultipartFile file, Long parentId, Long userId) throws NotFoundException {
+    public void downloadZip(HttpServletResponse response, Long id) throws NotFoundException {
+        if (id == null || id <= 0) {
+            throw new BadRequestException("文件夹ID无效");
+        }
+        if (response == null) {
+            throw new BadRequestException("响应对象不能为空");
+        }
+        File folder = this.getById(id);
+        if (folder == null) {
+            throw new NotFoundException(String.format("文件夹不存在, id: %d", id));
+        }
+        if (!Boolean.TRUE.equals(folder.getFolder())) {
+            throw new BadRequestException(String.format("指定的ID不是一个文件夹, id: %d", id));
+        }
+        // 一次查询拿到整个子树，锁列表也由这次结果生成，不再单独查询子孙节点
+        List<File> nodes = this.baseMapper.listDescendantFiles(id);
+        List<RReadWriteLock> locks = new ArrayList<>();
+        locks.addAll(hierarchicalLockHelper.getAncestorReadWriteLocks(folder.getParentId()));
+        locks.addAll(hierarchicalLockHelper.getReadWriteLocks(nodes.stream().map(File::getId).toList()));
+        RLock multiLock = hierarchicalLockHelper.lockAllRead(locks);
+        try {
+            Map<Long, File> nodeById = new HashMap<>();
+            nodes.forEach(node -> nodeById.put(node.getId(), node));
+            Map<Long, String> pathById = new HashMap<>();
+            List<File> files = new ArrayList<>();
+            List<String> folderPaths = new ArrayList<>();
+            for (File node : nodes) {
+                String path = zipEntryPath(node, id, nodeById, pathById);
+                if (Boolean.TRUE.equals(node.getFolder())) {
+                    folderPaths.add(path + "/");
+                } else if (StringUtils.hasText(node.getStorageId())) {
+                    files.add(node);
+                }
+            }
 
+            response.reset();
+            response.setCharacterEncoding("UTF-8");
+            response.addHeader("Content-Disposition", "attachment;filename="
+                    + URLEncoder.encode(folder.getName() + ".zip", StandardCharsets.UTF_8));
+            response.setContentType("application/zip");
+            writeZip(response.getOutputStream(), files, folderPaths, pathById);
+        } catch (IOException e) {
+            log.error("打包下载失败, id: {}", id, e);
+            throw new FileStorageException(String.format("打包下载失败: %s", e.getMessage()), e);
+        } finally {
+            hierarchicalLockHelper.unlockAll(multiLock);
+        }
+    }
+
+    /**
+     * 边读边写 ZIP：对象流按顺序提前打开 zipPrefetch 个，整个过程不在内存中缓存完整文件
+     */
+    private void writeZip(OutputStream out, List<File> files, List<String> folderPaths,
+                          Map<Long, String> pathById) throws IOException {
+        Deque<CompletableFuture<InputStream>> prefetched = new ArrayDeque<>();
+        int next = 0;
+        try {
+            ZipOutputStream zos = new ZipOutputStream(new BufferedOutputStream(out, 64 * 1024));
+            for (String folderPath : folderPaths) {
+                zos.putNextEntry(new ZipEntry(folderPath));
+                zos.closeEntry();
+            }
+            for (File file : files) {
+                while (next < files.size() && prefetched.size() < Math.max(zipPrefetch, 1)) {
+                    String storageId = files.get(next++).getStorageId();
+                    prefetched.addLast(CompletableFuture.supplyAsync(() -> openObject(storageId), storageIoExecutor));
+                }
+                CompletableFuture<InputStream> current = prefetched.removeFirst();
+                // 已压缩的媒体文件不再压缩，只存储
+                zos.setLevel(isCompressed(file.getName()) ? Deflater.NO_COMPRESSION : Deflater.DEFAULT_COMPRESSION);
+                zos.putNextEntry(new ZipEntry(pathById.get(file.getId())));
+                try (InputStream is = current.join()) {
+                    is.transferTo(zos);
+                } catch (CompletionException e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    throw new IOException(String.format("读取对象失败: %s", file.getStorageId()), cause);
+                }
+                zos.closeEntry();
+            }
+            zos.finish();
+            zos.flush();
+        } finally {
+            // 客户端中断等异常情况下关闭已经提前打开的对象流
+            for (CompletableFuture<InputStream> future : prefetched) {
+                future.thenAccept(is -> {
+                    try {
+                        is.close();
+                    } catch (IOException ignored) {
+                        // 关闭失败不影响主流程
+                    }
+                });
+            }
+        }
+    }
+
+    private InputStream openObject(String storageId) {
+        try {
+            return storageBackend.get(storageId);
+        } catch (Exception e) {
+            throw new FileStorageException(String.format("读取对象失败: %s", storageId), e);
+        }
+    }
+
+    /**
+     * 计算节点在 ZIP 中的路径，根目录为下载的文件夹本身
+     */
+    private String zipEntryPath(File node, Long rootId, Map<Long, File> nodeById, Map<Long, String> pathById) {
+        String cached = pathById.get(node.getId());
+        if (cached != null) {
+            return cached;
+        }
+        String path;
+        if (node.getId().equals(rootId)) {
+            path = node.getName();
+        } else {
+            path = zipEntryPath(nodeById.get(node.getParentId()), rootId, nodeById, pathById) + "/" + node.getName();
+        }
+        pathById.put(node.getId(), path);
+        return path;
+    }
+
+    private boolean isCompressed(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        return dot >= 0 && COMPRESSED_EXTENSIONS.contains(fileName.substring(dot + 1).toLowerCase());
+    }
+
+    @Override
+    public FileSearchVo search(String keyword, String match, String extension, Long folderId, Long cursor, int limit) {
+        // 文件名中不允许出现双引号，去掉后不影响结果，同时避免破坏全文检索短语
+        String term = keyword == null ? "" : keyword.replace("\"", "").trim();
+        String ext = StringUtils.hasText(extension)
+                ? StringUtils.trimLeadingCharacter(extension.trim(), '.').toLowerCase() : null;
+        if (term.isEmpty() && !StringUtils.hasText(ext)) {
+            throw new BadRequestException("关键字和扩展名不能同时为空");
+        }
+        if (folderId != null) {
+            File folder = this.getById(folderId);
+            if (folder == null) {
+                throw new NotFoundException("文件夹不存在, id: " + folderId);
+            }
+            if (!Boolean.TRUE.equals(folder.getFolder())) {
+                throw new BadRequestException("检索范围必须是文件夹, id: " + folderId);
+            }
+        }
+        String pattern = null;
+        String fulltext = null;
+        if (!term.isEmpty()) {
+            String escaped = term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+            if (MATCH_PREFIX.equals(match)) {
+                pattern = escaped + "%";
+            } else {
+                pattern = "%" + escaped + "%";
+                // 先用 ngram 索引找出候选，LIKE 只在候选上精确过滤
+                if (term.codePointCount(0, term.length()) >= NGRAM_TOKEN_SIZE) {
+                    fulltext = "\"" + term + "\"";
+                }
+            }
+        }
+        // 多取一条判断是否还有下一页
+        List<File> rows = baseMapper.searchByName(pattern, fulltext, ext, folderId, cursor, limit + 1);
+        boolean hasMore = rows.size() > limit;
+        List<File> page = hasMore ? rows.subList(0, limit) : rows;
+        return FileSearchVo.builder()
+                .files(page)
+                .nextCursor(hasMore ? page.get(page.size() - 1).getId() : null)
+                .build();
+    }
+
+    @Override
+    public File getFileByPath(String path) {
+        List<String> segments = FolderPathTrie.parse(path);
+        if (segments.isEmpty()) {
+            throw new BadRequestException("路径不能为空");
+        }
+        Long parentId = resolveFolder(segments.subList(0, segments.size() - 1), path);
+        File file = findChild(parentId, segments.get(segments.size() - 1));
         if (file == null) {
-            throw new BadRequestException("文件对象不能为空");
+            throw new NotFoundException("路径不存在: " + path);
         }
+        return file;
+    }
+
+    @Override
+    public List<File> getFileListByPath(String path) {
+        return getFileListById(resolveFolder(FolderPathTrie.parse(path), path));
+    }
+
+    @Override
+    public void uploadToPath(MultipartFile file, String path, Long userId) throws NotFoundException {
         if (userId == null || userId <= 0) {
             throw new BadRequestException("用户ID无效");
         }
-        long fileSize = file.getSize();
-        if (fileSize <= 0) {
-            throw new BadRequestException("文件大小无效");
+        List<String> segments = FolderPathTrie.parse(path);
+        segments.forEach(this::validateFileName);
+        fileUpload(file, ensureFolders(segments, userId, path), userId);
+    }
+
+    /**
+     * 解析文件夹路径，返回文件夹ID（null 表示根目录），不存在时抛出 404
+     */
+    private Long resolveFolder(List<String> segments, String path) {
+        FolderPathTrie.Resolution resolution = resolveExisting(segments);
+        if (resolution.matched() < segments.size()) {
+            throw new NotFoundException("文件夹不存在: " + path);
         }
-        if (fileSize > maxFileSize.toBytes()) {
-            throw new BadRequestException(String.format(
-                    "文件大小超过限制，最大允许 %.2fMB", (double) maxFileSize.toBytes() / (1024 * 1024)
-            ));
+        return resolution.folderId();
+    }
+
+    /**
+     * 先在路径树中匹配，未完全命中时（路径确实不存在，或路径树尚未收到其他节点的变更）从未命中处逐级查询数据库
+     */
+    private FolderPathTrie.Resolution resolveExisting(List<String> segments) {
+        FolderPathTrie.Resolution resolution = folderPathTrie.resolve(segments);
+        Long folderId = resolution.folderId();
+        int matched = resolution.matched();
+        while (matched < segments.size()) {
+            File child = findChild(folderId, segments.get(matched));
+            if (child == null || !Boolean.TRUE.equals(child.getFolder())) {
+                break;
+            }
+            folderId = child.getId();
+            matched++;
         }
-        String originalFilename = file.getOriginalFilename();
-        if (!StringUtils.hasText(originalFilename)) {
-            throw new BadRequestException("文件名不能为空");
+        return new FolderPathTrie.Resolution(folderId, matched);
+    }
+
+    /**
+     * 按父目录和名称查询，命中 uk_parent_name 唯一索引
+     */
+    private File findChild(Long parentId, String name) {
+        return this.getOne(Wrappers.<File>lambdaQuery()
+                .apply("parent_id_normalized = {0}", parentId == null ? 0L : parentId)
+                .eq(File::getName, name));
+    }
+
+    /**
+     * 确保路径上的文件夹都存在，返回最后一级文件夹ID；并发创建同名文件夹时重新解析一次
+     */
+    private Long ensureFolders(List<String> segments, Long userId, String path) {
+        for (int attempt = 1; ; attempt++) {
+            FolderPathTrie.Resolution existing = resolveExisting(segments);
+            if (existing.matched() == segments.size()) {
+                return existing.folderId();
+            }
+            List<RReadWriteLock> ancestorLocks = hierarchicalLockHelper.getAncestorReadWriteLocks(existing.folderId());
+            RLock multiLock = hierarchicalLockHelper.lockAllRead(ancestorLocks);
+            try {
+                return retryOnConflict("创建文件夹", existing.folderId(), () -> cloudFileServiceImpl.createFoldersWithTransaction(
+                        existing.folderId(), segments.subList(existing.matched(), segments.size()), userId));
+            } catch (DuplicateKeyException e) {
+                if (attempt >= 2) {
+                    throw new BadRequestException("路径中存在同名文件, 无法创建文件夹: " + path);
+                }
+            } finally {
+                hierarchicalLockHelper.unlockAll(multiLock);
+            }
         }
-        validateFileName(originalFilename);
+    }
+
+    /**
+     * 在 parentId 下逐级创建 names 对应的文件夹，全部成功或全部回滚
+     * @return 最后一级文件夹ID
+     */
+    @Transactional
+    public Long createFoldersWithTransaction(Long parentId, List<String> names, Long userId) {
+        if (parentId != null && this.getById(parentId) == null) {
+            throw new NotFoundException(String.format("父文件夹不存在, id: %d", parentId));
+        }
+        Long currentId = parentId;
+        for (String name : names) {
+            File folder = File.builder()
+                    .name(name)
+                    .parentId(currentId)
+                    .folder(true)
+                    .createdBy(userId)
+                    .updatedBy(userId)
+                    .size(0L)
+                    .build();
+            if (!this.save(folder)) {
+                throw new FileStorageException(String.format("文件夹创建失败: %s", name));
+            }
+            applyAggregateDelta(currentId, 0, 0, 1);
+            applicationEventPublisher.publishEvent(FileChangeEvent.created(folder, userId));
+            currentId = folder.getId();
+        }
+        return currentId;
+    }
+
+    // 1. 先执行 I/O（上传） -> 2. 再获取锁 -> 3. 最后执行事务（写数据库）（失败回滚产生的孤儿数据节点可以定期清理）
+    @Override
+    public void fileUpload(MultipartFile file, Long parentId, Long userId) throws NotFoundException {
+
+        if (userId == null || userId <= 0) {
+            throw new BadRequestException("用户ID无效");
+        }
+        String originalFilename = validateUploadFile(file);
+        long fileSize = file.getSize();
         long id = IdWorker.getId();
         String uuid = UUID.randomUUID().toString();
+        // 写入对象存储前预留配额，记录落库后按实际结果结算
+        StorageQuotaService.Reservation reservation = storageQuotaService.reserve(userId, parentId, fileSize);
+        long committed = 0;
         try {
-            ObjectWriteResponse response = minIOUtil.uploadFile(file, uuid, file.getContentType());
-            log.info("文件成功上传到 MinIO. Object: {}, ETag: {}", response.object(), response.etag());
-        } catch (Exception e) {
-            log.error("文件上传到 MinIO 失败. ObjectName: {}", uuid, e);
-            throw new FileStorageException(String.format("文件存储服务异常: %s", e.getMessage()), e);
+            try (InputStream is = file.getInputStream()) {
+                storageBackend.put(uuid, is, fileSize, file.getContentType());
+                log.info("文件成功上传到对象存储. Object: {}", uuid);
+            } catch (Exception e) {
+                log.error("文件上传到对象存储失败. ObjectName: {}", uuid, e);
+                throw new FileStorageException(String.format("文件存储服务异常: %s", e.getMessage()), e);
+            }
+            // 同名由唯一索引保证，祖先只需读锁防止上传期间被删除或移动
+            List<RReadWriteLock> ancestorLocks = hierarchicalLockHelper.getAncestorReadWriteLocks(parentId);
+            RLock multiLock = hierarchicalLockHelper.lockAllRead(ancestorLocks);
+            try {
+                // 累加祖先汇总值时可能与其他事务死锁，整个事务回滚后重试
+                retryOnConflict("上传", id, () -> cloudFileServiceImpl.saveFileRecordWithTransaction(
+                        parentId, userId, id, originalFilename, fileSize, uuid));
+                committed = fileSize;
+            } catch (Exception e) {
+                log.warn("数据库记录保存失败，对象存储中可能存在孤儿文件: {}", uuid, e);
+                if (e instanceof FileStorageException
+                        || e instanceof BadRequestException
+                        || e instanceof NotFoundException) {
+                    throw e;
+                }
+                throw new FileStorageException(String.format("保存文件记录时出错: %s", e.getMessage()), e);
+            } finally {
+                hierarchicalLockHelper.unlockAll(multiLock);
+            }
+        } finally {
+            storageQuotaService.settle(reservation, committed);
         }
-        List<RReadWriteLock> ancestorLocks = hierarchicalLockHelper.getAncestorReadWriteLocks(parentId);
-        RLock multiLock = hierarchicalLockHelper.lockAllWrite(ancestorLocks);
+    }
+
+    // 1. 并行上传到对象存储 -> 2. 只加一次父目录祖先读锁 -> 3. 一个事务批量写入
+    @Override
+    public List<BatchUploadResultVo> batchUpload(List<MultipartFile> files, Long parentId, Long userId) throws NotFoundException {
+        if (files == null || files.isEmpty()) {
+            throw new BadRequestException("文件列表不能为空");
+        }
+        if (files.size() > batchMaxFiles) {
+            throw new BadRequestException(String.format("单次最多上传 %d 个文件", batchMaxFiles));
+        }
+        if (userId == null || userId <= 0) {
+            throw new BadRequestException("用户ID无效");
+        }
+        if (parentId != null && parentId <= 0) {
+            throw new BadRequestException("父文件夹ID无效");
+        }
+        BatchUploadResultVo[] results = new BatchUploadResultVo[files.size()];
+        // 同一批次内的重名文件只保留第一个；与 utf8mb4_unicode_ci 排序规则一致，比较时忽略大小写
+        Set<String> batchNames = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        List<CompletableFuture<File>> uploads = new ArrayList<>(files.size());
+        List<Integer> accepted = new ArrayList<>(files.size());
+        for (int i = 0; i < files.size(); i++) {
+            MultipartFile file = files.get(i);
+            String fileName = file != null ? file.getOriginalFilename() : null;
+            try {
+                validateUploadFile(file);
+            } catch (BadRequestException e) {
+                results[i] = BatchUploadResultVo.fail(fileName, e.getMessage());
+                uploads.add(null);
+                continue;
+            }
+            if (!batchNames.add(fileName)) {
+                results[i] = BatchUploadResultVo.fail(fileName, "同一批次中存在同名文件");
+                uploads.add(null);
+                continue;
+            }
+            uploads.add(null);
+            accepted.add(i);
+        }
+        if (accepted.isEmpty()) {
+            return Arrays.asList(results);
+        }
+        // 整批一次预留配额，配额不足时整批拒绝
+        long reservedBytes = accepted.stream().mapToLong(i -> files.get(i).getSize()).sum();
+        StorageQuotaService.Reservation reservation = storageQuotaService.reserve(userId, parentId, reservedBytes);
+        long committed = 0;
         try {
-            cloudFileServiceImpl.saveFileRecordWithTransaction(parentId, userId, id, originalFilename, fileSize, uuid);
-        } catch (Exception e) {
-            log.warn("数据库记录保存失败，MinIO 中可能存在孤儿文件: {}", uuid, e);
-            if (e instanceof FileStorageException
-                    || e instanceof BadRequestException
-                    || e instanceof NotFoundException) {
-                throw e;
+            for (int i : accepted) {
+                MultipartFile file = files.get(i);
+                uploads.set(i, CompletableFuture.supplyAsync(() -> uploadToStorage(file, parentId, userId), storageIoExecutor));
             }
-            throw new FileStorageException(String.format("保存文件记录时出错: %s", e.getMessage()), e);
+            committed = saveBatchUploads(files, uploads, results, parentId);
         } finally {
-            hierarchicalLockHelper.unlockAll(multiLock);
+            storageQuotaService.settle(reservation, committed);
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * 等待批量上传结束并写入记录，填充每个文件的结果
+     * @return 成功落库的文件总大小
+     */
+    private long saveBatchUploads(List<MultipartFile> files, List<CompletableFuture<File>> uploads,
+                                  BatchUploadResultVo[] results, Long parentId) {
+        // 等待全部上传结束，收集成功写入对象存储的记录
+        List<File> records = new ArrayList<>();
+        Map<String, Integer> indexByName = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (int i = 0; i < uploads.size(); i++) {
+            CompletableFuture<File> upload = uploads.get(i);
+            if (upload == null) {
+                continue;
+            }
+            String fileName = files.get(i).getOriginalFilename();
+            try {
+                File record = upload.join();
+                records.add(record);
+                indexByName.put(record.getName(), i);
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                log.error("批量上传中文件上传到对象存储失败: {}", fileName, cause);
+                results[i] = BatchUploadResultVo.fail(fileName, String.format("文件存储服务异常: %s", cause.getMessage()));
+            }
+        }
+
+        long committed = 0;
+        if (!records.isEmpty()) {
+            List<RReadWriteLock> ancestorLocks = hierarchicalLockHelper.getAncestorReadWriteLocks(parentId);
+            RLock multiLock = hierarchicalLockHelper.lockAllRead(ancestorLocks);
+            Set<String> conflicts;
+            try {
+                conflicts = retryOnConflict("批量上传", parentId,
+                        () -> cloudFileServiceImpl.saveFileRecordsWithTransaction(parentId, records));
+            } catch (Exception e) {
+                log.warn("批量保存文件记录失败，清理已上传的 {} 个对象", records.size(), e);
+                removeOrphanObjects(records);
+                if (e instanceof FileStorageException
+                        || e instanceof BadRequestException
+                        || e instanceof NotFoundException) {
+                    throw e;
+                }
+                throw new FileStorageException(String.format("保存文件记录时出错: %s", e.getMessage()), e);
+            } finally {
+                hierarchicalLockHelper.unlockAll(multiLock);
+            }
+            List<File> orphans = new ArrayList<>();
+            for (File record : records) {
+                int index = indexByName.get(record.getName());
+                if (conflicts.contains(record.getName())) {
+                    results[index] = BatchUploadResultVo.fail(record.getName(),
+                            String.format("同一目录下已存在同名文件或文件夹: %s", record.getName()));
+                    orphans.add(record);
+                } else {
+                    results[index] = BatchUploadResultVo.success(record.getName(), record.getId());
+                    committed += record.getSize();
+                }
+            }
+            removeOrphanObjects(orphans);
+        }
+        return committed;
+    }
+
+    /**
+     * 批量写入文件记录，同名冲突的记录不写入
+     * @return 与目录中已有文件重名的文件名
+     */
+    @Transactional
+    public Set<String> saveFileRecordsWithTransaction(Long parentId, List<File> records) {
+        if (parentId != null) {
+            File parent = this.getById(parentId);
+            if (parent == null) {
+                throw new NotFoundException(String.format("父文件夹不存在 (可能在上传时被删除), id: %d", parentId));
+            }
+            if (!Boolean.TRUE.equals(parent.getFolder())) {
+                throw new BadRequestException(String.format("指定的父ID不是一个文件夹, id: %d", parentId));
+            }
+        }
+        // 一次查询找出所有重名
+        QueryWrapper<File> wrapper = new QueryWrapper<>();
+        if (parentId == null) {
+            wrapper.isNull("parent_id");
+        } else {
+            wrapper.eq("parent_id", parentId);
+        }
+        wrapper.select("name").in("name", records.stream().map(File::getName).toList());
+        // IN 按库的排序规则匹配（忽略大小写），返回的是库中已有的名称，比较时同样忽略大小写
+        Set<String> conflicts = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        this.list(wrapper).forEach(existing -> conflicts.add(existing.getName()));
+
+        List<File> toSave = records.stream().filter(record -> !conflicts.contains(record.getName())).toList();
+        try {
+            if (!toSave.isEmpty() && !this.saveBatch(toSave)) {
+                throw new FileStorageException("批量保存文件记录到数据库失败");
+            }
+        } catch (DuplicateKeyException e) {
+            // 查询之后有并发写入了同名文件，整批回滚
+            throw new BadRequestException("同一目录下已存在同名文件或文件夹, 请重试");
+        }
+        applyAggregateDelta(parentId, toSave.stream().mapToLong(File::getSize).sum(), toSave.size(), 0);
+        toSave.forEach(record -> applicationEventPublisher.publishEvent(FileChangeEvent.created(record, record.getCreatedBy())));
+        return conflicts;
+    }
+
+    private File uploadToStorage(MultipartFile file, Long parentId, Long userId) {
+        String storageId = UUID.randomUUID().toString();
+        try (InputStream is = file.getInputStream()) {
+            storageBackend.put(storageId, is, file.getSize(), file.getContentType());
+        } catch (Exception e) {
+            throw new FileStorageException(String.format("上传对象失败: %s", e.getMessage()), e);
+        }
+        return File.builder()
+                .id(IdWorker.getId())
+                .name(file.getOriginalFilename())
+                .parentId(parentId)
+                .folder(false)
+                .createdBy(userId)
+                .updatedBy(userId)
+                .size(file.getSize())
+                .storageId(storageId)
+                .build();
+    }
+
+    private void removeOrphanObjects(List<File> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        try {
+            List<String> failed = storageBackend.deleteAll(records.stream().map(File::getStorageId).toList());
+            if (!failed.isEmpty()) {
+                log.warn("清理孤儿对象失败: {}", failed);
+            }
+        } catch (Exception e) {
+            log.warn("清理孤儿对象失败，对象存储中可能存在孤儿文件", e);
         }
     }
 
@@ -206,7 +854,6 @@ public class CloudFileServiceImpl extends ServiceImpl<FileMapper, File> implemen
                 throw new BadRequestException(String.format("指定的父ID不是一个文件夹, id: %d", parentId));
             }
         }
-        checkDuplicateName(parentId, originalFilename, null);
         File fileRecord = File.builder()
                 .id(id)
                 .name(originalFilename)
@@ -215,11 +862,17 @@ public class CloudFileServiceImpl extends ServiceImpl<FileMapper, File> implemen
                 .createdBy(userId)
                 .updatedBy(userId)
                 .size(fileSize)
-                .storageId(storageId) // 存储 MinIO 的对象名称
+                .storageId(storageId) // 存储对象存储中的对象名称
                 .build();
-        if (!this.save(fileRecord)) {
-            throw new FileStorageException("保存文件记录到数据库失败");
+        try {
+            if (!this.save(fileRecord)) {
+                throw new FileStorageException("保存文件记录到数据库失败");
+            }
+        } catch (DuplicateKeyException e) {
+            throw duplicateName(originalFilename);
         }
+        applyAggregateDelta(parentId, fileSize, 1, 0);
+        applicationEventPublisher.publishEvent(FileChangeEvent.created(fileRecord, userId));
     }
 
 
@@ -237,11 +890,11 @@ public class CloudFileServiceImpl extends ServiceImpl<FileMapper, File> implemen
         }
         validateFileName(createFolderDto.getName());
         Long parentId = createFolderDto.getParentId();
-        // 获取父目录及祖先锁, 从顶级目录文件夹到父文件夹
+        // 获取父目录及祖先读锁, 从顶级目录文件夹到父文件夹；同名由唯一索引保证
         List<RReadWriteLock> ancestorLocks = hierarchicalLockHelper.getAncestorReadWriteLocks(parentId);
-        RLock multiLock = hierarchicalLockHelper.lockAllWrite(ancestorLocks);
+        RLock multiLock = hierarchicalLockHelper.lockAllRead(ancestorLocks);
         try {
-            cloudFileServiceImpl.createFolderWithTransaction(createFolderDto, userId);
+            retryOnConflict("创建文件夹", parentId, () -> cloudFileServiceImpl.createFolderWithTransaction(createFolderDto, userId));
         } finally {
             hierarchicalLockHelper.unlockAll(multiLock);
         }
@@ -258,7 +911,6 @@ public class CloudFileServiceImpl extends ServiceImpl<FileMapper, File> implemen
                 throw new BadRequestException(String.format("指定的父ID不是一个文件夹, id: %d", createFolderDto.getParentId()));
             }
         }
-        checkDuplicateName(createFolderDto.getParentId(), createFolderDto.getName(), null);
         File localFile = File.builder()
                 .name(createFolderDto.getName())
                 .parentId(createFolderDto.getParentId())
@@ -267,9 +919,15 @@ public class CloudFileServiceImpl extends ServiceImpl<FileMapper, File> implemen
                 .updatedBy(userId)
                 .size(0L)
                 .build();
-        if (!this.saveOrUpdate(localFile)) {
-            throw new FileStorageException(String.format("文件夹创建失败: %s", createFolderDto.getName()));
+        try {
+            if (!this.save(localFile)) {
+                throw new FileStorageException(String.format("文件夹创建失败: %s", createFolderDto.getName()));
+            }
+        } catch (DuplicateKeyException e) {
+            throw duplicateName(createFolderDto.getName());
         }
+        applyAggregateDelta(createFolderDto.getParentId(), 0, 0, 1);
+        applicationEventPublisher.publishEvent(FileChangeEvent.created(localFile, userId));
     }
 
     @Override
@@ -288,12 +946,18 @@ public class CloudFileServiceImpl extends ServiceImpl<FileMapper, File> implemen
         if (newName.equals(localFile.getName())) {
             throw new BadRequestException("新文件名与当前文件名相同，无需重命名");
         }
+        if (isOptimistic()) {
+            // 只修改一行，依靠版本号和唯一索引保证正确性，不加分布式锁
+            retryOnConflict("重命名", id, () -> cloudFileServiceImpl.renameWithTransaction(id, newName, userId, null));
+            return;
+        }
         List<RReadWriteLock> allLocks = new ArrayList<>();
         allLocks.addAll(hierarchicalLockHelper.getAncestorReadWriteLocks(localFile.getParentId()));
         allLocks.addAll(hierarchicalLockHelper.getDescendantReadWriteLocks(id));
         RLock multiLock = hierarchicalLockHelper.lockAllWrite(allLocks);
         try {
-            cloudFileServiceImpl.renameWithTransaction(id, newName, userId, localFile);
+            // 加锁后重新读取，拿到最新版本号
+            retryOnConflict("重命名", id, () -> cloudFileServiceImpl.renameWithTransaction(id, newName, userId, null));
         } finally {
             hierarchicalLockHelper.unlockAll(multiLock);
         }
@@ -302,17 +966,24 @@ public class CloudFileServiceImpl extends ServiceImpl<FileMapper, File> implemen
     @Transactional
     public void renameWithTransaction(Long id, String newName, Long userId, File localFile) {
         if (localFile == null) {
-            localFile = this.getById(id);
+            // 不能走二级缓存，缓存中的旧版本号会让每次重试都以同样的方式失败
+            localFile = baseMapper.selectByIdUncached(id);
             if (localFile == null) {
                 throw new NotFoundException(String.format("文件在重命名时消失, id: %s", id));
             }
         }
-        checkDuplicateName(localFile.getParentId(), newName, id);
+        String oldName = localFile.getName();
         localFile.setName(newName.trim());
         localFile.setUpdatedBy(userId);
-        if (!this.updateById(localFile)) {
-            throw new FileStorageException(String.format("重命名失败, id: %s", id));
+        try {
+            // 带版本号条件更新，返回 false 表示读取之后记录已被修改
+            if (!this.updateById(localFile)) {
+                throw new OptimisticLockingFailureException(String.format("重命名时记录已被修改, id: %s", id));
+            }
+        } catch (DuplicateKeyException e) {
+            throw duplicateName(newName);
         }
+        applicationEventPublisher.publishEvent(FileChangeEvent.renamed(localFile, oldName, userId));
     }
 
     @Override
@@ -330,9 +1001,13 @@ public class CloudFileServiceImpl extends ServiceImpl<FileMapper, File> implemen
         List<RReadWriteLock> descendantLocks = hierarchicalLockHelper.getDescendantReadWriteLocks(id);
         RLock multiLock = hierarchicalLockHelper.lockAllWrite(descendantLocks);
         try {
-            cloudFileServiceImpl.deleteWithTransaction(localFile, id);
+            Map<Long, Long> freedByUser = retryOnConflict("删除", id,
+                    () -> cloudFileServiceImpl.deleteWithTransaction(localFile, id, userId));
+            // 事务提交后再扣减配额已使用量
+            storageQuotaService.release(freedByUser, localFile.getParentId(),
+                    freedByUser.values().stream().mapToLong(Long::longValue).sum());
         } catch (Exception e) {
-            if (e instanceof FileStorageException || e instanceof NotFoundException) {
+            if (e instanceof FileStorageException || e instanceof NotFoundException || e instanceof BadRequestException) {
                 throw e;
             }
             throw new FileStorageException(String.format("删除时发生未知错误: %s", e.getMessage()), e);
@@ -341,16 +1016,32 @@ public class CloudFileServiceImpl extends ServiceImpl<FileMapper, File> implemen
         }
     }
 
+    /**
+     * @return 每个创建人被删除的文件大小之和
+     */
     @Transactional
-    public void deleteWithTransaction(File localFile, Long id) {
+    public Map<Long, Long> deleteWithTransaction(File localFile, Long id, Long userId) {
+        // 加锁读取最新的汇总值，删除后从祖先中减去
+        List<File> current = baseMapper.selectAggregatesForUpdate(List.of(id));
+        if (current.isEmpty()) {
+            throw new NotFoundException(String.format("文件在删除时消失, id: %s", id));
+        }
+        File removed = current.get(0);
+        Map<Long, Long> freedByUser = new HashMap<>();
         if (Boolean.TRUE.equals(localFile.getFolder())) {
-            deleteFolderRecursively(localFile.getId());
+            deleteFolderRecursively(localFile.getId(), freedByUser);
         } else {
             deletePhysicalFile(localFile);
+            addFreed(freedByUser, localFile);
         }
         if (!this.removeById(id)) {
             throw new FileStorageException(String.format("删除数据库记录失败: %s", id));
         }
+        applyAggregateDelta(removed.getParentId(), -subtreeSize(removed), -subtreeFileCount(removed),
+                -subtreeFolderCount(removed));
+        // 子树中的节点随根节点一起删除，只发布根节点的事件
+        applicationEventPublisher.publishEvent(FileChangeEvent.deleted(removed, userId));
+        return freedByUser;
     }
 
     @Override
@@ -373,6 +1064,10 @@ public class CloudFileServiceImpl extends ServiceImpl<FileMapper, File> implemen
         if (newParentId != null && newParentId.equals(id)) {
             throw new BadRequestException("不能将文件或文件夹移动到自身");
         }
+        if (isOptimistic()) {
+            retryOnConflict("移动", id, () -> cloudFileServiceImpl.moveWithTransaction(id, newParentId, userId, null));
+            return;
+        }
 
         // 先加目标父文件夹及其祖先锁
         List<RReadWriteLock> locks = new ArrayList<>();
@@ -384,7 +1079,7 @@ public class CloudFileServiceImpl extends ServiceImpl<FileMapper, File> implemen
         // 顺序加锁
         RLock multiLock = hierarchicalLockHelper.lockAllWrite(locks);
         try {
-            cloudFileServiceImpl.moveWithTransaction(id, newParentId, userId, localFile);
+            retryOnConflict("移动", id, () -> cloudFileServiceImpl.moveWithTransaction(id, newParentId, userId, null));
         } finally {
             hierarchicalLockHelper.unlockAll(multiLock);
         }
@@ -392,6 +1087,15 @@ public class CloudFileServiceImpl extends ServiceImpl<FileMapper, File> implemen
 
     @Transactional
     public void moveWithTransaction(Long id, Long newParentId, Long userId, File localFile) {
+        if (localFile == null) {
+            localFile = baseMapper.selectByIdUncached(id);
+            if (localFile == null) {
+                throw new NotFoundException(String.format("文件在移动时消失, id: %s", id));
+            }
+            if (Objects.equals(localFile.getParentId(), newParentId)) {
+                throw new BadRequestException("文件或文件夹已在目标位置，无需移动");
+            }
+        }
         if (newParentId != null) {
             File newParent = this.getById(newParentId);
             if (newParent == null) {
@@ -400,22 +1104,221 @@ public class CloudFileServiceImpl extends ServiceImpl<FileMapper, File> implemen
             if (!Boolean.TRUE.equals(newParent.getFolder())) {
                 throw new BadRequestException(String.format("目标不是一个文件夹, id: %s", newParentId));
             }
+            if (isOptimistic()) {
+                lockAncestorChain(newParentId);
+            }
             if (isAncestor(id, newParentId)) {
                 throw new BadRequestException("不能将文件夹移动到其子文件夹中");
             }
-            checkDuplicateName(newParentId, localFile.getName(), id);
-        } else {
-            checkDuplicateName(null, localFile.getName(), id);
         }
 
+        List<File> current = baseMapper.selectAggregatesForUpdate(List.of(id));
+        if (current.isEmpty()) {
+            throw new NotFoundException(String.format("文件在移动时消失, id: %s", id));
+        }
+        File moved = current.get(0);
+        Long oldParentId = localFile.getParentId();
         localFile.setParentId(newParentId);
         localFile.setUpdatedBy(userId);
-        if (!this.updateById(localFile)) {
-            throw new FileStorageException(String.format("移动文件失败, id: %s", id));
+        try {
+            if (!this.updateById(localFile)) {
+                throw new OptimisticLockingFailureException(String.format("移动时记录已被修改, id: %s", id));
+            }
+        } catch (DuplicateKeyException e) {
+            throw duplicateName(localFile.getName());
+        }
+        // 原父目录和新父目录的两条链合并后一次加锁写入
+        Map<Long, long[]> deltas = new HashMap<>();
+        addDelta(deltas, oldParentId, -subtreeSize(moved), -subtreeFileCount(moved), -subtreeFolderCount(moved));
+        addDelta(deltas, newParentId, subtreeSize(moved), subtreeFileCount(moved), subtreeFolderCount(moved));
+        applyAggregateDeltas(deltas);
+        applicationEventPublisher.publishEvent(FileChangeEvent.moved(moved, newParentId, oldParentId, userId));
+    }
+
+    @Override
+    public void batchMove(List<Long> ids, Long newParentId, Long userId) throws NotFoundException {
+        if (ids == null || ids.isEmpty()) {
+            throw new BadRequestException("文件ID列表不能为空");
+        }
+        if (userId == null || userId <= 0) {
+            throw new BadRequestException("用户ID无效");
+        }
+        Set<Long> distinctIds = new LinkedHashSet<>(ids);
+        if (newParentId != null && distinctIds.contains(newParentId)) {
+            throw new BadRequestException("不能将文件或文件夹移动到自身");
+        }
+        List<File> files = this.listByIds(distinctIds);
+        if (files.size() != distinctIds.size()) {
+            Set<Long> missing = new LinkedHashSet<>(distinctIds);
+            files.forEach(file -> missing.remove(file.getId()));
+            throw new NotFoundException(String.format("文件或文件夹不存在, id: %s", missing));
+        }
+        List<File> toMove = files.stream()
+                .filter(file -> !Objects.equals(file.getParentId(), newParentId))
+                .toList();
+        if (toMove.isEmpty()) {
+            throw new BadRequestException("文件或文件夹已在目标位置，无需移动");
+        }
+
+        List<Long> moveIds = toMove.stream().map(File::getId).toList();
+        Set<Long> subtreeIds = new HashSet<>();
+        baseMapper.listAllDescendantsOfAll(moveIds).forEach(file -> subtreeIds.add(file.getId()));
+        // 父节点落在某个被移动的子树中，说明与其他项存在包含关系，汇总值无法按项独立增减
+        for (File file : toMove) {
+            if (file.getParentId() != null && subtreeIds.contains(file.getParentId())) {
+                throw new BadRequestException(String.format("批量移动的项目之间不能存在包含关系: %s", file.getName()));
+            }
+        }
+
+        // 目标父文件夹及其祖先 + 所有被移动节点的子树，一次性加锁
+        List<RReadWriteLock> locks = hierarchicalLockHelper.distinct(
+                hierarchicalLockHelper.getAncestorReadWriteLocks(newParentId),
+                hierarchicalLockHelper.getReadWriteLocks(subtreeIds));
+        RLock multiLock = hierarchicalLockHelper.lockAllWrite(locks);
+        try {
+            retryOnConflict("批量移动", newParentId, () -> cloudFileServiceImpl.batchMoveWithTransaction(moveIds, newParentId, userId));
+        } finally {
+            hierarchicalLockHelper.unlockAll(multiLock);
+        }
+    }
+
+    @Transactional
+    public void batchMoveWithTransaction(List<Long> ids, Long newParentId, Long userId) {
+        // 加锁后重新读取，拿到最新的父目录和汇总值
+        List<File> files = baseMapper.selectAggregatesForUpdate(ids);
+        if (files.size() != ids.size()) {
+            throw new NotFoundException("部分文件或文件夹在移动时消失, 请刷新后重试");
+        }
+        if (newParentId != null) {
+            File newParent = this.getById(newParentId);
+            if (newParent == null) {
+                throw new NotFoundException(String.format("目标父文件夹不存在, id: %s", newParentId));
+            }
+            if (!Boolean.TRUE.equals(newParent.getFolder())) {
+                throw new BadRequestException(String.format("目标不是一个文件夹, id: %s", newParentId));
+            }
+            // 目标的祖先链只查一次，所有被移动节点共用
+            Set<Long> ancestors = ancestorOrSelfIds(newParentId);
+            for (File file : files) {
+                if (ancestors.contains(file.getId())) {
+                    throw new BadRequestException(String.format("不能将文件夹移动到其子文件夹中: %s", file.getName()));
+                }
+            }
+        }
+        Set<String> names = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        for (File file : files) {
+            if (!names.add(file.getName())) {
+                throw duplicateName(file.getName());
+            }
+        }
+        try {
+            boolean updated = this.update(Wrappers.<File>lambdaUpdate()
+                    .set(File::getParentId, newParentId)
+                    .set(File::getUpdatedBy, userId)
+                    // 条件更新不经过乐观锁插件，手动递增版本号，使并发的乐观操作能感知到变化
+                    .setSql("version = version + 1")
+                    .in(File::getId, ids));
+            if (!updated) {
+                throw new FileStorageException(String.format("批量移动失败, id: %s", ids));
+            }
+        } catch (DuplicateKeyException e) {
+            throw new BadRequestException("目标目录下已存在同名文件或文件夹");
+        }
+        // 所有原父目录和新父目录的变化量合并后一次加锁写入
+        Map<Long, long[]> deltas = new HashMap<>();
+        for (File file : files) {
+            addDelta(deltas, file.getParentId(), -subtreeSize(file), -subtreeFileCount(file), -subtreeFolderCount(file));
+            addDelta(deltas, newParentId, subtreeSize(file), subtreeFileCount(file), subtreeFolderCount(file));
+        }
+        applyAggregateDeltas(deltas);
+        files.forEach(file -> applicationEventPublisher.publishEvent(
+                FileChangeEvent.moved(file, newParentId, file.getParentId(), userId)));
+    }
+
+    /**
+     * 把子树汇总的变化量累加到 parentId 及其所有祖先文件夹上
+     */
+    private void applyAggregateDelta(Long parentId, long sizeDelta, long fileDelta, long folderDelta) {
+        Map<Long, long[]> deltas = new HashMap<>();
+        addDelta(deltas, parentId, sizeDelta, fileDelta, folderDelta);
+        applyAggregateDeltas(deltas);
+    }
+
+    private void addDelta(Map<Long, long[]> deltas, Long parentId, long sizeDelta, long fileDelta, long folderDelta) {
+        if (parentId == null || (sizeDelta == 0 && fileDelta == 0 && folderDelta == 0)) {
+            return;
+        }
+        long[] delta = deltas.computeIfAbsent(parentId, k -> new long[3]);
+        delta[0] += sizeDelta;
+        delta[1] += fileDelta;
+        delta[2] += folderDelta;
+    }
+
+    /**
+     * 把各父目录的变化量展开到整条祖先链并按行合并，一条 UPDATE 写入。
+     * 写入前按 id 升序给所有祖先行加排他锁：累加汇总值的事务都以同一顺序加锁，不会互相等待成环；
+     * 加锁后确认链没有被并发的移动改变，变化时按新的链重新展开。其余锁（新插入的行、移动的节点）
+     * 仍可能与祖先锁成环，由调用方在死锁回滚后重试。
+     */
+    private void applyAggregateDeltas(Map<Long, long[]> deltasByParent) {
+        if (deltasByParent.isEmpty()) {
+            return;
         }
+        for (int attempt = 1; ; attempt++) {
+            Map<Long, long[]> byAncestor = new TreeMap<>();
+            Map<Long, Long> expected = new HashMap<>();
+            deltasByParent.forEach((parentId, delta) -> {
+                for (File ancestor : baseMapper.listAllAncestors(parentId)) {
+                    expected.put(ancestor.getId(), ancestor.getParentId());
+                    long[] merged = byAncestor.computeIfAbsent(ancestor.getId(), k -> new long[3]);
+                    for (int i = 0; i < merged.length; i++) {
+                        merged[i] += delta[i];
+                    }
+                }
+            });
+            if (byAncestor.isEmpty()) {
+                // 父目录已不存在（随子树一起被删除），没有需要累加的祖先
+                return;
+            }
+            Map<Long, Long> locked = new HashMap<>();
+            baseMapper.lockAggregatesInOrder(byAncestor.keySet())
+                    .forEach(file -> locked.put(file.getId(), file.getParentId()));
+            if (!expected.equals(locked)) {
+                if (attempt >= 3) {
+                    throw new OptimisticLockingFailureException(String.format("累加汇总值时祖先链被修改, id: %s", deltasByParent.keySet()));
+                }
+                continue;
+            }
+            List<File> rows = new ArrayList<>(byAncestor.size());
+            byAncestor.forEach((id, delta) -> rows.add(File.builder()
+                    .id(id)
+                    .totalSize(delta[0])
+                    .fileCount(Math.toIntExact(delta[1]))
+                    .folderCount(Math.toIntExact(delta[2]))
+                    .build()));
+            baseMapper.addAggregates(rows);
+            return;
+        }
+    }
+
+    // 节点连同其子树对祖先汇总值的贡献
+    private long subtreeSize(File file) {
+        return Boolean.TRUE.equals(file.getFolder()) ? nullToZero(file.getTotalSize()) : nullToZero(file.getSize());
     }
 
-    private void deleteFolderRecursively(Long folderId) {
+    private long subtreeFileCount(File file) {
+        return Boolean.TRUE.equals(file.getFolder()) ? nullToZero(file.getFileCount()) : 1;
+    }
+
+    private long subtreeFolderCount(File file) {
+        return Boolean.TRUE.equals(file.getFolder()) ? nullToZero(file.getFolderCount()) + 1 : 0;
+    }
+
+    private static long nullToZero(Number value) {
+        return value == null ? 0 : value.longValue();
+    }
+
+    private void deleteFolderRecursively(Long folderId, Map<Long, Long> freedByUser) {
         QueryWrapper<File> wrapper = new QueryWrapper<>();
         wrapper.eq("parent_id", folderId);
         List<File> children = this.list(wrapper);
@@ -428,13 +1331,15 @@ public class CloudFileServiceImpl extends ServiceImpl<FileMapper, File> implemen
             }
             try {
                 if (Boolean.TRUE.equals(child.getFolder())) {
-                    deleteFolderRecursively(child.getId());
+                    deleteFolderRecursively(child.getId(), freedByUser);
                 } else {
                     deletePhysicalFile(child);
                 }
                 boolean deleted = this.removeById(child.getId());
                 if (!deleted) {
                     log.warn("删除数据库记录失败, id: {}", child.getId());
+                } else if (!Boolean.TRUE.equals(child.getFolder())) {
+                    addFreed(freedByUser, child);
                 }
             } catch (Exception e) {
                 log.error("删除文件或文件夹时发生错误, id: {}, 错误: {}",
@@ -443,25 +1348,32 @@ public class CloudFileServiceImpl extends ServiceImpl<FileMapper, File> implemen
         }
     }
 
+    private static void addFreed(Map<Long, Long> freedByUser, File file) {
+        if (file.getCreatedBy() != null && file.getSize() != null) {
+            freedByUser.merge(file.getCreatedBy(), file.getSize(), Long::sum);
+        }
+    }
+
     private void deletePhysicalFile(File localFile) {
         if (localFile == null || !StringUtils.hasText(localFile.getStorageId())) {
-            log.warn("文件记录 (ID: {}) 没有 storageId 或实体为空, 跳过 MinIO 删除.",
+            log.warn("文件记录 (ID: {}) 没有 storageId 或实体为空, 跳过对象存储删除.",
                     (localFile != null ? localFile.getId() : "null"));
             return;
         }
         String storageId = localFile.getStorageId();
         try {
-            // 调用 MinIOUtil 删除对象 幂等
-            minIOUtil.removeFile(storageId);
+            // 删除对象 幂等
+            storageBackend.delete(storageId);
+            localObjectCache.invalidate(storageId);
         } catch (Exception e) {
-            log.error("从 MinIO 删除文件失败, storageId: {}, 错误: {}",
+            log.error("从对象存储删除文件失败, storageId: {}, 错误: {}",
                     storageId, e.getMessage(), e);
-            throw new FileStorageException("删除 MinIO 对象失败: " + localFile.getName(), e);
+            throw new FileStorageException("删除存储对象失败: " + localFile.getName(), e);
         }
     }
 
     /**
-     * 检查folderId是否是targetId的祖先
+     * 检查folderId是否是targetId的祖先，一次递归 CTE 查询取得 targetId 的整条祖先链
      */
     private boolean isAncestor(Long folderId, Long targetId) {
         if (folderId == null || targetId == null) {
@@ -470,25 +1382,92 @@ public class CloudFileServiceImpl extends ServiceImpl<FileMapper, File> implemen
         if (folderId.equals(targetId)) {
             return false;
         }
-        Long currentId = targetId;
-        while (true) {
-            File current = this.getById(currentId);
-            if (current == null) {
-                return false;
-            }
-            Long parentId = current.getParentId();
+        return ancestorOrSelfIds(targetId).contains(folderId);
+    }
 
-            if (parentId == null) {
-                return false;
-            }
+    private boolean isOptimistic() {
+        return "optimistic".equals(concurrencyMode);
+    }
 
-            if (parentId.equals(folderId)) {
-                return true;
+    /**
+     * 乐观模式下移动的环检测：给目标的整条祖先链加共享行锁直到事务结束，并确认加锁前后链没有变化。
+     * 两个互相移入对方的并发操作会在行锁上冲突（其中一个被 MySQL 判为死锁回滚后重试），不会同时通过检测。
+     */
+    private void lockAncestorChain(Long targetId) {
+        List<File> chain = baseMapper.listAllAncestors(targetId);
+        if (chain.isEmpty()) {
+            throw new OptimisticLockingFailureException(String.format("目标父文件夹已被修改, id: %s", targetId));
+        }
+        Map<Long, Long> expected = new HashMap<>();
+        chain.forEach(file -> expected.put(file.getId(), file.getParentId()));
+        Map<Long, Long> locked = new HashMap<>();
+        baseMapper.lockForShare(expected.keySet()).forEach(file -> locked.put(file.getId(), file.getParentId()));
+        if (!expected.equals(locked)) {
+            throw new OptimisticLockingFailureException(String.format("目标父文件夹的层级已被修改, id: %s", targetId));
+        }
+    }
+
+    /**
+     * 版本号冲突或行锁死锁时重新读取并重试，超过次数后返回 409
+     */
+    private void retryOnConflict(String action, Long id, Runnable operation) {
+        retryOnConflict(action, id, () -> {
+            operation.run();
+            return null;
+        });
+    }
+
+    private <R> R retryOnConflict(String action, Long id, Supplier<R> operation) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return operation.get();
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= maxAttempts) {
+                    log.warn("{}冲突重试次数已用尽, id: {}, 尝试次数: {}", action, id, attempt);
+                    throw new BadRequestException(ResultCode.CONFLICT, String.format("%s冲突, 请稍后重试, id: %s", action, id));
+                }
+                log.debug("{}冲突, 第 {} 次重试, id: {}", action, attempt, id);
+                try {
+                    // 随机退避，避免冲突的双方同时重试
+                    Thread.sleep(ThreadLocalRandom.current().nextLong(1, 10L * attempt + 1));
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw new BadRequestException(ResultCode.CONFLICT, String.format("%s被中断, id: %s", action, id));
+                }
             }
-            currentId = parentId;
         }
     }
 
+    private Set<Long> ancestorOrSelfIds(Long id) {
+        Set<Long> ids = new HashSet<>();
+        baseMapper.listAllAncestors(id).forEach(file -> ids.add(file.getId()));
+        return ids;
+    }
+
+    /**
+     * 校验上传文件，返回原始文件名
+     */
+    private String validateUploadFile(MultipartFile file) {
+        if (file == null) {
+            throw new BadRequestException("文件对象不能为空");
+        }
+        long fileSize = file.getSize();
+        if (fileSize <= 0) {
+            throw new BadRequestException("文件大小无效");
+        }
+        if (fileSize > maxFileSize.toBytes()) {
+            throw new BadRequestException(String.format(
+                    "文件大小超过限制，最大允许 %.2fMB", (double) maxFileSize.toBytes() / (1024 * 1024)
+            ));
+        }
+        String originalFilename = file.getOriginalFilename();
+        if (!StringUtils.hasText(originalFilename)) {
+            throw new BadRequestException("文件名不能为空");
+        }
+        validateFileName(originalFilename);
+        return originalFilename;
+    }
+
     private void validateFileName(String fileName) {
         if (!StringUtils.hasText(fileName)) {
             throw new BadRequestException("文件名不能为空");
@@ -519,28 +1498,11 @@ public class CloudFileServiceImpl extends ServiceImpl<FileMapper, File> implemen
     }
 
 
-    private void checkDuplicateName(Long parentId, String name, Long excludeId) {
-        if (!StringUtils.hasText(name)) {
-            return;
-        }
-
-        QueryWrapper<File> wrapper = new QueryWrapper<>();
-        if (parentId == null) {
-            wrapper.isNull("parent_id");
-        } else {
-            wrapper.eq("parent_id", parentId);
-        }
-        wrapper.eq("name", name.trim());
-
-        // 排除当前文件（用于重命名和移动时的检查）
-        if (excludeId != null) {
-            wrapper.ne("id", excludeId);
-        }
-
-        long count = this.count(wrapper);
-        if (count > 0) {
-            throw new BadRequestException(String.format("同一目录下已存在同名文件或文件夹: %s", name));
-        }
+    /**
+     * 同一目录下的重名由唯一索引 uk_parent_name 保证，写入时捕获 DuplicateKeyException 后转换
+     */
+    private BadRequestException duplicateName(String name) {
+        return new BadRequestException(String.format("同一目录下已存在同名文件或文件夹: %s", name));
     }
 
 }
@@ -0,0 +1,295 @@
+package com.gdairport.service.Impl;
+
+import com.gdairport.domain.ResultCode;
+import com.gdairport.domain.dto.DeviceMetricBatchDto;
+import com.gdairport.domain.dto.DeviceMetricDto;
+import com.gdairport.domain.entity.DeviceMetric;
+import com.gdairport.domain.entity.DeviceMetricRollup;
+import com.gdairport.domain.vo.MetricsIngestStatsVo;
+import com.gdairport.domain.vo.MetricsPartitionVo;
+import com.gdairport.domain.vo.MetricsSeriesVo;
+import com.gdairport.enums.RollupResolutionEnum;
+import com.gdairport.mapper.DeviceMetricMapper;
+import com.gdairport.mapper.DeviceMetricRollupMapper;
+import com.gdairport.exception.BadRequestException;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.gdairport.domain.ResponseResult;
+import com.gdairport.domain.entity.Device;
+import com.gdairport.metrics.DeviceLatestStateStore;
+import com.gdairport.metrics.DeviceState;
+import com.gdairport.metrics.DeviceMetricsBuffer;
+import com.gdairport.metrics.DeviceMetricsPartitionMaintainer;
+import com.gdairport.metrics.DeviceMetricsPublisher;
+import com.gdairport.metrics.DeviceMetricsRollupEngine;
+import com.gdairport.metrics.DeviceMetricsWriter;
+import com.gdairport.metrics.RollupSeriesMerger;
+import com.gdairport.service.DeviceMetricsService;
+import com.gdairport.service.RegionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DeviceMetricsServiceImpl implements DeviceMetricsService {
+
+    private static final String INGEST_MODE_RABBIT = "rabbit";
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final DeviceMetricsBuffer deviceMetricsBuffer;
+
+    private final DeviceMetricsWriter deviceMetricsWriter;
+
+    private final DeviceMetricsPublisher deviceMetricsPublisher;
+
+    private final DeviceMetricsPartitionMaintainer deviceMetricsPartitionMaintainer;
+
+    private final DeviceMetricMapper deviceMetricMapper;
+
+    private final DeviceMetricRollupMapper deviceMetricRollupMapper;
+
+    private final DeviceMetricsRollupEngine deviceMetricsRollupEngine;
+
+    private final DeviceLatestStateStore deviceLatestStateStore;
+
+    private final RegionService regionService;
+
+    @Value("${device.metrics.max-samples-per-request}")
+    private int maxSamplesPerRequest;
+
+    @Value("${device.metrics.query.max-points}")
+    private int maxQueryPoints;
+
+    // 区域序列每条查询包含的设备数
+    @Value("${device.metrics.query.region-chunk-size}")
+    private int regionQueryChunkSize;
+
+    // memory：写入进程内缓冲区；rabbit：发布到 RabbitMQ，由批量消费者写库
+    @Value("${device.metrics.ingest-mode}")
+    private String ingestMode;
+
+    @Override
+    public void ingest(List<DeviceMetricDto> samples) {
+        if (samples == null || samples.isEmpty()) {
+            throw new BadRequestException("指标数据不能为空");
+        }
+        if (samples.size() > maxSamplesPerRequest) {
+            throw new BadRequestException(String.format("单次最多上报 %d 条指标数据", maxSamplesPerRequest));
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (INGEST_MODE_RABBIT.equals(ingestMode)) {
+            // 入队前补齐采集时间，避免消息积压时以消费时间作为采集时间
+            for (DeviceMetricDto sample : samples) {
+                if (sample.getCollectedAt() == null) {
+                    sample.setCollectedAt(now);
+                }
+            }
+            DeviceMetricBatchDto batch = new DeviceMetricBatchDto();
+            batch.setSamples(samples);
+            if (!deviceMetricsPublisher.publish(batch)) {
+                throw new BadRequestException(ResultCode.SERVICE_UNAVAILABLE, "指标队列不可用，请稍后重试");
+            }
+            return;
+        }
+        // 缓冲区整批写入，超过容量的批次永远放不进去，直接按请求错误拒绝
+        if (samples.size() > deviceMetricsBuffer.getCapacity()) {
+            throw new BadRequestException(String.format("单次最多上报 %d 条指标数据", deviceMetricsBuffer.getCapacity()));
+        }
+        if (!deviceMetricsBuffer.offer(toEntities(samples, now))) {
+            throw new BadRequestException(ResultCode.TOO_MANY_REQUESTS, "指标写入繁忙，请稍后重试");
+        }
+    }
+
+    @Override
+    public void persist(List<DeviceMetricDto> samples) {
+        deviceMetricsWriter.writeOrThrow(toEntities(samples, LocalDateTime.now()));
+    }
+
+    @Override
+    public MetricsIngestStatsVo getIngestStats() {
+        return MetricsIngestStatsVo.builder()
+                .buffered(deviceMetricsBuffer.getBuffered())
+                .capacity(deviceMetricsBuffer.getCapacity())
+                .acceptedRows(deviceMetricsBuffer.getAcceptedRows())
+                .rejectedRows(deviceMetricsBuffer.getRejectedRows())
+                .writtenRows(deviceMetricsWriter.getWrittenRows())
+                .failedRows(deviceMetricsWriter.getFailedRows())
+                .writeRate(deviceMetricsBuffer.getWriteRate())
+                .rollupLateSamples(deviceMetricsRollupEngine.getLateSamples())
+                .build();
+    }
+
+    @Override
+    public List<DeviceMetric> listDeviceMetrics(Long deviceId, LocalDateTime from, LocalDateTime to, int limit) {
+        if (!from.isBefore(to)) {
+            throw new BadRequestException("开始时间必须早于结束时间");
+        }
+        if (limit <= 0 || limit > maxQueryPoints) {
+            throw new BadRequestException(String.format("单次最多查询 %d 条指标数据", maxQueryPoints));
+        }
+        return deviceMetricMapper.listByDeviceAndRange(deviceId, from, to, limit);
+    }
+
+    @Override
+    public List<MetricsPartitionVo> listPartitions() {
+        return deviceMetricsPartitionMaintainer.listPartitions();
+    }
+
+    @Override
+    public MetricsSeriesVo getDeviceSeries(Long deviceId, LocalDateTime from, LocalDateTime to, int maxPoints) {
+        RollupResolutionEnum resolution = resolveResolution(from, to, maxPoints);
+        return MetricsSeriesVo.builder()
+                .resolution(resolution.getCode())
+                .points(deviceMetricRollupMapper.listDeviceSeries(resolution.getTableName(),
+                        resolution.getHistTableName(), deviceId, from, to))
+                .build();
+    }
+
+    @Override
+    public MetricsSeriesVo getRegionSeries(Long regionId, LocalDateTime from, LocalDateTime to, int maxPoints) {
+        RollupResolutionEnum resolution = resolveResolution(from, to, maxPoints);
+        // 区域及所有下级区域的设备，直接从区域树索引取得
+        long[] deviceIds = regionService.listSubtreeDeviceIds(regionId);
+        // 按设备分批查询再在内存中合并，单条语句的 IN 列表大小有上限
+        RollupSeriesMerger merger = new RollupSeriesMerger();
+        for (int start = 0; start < deviceIds.length; start += regionQueryChunkSize) {
+            long[] chunk = Arrays.copyOfRange(deviceIds, start, Math.min(start + regionQueryChunkSize, deviceIds.length));
+            merger.addSeries(deviceMetricRollupMapper.sumSeries(resolution.getTableName(), chunk, from, to));
+            merger.addHistogram(deviceMetricRollupMapper.sumHistogram(resolution.getHistTableName(), chunk, from, to));
+        }
+        List<DeviceMetricRollup> points = merger.result();
+        return MetricsSeriesVo.builder()
+                .resolution(resolution.getCode())
+                .points(points)
+                .build();
+    }
+
+    @Override
+    public void writeLatestSnapshot(Long regionId, OutputStream out) throws IOException {
+        Map<Long, DeviceState> states = deviceLatestStateStore.getStates();
+        Map<Long, Device> devices = deviceLatestStateStore.getDevices();
+        if (regionId != null) {
+            writeRegionSnapshot(regionService.listSubtreeDeviceIds(regionId), states, devices, out);
+            return;
+        }
+        ZoneId zone = ZoneId.systemDefault();
+        try (JsonGenerator gen = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8)) {
+            // 与 ResponseResult 的结构保持一致
+            ResponseResult<Void> envelope = ResponseResult.success();
+            gen.writeStartObject();
+            gen.writeNumberField("code", envelope.getCode());
+            gen.writeStringField("msg", envelope.getMsg());
+            gen.writeArrayFieldStart("data");
+            for (Map.Entry<Long, Device> entry : devices.entrySet()) {
+                writeDeviceState(gen, entry.getKey(), entry.getValue(), states.get(entry.getKey()), zone);
+            }
+            // 已上报指标但尚未出现在设备表缓存中的设备
+            for (Map.Entry<Long, DeviceState> entry : states.entrySet()) {
+                if (!devices.containsKey(entry.getKey())) {
+                    writeDeviceState(gen, entry.getKey(), null, entry.getValue(), zone);
+                }
+            }
+            gen.writeEndArray();
+            gen.writeEndObject();
+        }
+    }
+
+    private void writeRegionSnapshot(long[] deviceIds, Map<Long, DeviceState> states, Map<Long, Device> devices,
+                                     OutputStream out) throws IOException {
+        ZoneId zone = ZoneId.systemDefault();
+        try (JsonGenerator gen = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8)) {
+            ResponseResult<Void> envelope = ResponseResult.success();
+            gen.writeStartObject();
+            gen.writeNumberField("code", envelope.getCode());
+            gen.writeStringField("msg", envelope.getMsg());
+            gen.writeArrayFieldStart("data");
+            for (long deviceId : deviceIds) {
+                writeDeviceState(gen, deviceId, devices.get(deviceId), states.get(deviceId), zone);
+            }
+            gen.writeEndArray();
+            gen.writeEndObject();
+        }
+    }
+
+    private void writeDeviceState(JsonGenerator gen, Long deviceId, Device device, DeviceState state, ZoneId zone)
+            throws IOException {
+        gen.writeStartObject();
+        // Long 按字符串输出，与 SpringMvcConfig 的序列化规则一致
+        gen.writeStringField("deviceId", String.valueOf(deviceId));
+        if (device != null) {
+            gen.writeStringField("deviceCode", device.getDeviceCode());
+            gen.writeStringField("status", device.getStatus());
+            gen.writeStringField("applyRegion", device.getApplyRegion());
+            gen.writeStringField("location", device.getLocation());
+        }
+        if (state != null) {
+            if (state.hasCpu()) {
+                gen.writeNumberField("cpuUsage", state.getCpu());
+            }
+            if (state.hasMemory()) {
+                gen.writeNumberField("memoryUsage", state.getMemory());
+            }
+            if (state.hasGpu()) {
+                gen.writeNumberField("gpuUsage", state.getGpu());
+            }
+            if (state.hasDisk()) {
+                gen.writeNumberField("diskUsage", state.getDisk());
+            }
+            gen.writeStringField("networkStatus", state.getNetworkStatus());
+            gen.writeStringField("collectedAt", DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(
+                    LocalDateTime.ofInstant(Instant.ofEpochMilli(state.getCollectedAt()), zone)));
+        }
+        gen.writeEndObject();
+    }
+
+    private RollupResolutionEnum resolveResolution(LocalDateTime from, LocalDateTime to, int maxPoints) {
+        if (!from.isBefore(to)) {
+            throw new BadRequestException("开始时间必须早于结束时间");
+        }
+        if (maxPoints <= 0 || maxPoints > maxQueryPoints) {
+            throw new BadRequestException(String.format("单次最多查询 %d 个数据点", maxQueryPoints));
+        }
+        RollupResolutionEnum resolution = RollupResolutionEnum.forRange(from, to, maxPoints);
+        if (Duration.between(from, to).dividedBy(resolution.getBucket()) > maxQueryPoints) {
+            throw new BadRequestException("查询时间范围过大，请缩小范围");
+        }
+        return resolution;
+    }
+
+    private List<DeviceMetric> toEntities(List<DeviceMetricDto> samples, LocalDateTime now) {
+        List<DeviceMetric> metrics = new ArrayList<>(samples.size());
+        for (DeviceMetricDto sample : samples) {
+            metrics.add(toEntity(sample, now));
+        }
+        return metrics;
+    }
+
+    private DeviceMetric toEntity(DeviceMetricDto sample, LocalDateTime now) {
+        return DeviceMetric.builder()
+                .deviceId(sample.getDeviceId())
+                .cpuUsage(sample.getCpuUsage())
+                .memoryUsage(sample.getMemoryUsage())
+                .gpuUsage(sample.getGpuUsage())
+                .diskUsage(sample.getDiskUsage())
+                .networkStatus(sample.getNetworkStatus())
+                .createdAt(sample.getCollectedAt() != null ? sample.getCollectedAt() : now)
+                .build();
+    }
+}
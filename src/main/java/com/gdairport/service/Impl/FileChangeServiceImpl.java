@@ -0,0 +1,57 @@
+package com.gdairport.service.Impl;
+
+import com.gdairport.domain.ResultCode;
+import com.gdairport.domain.entity.FileChange;
+import com.gdairport.domain.vo.FileChangesVo;
+import com.gdairport.exception.BadRequestException;
+import com.gdairport.mapper.FileChangeMapper;
+import com.gdairport.service.FileChangeService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 文件树增量同步
+ * <p>
+ * 序号在插入时分配，较小序号的事务可能晚于较大序号提交；读取时只返回写入超过稳定窗口的变更，
+ * 并在第一条未稳定的变更处截断，保证按游标拉取不会跳过任何已提交的变更。
+ */
+@Service
+@RequiredArgsConstructor
+public class FileChangeServiceImpl implements FileChangeService {
+
+    private final FileChangeMapper fileChangeMapper;
+
+    // 变更写入后经过该时间才对同步客户端可见，需大于变更日志写入到事务提交的最长耗时
+    @Value("${file.changes.settle-window}")
+    private Duration settleWindow;
+
+    @Override
+    public FileChangesVo getChanges(long since, int limit) {
+        if (since < 0) {
+            throw new BadRequestException("游标不能小于0");
+        }
+        // 与清理水位比较而不是与剩余的最小序号比较：日志被全部清理后最小序号不存在，序号也可能因回滚留下空洞
+        if (since < fileChangeMapper.selectCompactedSeq()) {
+            throw new BadRequestException(ResultCode.GONE, "游标对应的变更已被清理, 请全量同步后从最新游标继续");
+        }
+        // 多取一条判断是否还有下一页
+        List<FileChange> rows = fileChangeMapper.listSince(since, settleWindow.toMillis(), limit + 1);
+        boolean hasMore = rows.size() > limit;
+        List<FileChange> page = hasMore ? rows.subList(0, limit) : rows;
+        return FileChangesVo.builder()
+                .changes(page)
+                .cursor(page.isEmpty() ? since : page.get(page.size() - 1).getSeq())
+                .hasMore(hasMore)
+                .build();
+    }
+
+    @Override
+    public long getHead() {
+        // 日志被全部清理后仍从水位继续，避免返回的游标马上又落在已清理范围内
+        return Math.max(fileChangeMapper.selectSettledHead(settleWindow.toMillis()), fileChangeMapper.selectCompactedSeq());
+    }
+}
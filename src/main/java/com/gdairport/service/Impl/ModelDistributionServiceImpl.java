@@ -0,0 +1,348 @@
+package com.gdairport.service.Impl;
+
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import com.gdairport.cache.AlgorithmAssignmentTable;
+import com.gdairport.cache.LocalObjectCache;
+import com.gdairport.domain.ResultCode;
+import com.gdairport.domain.entity.AlgorithmVersion;
+import com.gdairport.exception.BadRequestException;
+import com.gdairport.exception.FileStorageException;
+import com.gdairport.exception.NotFoundException;
+import com.gdairport.mapper.AlgorithmVersionMapper;
+import com.gdairport.service.ModelDistributionService;
+import com.gdairport.storage.StorageBackend;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 算法模型文件分发
+ * <p>
+ * 模型发布时计算 SHA-256，设备通过分配结果中的哈希判断本地模型是否需要更新；
+ * 下载以 SHA-256 作为强 ETag 和本地磁盘缓存的 key（内容寻址，同一模型文件被多个版本引用时只缓存一份）。
+ * 支持 Range 断点续传；Range 请求未命中缓存时直接读对象存储的对应区间，同时在后台把完整对象预热到缓存。
+ * 每个节点同时进行的下载数受限，超出时返回 503 并带随机化的 Retry-After，配合分配结果中的下载延迟错开设备。
+ * 预热和哈希补算在单独的有界线程池中执行，队列满时直接放弃，不会占用处理下载请求的线程。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ModelDistributionServiceImpl implements ModelDistributionService {
+
+    private static final String STATUS_RELEASE = "RELEASE";
+
+    private final AlgorithmVersionMapper algorithmVersionMapper;
+
+    private final StorageBackend storageBackend;
+
+    private final LocalObjectCache localObjectCache;
+
+    private final ThreadPoolTaskExecutor storageIoExecutor;
+
+    private final AlgorithmAssignmentTable algorithmAssignmentTable;
+
+    @Value("${algorithm.model.max-concurrent-downloads}")
+    private int maxConcurrentDownloads;
+
+    // 超限时 Retry-After 的基准值，实际返回 [base, 2 * base) 内的随机值
+    @Value("${algorithm.model.retry-after}")
+    private Duration retryAfter;
+
+    @Value("${algorithm.model.warmup-threads}")
+    private int warmupThreads;
+
+    @Value("${algorithm.model.warmup-queue-capacity}")
+    private int warmupQueueCapacity;
+
+    private Semaphore downloadPermits;
+
+    // 缓存预热、哈希计算等需要读取完整对象的后台任务
+    private ThreadPoolExecutor warmupExecutor;
+
+    // 正在后台预热的模型（SHA-256），避免多个 Range 请求重复拉取完整对象
+    private final Set<String> warming = ConcurrentHashMap.newKeySet();
+
+    // 正在计算哈希的版本，同一版本同时只计算一次
+    private final Set<Long> digesting = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void init() {
+        downloadPermits = new Semaphore(maxConcurrentDownloads);
+        warmupExecutor = new ThreadPoolExecutor(warmupThreads, warmupThreads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(warmupQueueCapacity), r -> {
+            Thread thread = new Thread(r, "model-warmup");
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+        warmupExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        warmupExecutor.shutdownNow();
+    }
+
+    /**
+     * 补算历史已发布版本的哈希，放到存储线程池中执行，不阻塞启动
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillDigests() {
+        storageIoExecutor.execute(() -> {
+            List<AlgorithmVersion> versions;
+            try {
+                versions = algorithmVersionMapper.selectList(Wrappers.<AlgorithmVersion>lambdaQuery()
+                        .eq(AlgorithmVersion::getStatus, STATUS_RELEASE)
+                        .isNull(AlgorithmVersion::getModelSha256));
+            } catch (Exception e) {
+                log.warn("加载待补算哈希的算法版本失败", e);
+                return;
+            }
+            for (AlgorithmVersion version : versions) {
+                if (!digesting.add(version.getId())) {
+                    continue;
+                }
+                try {
+                    computeDigest(version);
+                    saveDigest(version);
+                } catch (Exception e) {
+                    log.warn("补算模型哈希失败, 版本: {}", version.getId(), e);
+                } finally {
+                    digesting.remove(version.getId());
+                }
+            }
+            if (!versions.isEmpty()) {
+                log.info("已补算 {} 个已发布版本的模型哈希", versions.size());
+            }
+        });
+    }
+
+    @Override
+    public void computeDigest(AlgorithmVersion version) {
+        String key = version.getModelStorageKey();
+        if (!StringUtils.hasText(key)) {
+            throw new BadRequestException("算法版本未关联模型文件, id: " + version.getId());
+        }
+        long start = System.nanoTime();
+        MessageDigest digest = newDigest();
+        long size;
+        try (InputStream source = new DigestInputStream(storageBackend.get(key), digest)) {
+            size = source.transferTo(OutputStream.nullOutputStream());
+        } catch (Exception e) {
+            throw new FileStorageException("读取模型文件失败: " + key, e);
+        }
+        version.setModelSize(size);
+        version.setModelSha256(HexFormat.of().formatHex(digest.digest()));
+        log.info("模型哈希已计算, 版本: {}, 大小: {}, 耗时: {} ms", version.getId(), size,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @Override
+    public void download(Long versionId, ServletWebRequest webRequest, HttpServletResponse response) {
+        AlgorithmVersion version = algorithmVersionMapper.selectById(versionId);
+        if (version == null) {
+            throw new NotFoundException("算法版本不存在, id: " + versionId);
+        }
+        if (!STATUS_RELEASE.equals(version.getStatus())) {
+            throw new BadRequestException("只能下载已发布版本的模型, id: " + versionId);
+        }
+        if (version.getModelSha256() == null || version.getModelSize() == null) {
+            // 启动补算尚未完成：在后台计算一次，请求稍后重试，避免大量设备同时读取完整对象
+            digestAsync(version);
+            throw rejectWithRetryAfter(response, "模型哈希正在计算, 请稍后重试");
+        }
+        String sha256 = version.getModelSha256();
+        long size = version.getModelSize();
+        String etag = "\"" + sha256 + "\"";
+
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().getHeaderValue());
+        if (webRequest.checkNotModified(etag)) {
+            return;
+        }
+        HttpRange range = resolveRange(webRequest, etag, size, response);
+
+        if (!downloadPermits.tryAcquire()) {
+            throw rejectWithRetryAfter(response, "模型下载并发数已达上限, 请稍后重试");
+        }
+        try {
+            response.setContentType("application/octet-stream");
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment;filename="
+                    + URLEncoder.encode(fileName(version), StandardCharsets.UTF_8));
+            OutputStream out = response.getOutputStream();
+            if (range == null) {
+                response.setContentLengthLong(size);
+                // 优先命中本地磁盘缓存，未命中时边读对象存储边写出并落盘
+                if (!localObjectCache.serve(sha256, size, out)) {
+                    try (InputStream is = storageBackend.get(version.getModelStorageKey())) {
+                        localObjectCache.writeThrough(sha256, is, size, out);
+                    }
+                }
+            } else {
+                long offset = range.getRangeStart(size);
+                long length = range.getRangeEnd(size) - offset + 1;
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE,
+                        "bytes " + offset + "-" + (offset + length - 1) + "/" + size);
+                response.setContentLengthLong(length);
+                if (!localObjectCache.serveRange(sha256, size, offset, length, out)) {
+                    try (InputStream is = storageBackend.getRange(version.getModelStorageKey(), offset, length)) {
+                        is.transferTo(out);
+                    }
+                    warmAsync(version);
+                }
+            }
+            out.flush();
+        } catch (Exception e) {
+            log.error("模型下载失败, 版本: {}, key: {}", versionId, version.getModelStorageKey(), e);
+            throw new FileStorageException("模型下载失败: " + e.getMessage(), e);
+        } finally {
+            downloadPermits.release();
+        }
+    }
+
+    /**
+     * 返回 503 和随机化的 Retry-After，错开设备的重试时间
+     */
+    private BadRequestException rejectWithRetryAfter(HttpServletResponse response, String message) {
+        long base = Math.max(1, retryAfter.toSeconds());
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setHeader(HttpHeaders.RETRY_AFTER,
+                String.valueOf(base + ThreadLocalRandom.current().nextLong(base)));
+        return new BadRequestException(ResultCode.SERVICE_UNAVAILABLE, message);
+    }
+
+    /**
+     * 在后台计算尚未补算的模型哈希，同一版本同时只计算一次；线程池已满时放弃，由后续请求再次触发
+     */
+    private void digestAsync(AlgorithmVersion version) {
+        if (!digesting.add(version.getId())) {
+            return;
+        }
+        try {
+            warmupExecutor.execute(() -> {
+                try {
+                    computeDigest(version);
+                    saveDigest(version);
+                } catch (Exception e) {
+                    log.warn("计算模型哈希失败, 版本: {}", version.getId(), e);
+                } finally {
+                    digesting.remove(version.getId());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            digesting.remove(version.getId());
+            log.warn("模型后台任务队列已满, 跳过哈希计算, 版本: {}", version.getId());
+        }
+    }
+
+    /**
+     * 解析单个 Range；If-Range 与当前 ETag 不一致、没有 Range 或包含多个区间时返回 null（返回完整内容）
+     */
+    private HttpRange resolveRange(ServletWebRequest webRequest, String etag, long size, HttpServletResponse response) {
+        String rangeHeader = webRequest.getHeader(HttpHeaders.RANGE);
+        if (!StringUtils.hasText(rangeHeader)) {
+            return null;
+        }
+        String ifRange = webRequest.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRange.equals(etag)) {
+            return null;
+        }
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+            if (ranges.size() != 1) {
+                return null;
+            }
+            HttpRange range = ranges.get(0);
+            // 校验区间是否落在文件内，越界时抛出 IllegalArgumentException
+            range.getRangeEnd(size);
+            if (range.getRangeStart(size) >= size) {
+                throw new IllegalArgumentException("起始位置超出文件大小");
+            }
+            return range;
+        } catch (IllegalArgumentException e) {
+            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+            throw new BadRequestException(ResultCode.RANGE_NOT_SATISFIABLE, "Range 无效: " + rangeHeader);
+        }
+    }
+
+    /**
+     * Range 请求未命中缓存时，在后台把完整模型拉取到本地缓存，后续续传直接命中
+     */
+    private void warmAsync(AlgorithmVersion version) {
+        String sha256 = version.getModelSha256();
+        if (!localObjectCache.isCacheableSize(version.getModelSize()) || !warming.add(sha256)) {
+            return;
+        }
+        try {
+            warmupExecutor.execute(() -> {
+                try (InputStream is = storageBackend.get(version.getModelStorageKey())) {
+                    if (!localObjectCache.contains(sha256)) {
+                        localObjectCache.populate(sha256, is, version.getModelSize());
+                    }
+                } catch (Exception e) {
+                    log.warn("预热模型缓存失败, 版本: {}", version.getId(), e);
+                } finally {
+                    warming.remove(sha256);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // 队列已满时放弃预热，后续 Range 请求未命中缓存时会再次触发
+            warming.remove(sha256);
+            log.warn("模型后台任务队列已满, 跳过缓存预热, 版本: {}", version.getId());
+        }
+    }
+
+    private void saveDigest(AlgorithmVersion version) {
+        algorithmVersionMapper.update(null, Wrappers.<AlgorithmVersion>lambdaUpdate()
+                .set(AlgorithmVersion::getModelSize, version.getModelSize())
+                .set(AlgorithmVersion::getModelSha256, version.getModelSha256())
+                .eq(AlgorithmVersion::getId, version.getId()));
+        // 分配结果中带有模型哈希，需要重新编译
+        algorithmAssignmentTable.versionChanged(version.getId());
+    }
+
+    private static String fileName(AlgorithmVersion version) {
+        String key = version.getModelStorageKey();
+        int separator = key.lastIndexOf('/');
+        return separator >= 0 ? key.substring(separator + 1) : key;
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (Exception e) {
+            throw new IllegalStateException("SHA-256 不可用", e);
+        }
+    }
+}
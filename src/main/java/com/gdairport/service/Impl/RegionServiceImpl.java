@@ -0,0 +1,97 @@
+package com.gdairport.service.Impl;
+
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import com.gdairport.cache.RegionTreeCache;
+import com.gdairport.domain.entity.Region;
+import com.gdairport.domain.entity.RegionDeviceRel;
+import com.gdairport.domain.vo.RegionTreeVo;
+import com.gdairport.exception.NotFoundException;
+import com.gdairport.mapper.RegionDeviceRelMapper;
+import com.gdairport.service.RegionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RegionServiceImpl implements RegionService {
+
+    private final RegionTreeCache regionTreeCache;
+
+    private final RegionDeviceRelMapper regionDeviceRelMapper;
+
+    @Override
+    public List<RegionTreeVo> getTree() {
+        return regionTreeCache.mapTree((region, deviceCount, children) -> RegionTreeVo.builder()
+                .id(region.getId())
+                .regionCode(region.getRegionCode())
+                .regionName(region.getRegionName())
+                .regionLevel(region.getRegionLevel())
+                .deviceCount(deviceCount)
+                .children(children)
+                .build());
+    }
+
+    @Override
+    public List<Region> listSubtreeRegions(Long regionId) {
+        checkRegionExists(regionId);
+        return regionTreeCache.subtreeRegions(regionId);
+    }
+
+    @Override
+    public long[] listSubtreeDeviceIds(Long regionId) {
+        checkRegionExists(regionId);
+        return regionTreeCache.subtreeDeviceIds(regionId);
+    }
+
+    @Override
+    public void bindDevices(Long regionId, List<Long> deviceIds) {
+        checkRegionExists(regionId);
+        Set<Long> toBind = new LinkedHashSet<>(deviceIds);
+        List<RegionDeviceRel> existing = regionDeviceRelMapper.selectList(Wrappers.<RegionDeviceRel>lambdaQuery()
+                .eq(RegionDeviceRel::getRegionId, regionId)
+                .in(RegionDeviceRel::getDeviceId, toBind));
+        existing.forEach(rel -> toBind.remove(rel.getDeviceId()));
+        for (Long deviceId : toBind) {
+            try {
+                regionDeviceRelMapper.insert(RegionDeviceRel.builder()
+                        .regionId(regionId)
+                        .deviceId(deviceId)
+                        .build());
+            } catch (DuplicateKeyException e) {
+                // 并发绑定同一设备，已存在即可
+            }
+        }
+        if (!toBind.isEmpty()) {
+            regionTreeCache.markChanged();
+        }
+    }
+
+    @Override
+    public void unbindDevice(Long regionId, Long deviceId) {
+        int deleted = regionDeviceRelMapper.delete(Wrappers.<RegionDeviceRel>lambdaQuery()
+                .eq(RegionDeviceRel::getRegionId, regionId)
+                .eq(RegionDeviceRel::getDeviceId, deviceId));
+        if (deleted == 0) {
+            throw new NotFoundException("区域未绑定该设备, 区域: " + regionId + ", 设备: " + deviceId);
+        }
+        regionTreeCache.markChanged();
+    }
+
+    @Override
+    public void refresh() {
+        regionTreeCache.markChanged();
+    }
+
+    private void checkRegionExists(Long regionId) {
+        if (!regionTreeCache.contains(regionId)) {
+            throw new NotFoundException("区域不存在, id: " + regionId);
+        }
+    }
+}
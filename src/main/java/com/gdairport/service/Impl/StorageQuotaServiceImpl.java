@@ -0,0 +1,460 @@
+package com.gdairport.service.Impl;
+
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.gdairport.domain.ResultCode;
+import com.gdairport.domain.entity.File;
+import com.gdairport.domain.entity.StorageQuota;
+import com.gdairport.domain.vo.StorageQuotaVo;
+import com.gdairport.exception.BadRequestException;
+import com.gdairport.exception.FileStorageException;
+import com.gdairport.exception.NotFoundException;
+import com.gdairport.mapper.FileMapper;
+import com.gdairport.mapper.StorageQuotaMapper;
+import com.gdairport.service.StorageQuotaService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 用户 / 文件夹存储配额
+ * <p>
+ * 每个配额在 Redis 中有一个 Hash（used-已使用，reserved-已预留）和一个 ZSET（进行中的预留，score 为过期时间，
+ * member 为 "预留ID:字节数"）。上传前用 Lua 脚本一次性检查并预留所有相关配额，多个节点并发上传也不会超额；
+ * 记录落库后再结算（释放预留、计入已使用）。节点在上传中途宕机时，预留到期后在下一次预留或校正时自动回收。
+ * 配额定义很少变化，缓存在内存中并定时刷新；没有任何配额时上传路径不访问 Redis。
+ * Redis 中的已使用量以数据库为准定时校正：用户按 files.created_by 汇总，文件夹取子树汇总值 total_size。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StorageQuotaServiceImpl extends ServiceImpl<StorageQuotaMapper, StorageQuota> implements StorageQuotaService {
+
+    public static final String SCOPE_USER = "USER";
+    public static final String SCOPE_FOLDER = "FOLDER";
+
+    private static final String KEY_PREFIX = "file:quota:";
+    private static final String RESERVATIONS_SUFFIX = ":reservations";
+    private static final String FIELD_USED = "used";
+    private static final String FIELD_RESERVED = "reserved";
+
+    // 一次校正脚本处理的配额数
+    private static final int RECONCILE_CHUNK = 200;
+
+    /**
+     * KEYS: 每个配额一对 使用量Hash / 预留ZSET；ARGV: 当前时间, 过期时间, 预留member, 字节数, 各配额上限...
+     * 先回收过期预留，任一配额不足时返回其序号（从 1 开始），全部满足时预留并返回 0
+     */
+    private static final RedisScript<Long> RESERVE_SCRIPT = new DefaultRedisScript<>("""
+            local now = tonumber(ARGV[1])
+            local bytes = tonumber(ARGV[4])
+            local n = #KEYS / 2
+            for i = 1, n do
+                local usage, reservations = KEYS[2 * i - 1], KEYS[2 * i]
+                local expired = redis.call('ZRANGEBYSCORE', reservations, '-inf', now)
+                if #expired > 0 then
+                    local released = 0
+                    for _, member in ipairs(expired) do
+                        released = released + tonumber(string.match(member, ':(%d+)$'))
+                    end
+                    redis.call('ZREMRANGEBYSCORE', reservations, '-inf', now)
+                    redis.call('HINCRBY', usage, 'reserved', -released)
+                end
+                local used = tonumber(redis.call('HGET', usage, 'used') or '0')
+                local reserved = tonumber(redis.call('HGET', usage, 'reserved') or '0')
+                if used + reserved + bytes > tonumber(ARGV[4 + i]) then
+                    return i
+                end
+            end
+            for i = 1, n do
+                redis.call('HINCRBY', KEYS[2 * i - 1], 'reserved', bytes)
+                redis.call('ZADD', KEYS[2 * i], ARGV[2], ARGV[3])
+            end
+            return 0
+            """, Long.class);
+
+    /**
+     * KEYS: 同预留；ARGV: 预留member, 预留字节数, 实际写入字节数
+     * 预留已过期被回收时不再重复扣减 reserved
+     */
+    private static final RedisScript<Long> SETTLE_SCRIPT = new DefaultRedisScript<>("""
+            for i = 1, #KEYS / 2 do
+                if redis.call('ZREM', KEYS[2 * i], ARGV[1]) == 1 then
+                    redis.call('HINCRBY', KEYS[2 * i - 1], 'reserved', -tonumber(ARGV[2]))
+                end
+                if tonumber(ARGV[3]) ~= 0 then
+                    redis.call('HINCRBY', KEYS[2 * i - 1], 'used', ARGV[3])
+                end
+            end
+            return 0
+            """, Long.class);
+
+    /**
+     * KEYS: 使用量Hash；ARGV: 对应的变化量
+     */
+    private static final RedisScript<Long> ADJUST_SCRIPT = new DefaultRedisScript<>("""
+            for i = 1, #KEYS do
+                redis.call('HINCRBY', KEYS[i], 'used', ARGV[i])
+            end
+            return 0
+            """, Long.class);
+
+    /**
+     * KEYS: 每个配额一对 使用量Hash / 预留ZSET；ARGV: 当前时间, 然后每个配额 数据库使用量, 校正前读到的使用量（'-' 表示未读取）
+     * 已使用 = 数据库使用量 + 读取数据库期间 Redis 中新增的量；已预留按 ZSET 中未过期的预留重新求和
+     */
+    private static final RedisScript<Long> RECONCILE_SCRIPT = new DefaultRedisScript<>("""
+            local now = tonumber(ARGV[1])
+            for i = 1, #KEYS / 2 do
+                local usage, reservations = KEYS[2 * i - 1], KEYS[2 * i]
+                redis.call('ZREMRANGEBYSCORE', reservations, '-inf', now)
+                local reserved = 0
+                for _, member in ipairs(redis.call('ZRANGE', reservations, 0, -1)) do
+                    reserved = reserved + tonumber(string.match(member, ':(%d+)$'))
+                end
+                local used = tonumber(ARGV[2 * i])
+                local snapshot = ARGV[2 * i + 1]
+                if snapshot ~= '-' then
+                    used = used + tonumber(redis.call('HGET', usage, 'used') or '0') - tonumber(snapshot)
+                end
+                redis.call('HSET', usage, 'used', used, 'reserved', reserved)
+            end
+            return 0
+            """, Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final FileMapper fileMapper;
+
+    @Value("${file.quota.enabled}")
+    private boolean enabled;
+
+    // 没有单独设置配额的用户的默认配额，0 表示不限制
+    @Value("${file.quota.default-user-quota}")
+    private DataSize defaultUserQuota;
+
+    // 预留的有效期，需大于单个文件上传到对象存储的最长耗时
+    @Value("${file.quota.reservation-ttl}")
+    private Duration reservationTtl;
+
+    private volatile Map<Long, Long> userQuotas = Map.of();
+
+    private volatile Map<Long, Long> folderQuotas = Map.of();
+
+    // 首次加载由启动时的校正任务初始化已使用量
+    private volatile boolean loaded;
+
+    /**
+     * 从数据库刷新配额定义（配额由管理员直接维护 storage_quotas 表），最迟在一个刷新周期后生效；
+     * 新出现的配额立即以数据库为准初始化已使用量，不必等待下一次校正
+     */
+    @Scheduled(fixedDelayString = "${file.quota.refresh-interval}")
+    public void refreshQuotas() {
+        if (!enabled) {
+            return;
+        }
+        Map<Long, Long> users = new HashMap<>();
+        Map<Long, Long> folders = new HashMap<>();
+        try {
+            for (StorageQuota quota : this.list()) {
+                (SCOPE_USER.equals(quota.getScope()) ? users : folders).put(quota.getScopeId(), quota.getQuotaBytes());
+            }
+        } catch (Exception e) {
+            log.warn("刷新存储配额失败, 继续使用上一次加载的配额", e);
+            return;
+        }
+        Map<Long, Long> previousUsers = userQuotas;
+        Map<Long, Long> previousFolders = folderQuotas;
+        userQuotas = users;
+        folderQuotas = folders;
+        if (loaded) {
+            initializeUsage(users.keySet().stream().filter(id -> !previousUsers.containsKey(id)).toList(),
+                    folders.keySet().stream().filter(id -> !previousFolders.containsKey(id)).toList());
+        }
+        loaded = true;
+    }
+
+    private void initializeUsage(List<Long> userIds, List<Long> folderIds) {
+        if (userIds.isEmpty() && folderIds.isEmpty()) {
+            return;
+        }
+        try {
+            List<String> keys = new ArrayList<>();
+            userIds.forEach(userId -> keys.add(usageKey(SCOPE_USER, userId)));
+            folderIds.forEach(folderId -> keys.add(usageKey(SCOPE_FOLDER, folderId)));
+            Map<String, String> snapshots = readUsed(keys);
+            Map<String, Long> usage = new LinkedHashMap<>();
+            if (!userIds.isEmpty()) {
+                fileMapper.sumFileSizeByCreator(userIds)
+                        .forEach(row -> usage.put(usageKey(SCOPE_USER, row.getCreatedBy()), row.getSize()));
+            }
+            usage.putAll(folderUsage(folderIds));
+            keys.forEach(key -> usage.putIfAbsent(key, 0L));
+            correct(usage, snapshots);
+            log.info("新增存储配额已初始化已使用量, 用户: {}, 文件夹: {}", userIds.size(), folderIds.size());
+        } catch (Exception e) {
+            // 下一次校正时补齐
+            log.warn("初始化新增配额的已使用量失败", e);
+        }
+    }
+
+    @Override
+    public Reservation reserve(Long userId, Long parentId, long bytes) {
+        if (!enabled) {
+            return Reservation.NONE;
+        }
+        List<String> keys = new ArrayList<>(2);
+        List<Long> limits = new ArrayList<>(1);
+        List<String> labels = new ArrayList<>(1);
+        Long userQuota = userQuota(userId);
+        if (userQuota != null) {
+            addScope(keys, SCOPE_USER, userId);
+            limits.add(userQuota);
+            labels.add("用户");
+        }
+        for (Long folderId : quotaFolders(parentId)) {
+            addScope(keys, SCOPE_FOLDER, folderId);
+            limits.add(folderQuotas.get(folderId));
+            labels.add("文件夹 " + folderId);
+        }
+        if (keys.isEmpty()) {
+            return Reservation.NONE;
+        }
+
+        long now = System.currentTimeMillis();
+        String member = UUID.randomUUID() + ":" + bytes;
+        List<String> args = new ArrayList<>(4 + limits.size());
+        args.add(String.valueOf(now));
+        args.add(String.valueOf(now + reservationTtl.toMillis()));
+        args.add(member);
+        args.add(String.valueOf(bytes));
+        limits.forEach(limit -> args.add(String.valueOf(limit)));
+        Long exceeded;
+        try {
+            exceeded = stringRedisTemplate.execute(RESERVE_SCRIPT, keys, args.toArray());
+        } catch (Exception e) {
+            // 无法确认配额时拒绝上传，避免超额
+            log.error("预留存储配额失败, 用户: {}, 父目录: {}", userId, parentId, e);
+            throw new FileStorageException("存储配额服务暂不可用, 请稍后重试", e);
+        }
+        if (exceeded != null && exceeded > 0) {
+            int index = exceeded.intValue() - 1;
+            throw new BadRequestException(ResultCode.INSUFFICIENT_STORAGE, String.format("%s存储配额不足, 配额: %s, 本次需要: %s",
+                    labels.get(index), DataSize.ofBytes(limits.get(index)), DataSize.ofBytes(bytes)));
+        }
+        return new Reservation(member, bytes, keys);
+    }
+
+    @Override
+    public void settle(Reservation reservation, long committedBytes) {
+        if (reservation == null || reservation.isEmpty()) {
+            return;
+        }
+        try {
+            stringRedisTemplate.execute(SETTLE_SCRIPT, reservation.keys(), reservation.member(),
+                    String.valueOf(reservation.bytes()), String.valueOf(committedBytes));
+        } catch (Exception e) {
+            // 文件记录已提交，不影响上传结果；预留到期后自动回收，已使用量由定时校正修正
+            log.warn("结算存储配额失败, 预留: {}, 写入: {}", reservation.member(), committedBytes, e);
+        }
+    }
+
+    @Override
+    public void release(Map<Long, Long> bytesByUser, Long parentId, long bytes) {
+        if (!enabled) {
+            return;
+        }
+        List<String> keys = new ArrayList<>();
+        List<String> deltas = new ArrayList<>();
+        bytesByUser.forEach((userId, freed) -> {
+            if (freed > 0 && userQuota(userId) != null) {
+                keys.add(usageKey(SCOPE_USER, userId));
+                deltas.add(String.valueOf(-freed));
+            }
+        });
+        if (bytes > 0) {
+            for (Long folderId : quotaFolders(parentId)) {
+                keys.add(usageKey(SCOPE_FOLDER, folderId));
+                deltas.add(String.valueOf(-bytes));
+            }
+        }
+        if (keys.isEmpty()) {
+            return;
+        }
+        try {
+            stringRedisTemplate.execute(ADJUST_SCRIPT, keys, deltas.toArray());
+        } catch (Exception e) {
+            log.warn("扣减存储配额已使用量失败, 将在下一次校正时修正", e);
+        }
+    }
+
+    @Override
+    public void reconcile() {
+        if (!enabled) {
+            return;
+        }
+        refreshQuotas();
+        long start = System.nanoTime();
+
+        // 先读取 Redis 中的当前值，再查询数据库，校正时保留查询期间新结算的量
+        List<String> knownKeys = new ArrayList<>();
+        userQuotas.keySet().forEach(userId -> knownKeys.add(usageKey(SCOPE_USER, userId)));
+        folderQuotas.keySet().forEach(folderId -> knownKeys.add(usageKey(SCOPE_FOLDER, folderId)));
+        Map<String, String> snapshots = readUsed(knownKeys);
+
+        Map<String, Long> usage = new LinkedHashMap<>();
+        if (defaultUserQuota.toBytes() > 0) {
+            fileMapper.sumFileSizeByCreator(null)
+                    .forEach(row -> usage.put(usageKey(SCOPE_USER, row.getCreatedBy()), row.getSize()));
+        } else if (!userQuotas.isEmpty()) {
+            fileMapper.sumFileSizeByCreator(userQuotas.keySet())
+                    .forEach(row -> usage.put(usageKey(SCOPE_USER, row.getCreatedBy()), row.getSize()));
+        }
+        userQuotas.keySet().forEach(userId -> usage.putIfAbsent(usageKey(SCOPE_USER, userId), 0L));
+        usage.putAll(folderUsage(folderQuotas.keySet()));
+
+        correct(usage, snapshots);
+        log.info("存储配额校正完成, 配额数: {}, 耗时: {} ms", usage.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @Override
+    public StorageQuotaVo getUsage(String scope, Long scopeId) {
+        Long quota = SCOPE_USER.equals(scope) ? userQuota(scopeId) : folderQuotas.get(scopeId);
+        long used;
+        long reserved = 0;
+        if (enabled && quota != null) {
+            List<Object> values = stringRedisTemplate.opsForHash()
+                    .multiGet(usageKey(scope, scopeId), List.of(FIELD_USED, FIELD_RESERVED));
+            used = parseLong(values.get(0));
+            reserved = parseLong(values.get(1));
+        } else {
+            // 未设置配额时不在 Redis 中计数，直接查询数据库
+            Map<String, Long> usage = SCOPE_USER.equals(scope) ? userUsage(scopeId) : folderUsage(List.of(scopeId));
+            used = usage.getOrDefault(usageKey(scope, scopeId), 0L);
+        }
+        return StorageQuotaVo.builder()
+                .scope(scope)
+                .scopeId(scopeId)
+                .quotaBytes(quota)
+                .usedBytes(used)
+                .reservedBytes(reserved)
+                .build();
+    }
+
+    private Long userQuota(Long userId) {
+        Long quota = userQuotas.get(userId);
+        if (quota != null) {
+            return quota;
+        }
+        long defaultQuota = defaultUserQuota.toBytes();
+        return defaultQuota > 0 ? defaultQuota : null;
+    }
+
+    /**
+     * parentId 及其祖先中设置了配额的文件夹；没有文件夹配额时不查询祖先链
+     */
+    private List<Long> quotaFolders(Long parentId) {
+        Map<Long, Long> quotas = folderQuotas;
+        if (parentId == null || quotas.isEmpty()) {
+            return List.of();
+        }
+        List<Long> result = new ArrayList<>(1);
+        for (File ancestor : fileMapper.listAllAncestors(parentId)) {
+            if (quotas.containsKey(ancestor.getId())) {
+                result.add(ancestor.getId());
+            }
+        }
+        return result;
+    }
+
+    private Map<String, Long> userUsage(Long userId) {
+        Map<String, Long> usage = new HashMap<>();
+        fileMapper.sumFileSizeByCreator(List.of(userId))
+                .forEach(row -> usage.put(usageKey(SCOPE_USER, row.getCreatedBy()), row.getSize()));
+        return usage;
+    }
+
+    private Map<String, Long> folderUsage(Collection<Long> folderIds) {
+        Map<String, Long> usage = new HashMap<>();
+        if (folderIds.isEmpty()) {
+            return usage;
+        }
+        fileMapper.selectList(Wrappers.<File>lambdaQuery()
+                        .select(File::getId, File::getTotalSize)
+                        .in(File::getId, folderIds))
+                .forEach(folder -> usage.put(usageKey(SCOPE_FOLDER, folder.getId()),
+                        folder.getTotalSize() == null ? 0 : folder.getTotalSize()));
+        return usage;
+    }
+
+    private Map<String, String> readUsed(List<String> keys) {
+        Map<String, String> snapshots = new HashMap<>();
+        if (keys.isEmpty()) {
+            return snapshots;
+        }
+        List<Object> values = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            keys.forEach(key -> connection.hashCommands().hGet(key.getBytes(), FIELD_USED.getBytes()));
+            return null;
+        });
+        for (int i = 0; i < keys.size(); i++) {
+            snapshots.put(keys.get(i), values.get(i) == null ? "0" : values.get(i).toString());
+        }
+        return snapshots;
+    }
+
+    private void correct(Map<String, Long> usage, Map<String, String> snapshots) {
+        List<String> keys = new ArrayList<>();
+        List<String> args = new ArrayList<>();
+        for (Map.Entry<String, Long> entry : usage.entrySet()) {
+            keys.add(entry.getKey());
+            keys.add(entry.getKey() + RESERVATIONS_SUFFIX);
+            args.add(String.valueOf(entry.getValue() == null ? 0 : entry.getValue()));
+            args.add(snapshots.getOrDefault(entry.getKey(), "-"));
+            if (keys.size() / 2 >= RECONCILE_CHUNK) {
+                executeReconcile(keys, args);
+                keys.clear();
+                args.clear();
+            }
+        }
+        if (!keys.isEmpty()) {
+            executeReconcile(keys, args);
+        }
+    }
+
+    private void executeReconcile(List<String> keys, List<String> args) {
+        List<String> argv = new ArrayList<>(args.size() + 1);
+        argv.add(String.valueOf(System.currentTimeMillis()));
+        argv.addAll(args);
+        stringRedisTemplate.execute(RECONCILE_SCRIPT, keys, argv.toArray());
+    }
+
+    private static void addScope(List<String> keys, String scope, Long scopeId) {
+        String usageKey = usageKey(scope, scopeId);
+        keys.add(usageKey);
+        keys.add(usageKey + RESERVATIONS_SUFFIX);
+    }
+
+    private static String usageKey(String scope, Long scopeId) {
+        return KEY_PREFIX + scope + ":" + scopeId;
+    }
+
+    private static long parseLong(Object value) {
+        return value == null ? 0 : Long.parseLong(value.toString());
+    }
+}
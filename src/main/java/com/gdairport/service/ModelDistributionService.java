@@ -0,0 +1,19 @@
+package com.gdairport.service;
+
+import com.gdairport.domain.entity.AlgorithmVersion;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
+public interface ModelDistributionService {
+
+    /**
+     * 计算模型文件的大小和 SHA-256 并写入 version（不落库），发布版本前调用
+     */
+    void computeDigest(AlgorithmVersion version);
+
+    /**
+     * 边缘设备下载已发布版本的模型文件
+     * 支持 If-None-Match（304）、Range / If-Range（206 断点续传），并发下载数超限时返回 503 + Retry-After
+     */
+    void download(Long versionId, ServletWebRequest webRequest, HttpServletResponse response);
+}
@@ -0,0 +1,27 @@
+package com.gdairport.service;
+
+import com.gdairport.domain.entity.Region;
+import com.gdairport.domain.vo.RegionTreeVo;
+
+import java.util.List;
+
+public interface RegionService {
+
+    List<RegionTreeVo> getTree();
+
+    /**
+     * 区域及所有下级区域
+     */
+    List<Region> listSubtreeRegions(Long regionId);
+
+    /**
+     * 区域及所有下级区域的设备ID
+     */
+    long[] listSubtreeDeviceIds(Long regionId);
+
+    void bindDevices(Long regionId, List<Long> deviceIds);
+
+    void unbindDevice(Long regionId, Long deviceId);
+
+    void refresh();
+}
@@ -0,0 +1,46 @@
+package com.gdairport.service;
+
+import com.gdairport.domain.vo.StorageQuotaVo;
+
+import java.util.List;
+import java.util.Map;
+
+public interface StorageQuotaService {
+
+    /**
+     * 上传开始前为用户和父目录链上有配额的文件夹预留空间，任一配额不足时抛出 507
+     */
+    Reservation reserve(Long userId, Long parentId, long bytes);
+
+    /**
+     * 文件记录落库后结算预留：释放预留并把实际写入的字节计入已使用；committedBytes 为 0 表示上传失败、只释放预留
+     */
+    void settle(Reservation reservation, long committedBytes);
+
+    /**
+     * 删除提交后扣减已使用空间
+     * @param bytesByUser 每个创建人被删除的文件大小之和
+     * @param parentId 被删除节点的父目录
+     * @param bytes 被删除子树的文件总大小
+     */
+    void release(Map<Long, Long> bytesByUser, Long parentId, long bytes);
+
+    /**
+     * 以数据库为准校正 Redis 中的已使用空间
+     */
+    void reconcile();
+
+    StorageQuotaVo getUsage(String scope, Long scopeId);
+
+    /**
+     * 一次预留，keys 为涉及的配额计数（每个配额一对 使用量 / 预留集合 key），为空表示没有任何配额限制
+     */
+    record Reservation(String member, long bytes, List<String> keys) {
+
+        public static final Reservation NONE = new Reservation(null, 0, List.of());
+
+        public boolean isEmpty() {
+            return keys.isEmpty();
+        }
+    }
+}
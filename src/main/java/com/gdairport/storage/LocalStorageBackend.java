@@ -0,0 +1,268 @@
+package com.gdairport.storage;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLEncoder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 基于本地文件系统（NIO）的存储后端，用于边缘部署和无 MinIO 环境下的测试
+ * <p>
+ * 对象路径为 {dir}/{h[0..2]}/{h[2..4]}/{h}，h 为 key 的 SHA-256，两级分片避免单目录文件过多。
+ * 写入时先写到同目录下的临时文件，完成后原子重命名，读者不会看到写了一半的对象。
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "storage.type", havingValue = "local")
+public class LocalStorageBackend implements StorageBackend {
+
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    @Value("${storage.local.dir}")
+    private String dir;
+
+    // 写入完成后是否 fsync，关闭可提高吞吐但掉电可能丢数据
+    @Value("${storage.local.fsync}")
+    private boolean fsync;
+
+    // 预签名地址的前缀，例如 http://host:8080/api/v1
+    @Value("${storage.local.public-url}")
+    private String publicUrl;
+
+    @Value("${storage.local.presign-secret}")
+    private String presignSecret;
+
+    private Path root;
+
+    private SecretKeySpec presignKey;
+
+    @PostConstruct
+    public void init() throws IOException {
+        // 密钥为空时 SecretKeySpec 要到第一次签名才报错，这里启动时就拒绝
+        if (presignSecret == null || presignSecret.isBlank()) {
+            throw new IllegalStateException("未配置 storage.local.presign-secret，本地存储后端无法生成预签名地址");
+        }
+        presignKey = new SecretKeySpec(presignSecret.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+        root = Paths.get(dir).toAbsolutePath();
+        Files.createDirectories(root);
+        log.info("本地存储后端已启用, 目录: {}", root);
+    }
+
+    @Override
+    public void put(String key, InputStream stream, long size, String contentType) throws Exception {
+        Path target = resolve(key);
+        Files.createDirectories(target.getParent());
+        Path temp = target.resolveSibling(target.getFileName() + "." + UUID.randomUUID() + TEMP_SUFFIX);
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            ReadableByteChannel source = Channels.newChannel(stream);
+            long written = 0;
+            while (written < size) {
+                long transferred = channel.transferFrom(source, written, size - written);
+                if (transferred <= 0) {
+                    break;
+                }
+                written += transferred;
+            }
+            if (written != size) {
+                throw new IOException(String.format("写入长度不一致, key: %s, 期望: %d, 实际: %d", key, size, written));
+            }
+            if (fsync) {
+                channel.force(true);
+            }
+        } catch (Exception e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @Override
+    public InputStream get(String key) throws Exception {
+        return Files.newInputStream(resolve(key), StandardOpenOption.READ);
+    }
+
+    @Override
+    public InputStream getRange(String key, long offset, long length) throws Exception {
+        FileChannel channel = FileChannel.open(resolve(key), StandardOpenOption.READ);
+        try {
+            channel.position(offset);
+            return new RangeInputStream(Channels.newInputStream(channel), length);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public long size(String key) throws Exception {
+        return Files.size(resolve(key));
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return Files.exists(resolve(key));
+    }
+
+    @Override
+    public void delete(String key) throws Exception {
+        Files.deleteIfExists(resolve(key));
+    }
+
+    @Override
+    public List<String> deleteAll(List<String> keys) {
+        List<String> failed = new ArrayList<>();
+        for (String key : keys) {
+            try {
+                delete(key);
+            } catch (Exception e) {
+                log.error("批量删除失败, key: {}", key, e);
+                failed.add(key);
+            }
+        }
+        return failed;
+    }
+
+    @Override
+    public void copy(String sourceKey, String targetKey) throws Exception {
+        Path source = resolve(sourceKey);
+        Path target = resolve(targetKey);
+        Files.createDirectories(target.getParent());
+        Path temp = target.resolveSibling(target.getFileName() + "." + UUID.randomUUID() + TEMP_SUFFIX);
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            long size = in.size();
+            long position = 0;
+            while (position < size) {
+                position += in.transferTo(position, size - position, out);
+            }
+            if (fsync) {
+                out.force(true);
+            }
+        } catch (Exception e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @Override
+    public String presign(String key, Duration expiry) {
+        long expires = System.currentTimeMillis() / 1000 + expiry.toSeconds();
+        return publicUrl + "/storage/local/object?key=" + URLEncoder.encode(key, StandardCharsets.UTF_8)
+                + "&expires=" + expires
+                + "&signature=" + sign(key, expires);
+    }
+
+    /**
+     * 校验预签名参数
+     */
+    public boolean verifySignature(String key, long expires, String signature) {
+        if (expires < System.currentTimeMillis() / 1000 || signature == null) {
+            return false;
+        }
+        return MessageDigest.isEqual(
+                sign(key, expires).getBytes(StandardCharsets.US_ASCII),
+                signature.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * 对象在本地文件系统中的路径
+     */
+    public Path resolve(String key) {
+        String hash = sha256(key);
+        return root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    private String sign(String key, long expires) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(presignKey);
+            byte[] digest = mac.doFinal((key + "\n" + expires).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (Exception e) {
+            throw new IllegalStateException("生成预签名失败", e);
+        }
+    }
+
+    private static String sha256(String key) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(key.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 不可用", e);
+        }
+    }
+
+    /**
+     * 只读取前 remaining 个字节的输入流
+     */
+    private static class RangeInputStream extends FilterInputStream {
+
+        private long remaining;
+
+        private RangeInputStream(InputStream in, long length) {
+            super(in);
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = super.read();
+            if (b != -1) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int n = super.read(b, off, (int) Math.min(len, remaining));
+            if (n > 0) {
+                remaining -= n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(Math.min(n, remaining));
+            remaining -= skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(super.available(), remaining);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.gdairport.storage;
+
+import com.gdairport.util.MinIOUtil;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 基于 MinIO 的存储后端
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "storage.type", havingValue = "minio", matchIfMissing = true)
+public class MinIOStorageBackend implements StorageBackend {
+
+    private final MinIOUtil minIOUtil;
+
+    @Override
+    public void put(String key, InputStream stream, long size, String contentType) throws Exception {
+        minIOUtil.uploadFile(stream, key, size, contentType);
+    }
+
+    @Override
+    public InputStream get(String key) throws Exception {
+        return minIOUtil.getObject(key);
+    }
+
+    @Override
+    public InputStream getRange(String key, long offset, long length) throws Exception {
+        return minIOUtil.getObject(key, offset, length);
+    }
+
+    @Override
+    public long size(String key) throws Exception {
+        return minIOUtil.statObject(key).size();
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return minIOUtil.isObjectExist(key);
+    }
+
+    @Override
+    public void delete(String key) throws Exception {
+        // S3 语义下删除不存在的对象同样返回成功
+        minIOUtil.removeFile(key);
+    }
+
+    @Override
+    public List<String> deleteAll(List<String> keys) throws Exception {
+        if (keys.isEmpty()) {
+            return List.of();
+        }
+        return minIOUtil.removeFiles(keys);
+    }
+
+    @Override
+    public void copy(String sourceKey, String targetKey) throws Exception {
+        minIOUtil.copyFile(sourceKey, targetKey);
+    }
+
+    @Override
+    public String presign(String key, Duration expiry) throws Exception {
+        return minIOUtil.getPresignedObjectUrl(key, (int) expiry.toSeconds());
+    }
+}
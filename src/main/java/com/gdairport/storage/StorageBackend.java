@@ -0,0 +1,51 @@
+package com.gdairport.storage;
+
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 对象存储后端 SPI
+ * <p>
+ * 业务层只通过该接口读写对象，具体实现由配置项 storage.type 决定：
+ * minio（默认）使用 MinIO，local 使用本地文件系统。
+ * key 即 files.storage_id 或其他对象存储索引，写入后不再修改。
+ */
+public interface StorageBackend {
+
+    /**
+     * 写入对象，成功返回后对象对所有读操作可见
+     * @param key 对象名
+     * @param stream 数据流（由调用方关闭）
+     * @param size 数据长度（字节）
+     * @param contentType 内容类型，可为空
+     */
+    void put(String key, InputStream stream, long size, String contentType) throws Exception;
+
+    /** 读取完整对象，调用方负责关闭返回的流 */
+    InputStream get(String key) throws Exception;
+
+    /** 读取从 offset 开始的 length 个字节，调用方负责关闭返回的流 */
+    InputStream getRange(String key, long offset, long length) throws Exception;
+
+    /** 对象大小（字节），对象不存在时抛出异常 */
+    long size(String key) throws Exception;
+
+    /** 判断对象是否存在 */
+    boolean exists(String key);
+
+    /** 删除对象，对象不存在时不报错 */
+    void delete(String key) throws Exception;
+
+    /**
+     * 批量删除
+     * @return 删除失败的对象名
+     */
+    List<String> deleteAll(List<String> keys) throws Exception;
+
+    /** 拷贝对象 */
+    void copy(String sourceKey, String targetKey) throws Exception;
+
+    /** 生成限时访问的下载地址 */
+    String presign(String key, Duration expiry) throws Exception;
+}
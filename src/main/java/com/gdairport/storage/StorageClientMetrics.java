@@ -0,0 +1,108 @@
+package com.gdairport.storage;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 对象存储客户端指标（挂在 OkHttp 拦截器上）
+ * <p>
+ * 按 HTTP 方法统计请求数、失败数、耗时、收发字节数，并记录当前在途请求数。
+ * 在途请求指已发出但尚未收到响应头的请求，响应体的流式读取不计入。
+ */
+@Component
+public class StorageClientMetrics implements Interceptor {
+
+    private final Map<String, OperationStats> operations = new ConcurrentHashMap<>();
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        OperationStats stats = operations.computeIfAbsent(request.method(), k -> new OperationStats());
+        RequestBody requestBody = request.body();
+        long sent = requestBody != null ? Math.max(requestBody.contentLength(), 0) : 0;
+        inFlight.incrementAndGet();
+        long start = System.nanoTime();
+        try {
+            Response response = chain.proceed(request);
+            ResponseBody responseBody = response.body();
+            long received = responseBody != null ? Math.max(responseBody.contentLength(), 0) : 0;
+            stats.record(System.nanoTime() - start, sent, received, !response.isSuccessful());
+            return response;
+        } catch (IOException e) {
+            stats.record(System.nanoTime() - start, sent, 0, true);
+            throw e;
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * 各操作统计快照，key 为 HTTP 方法
+     */
+    public Map<String, OperationStats> snapshot() {
+        return new LinkedHashMap<>(operations);
+    }
+
+    public static class OperationStats {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final LongAdder bytesSent = new LongAdder();
+        private final LongAdder bytesReceived = new LongAdder();
+
+        private void record(long nanos, long sent, long received, boolean failed) {
+            count.increment();
+            if (failed) {
+                errors.increment();
+            }
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+            bytesSent.add(sent);
+            bytesReceived.add(received);
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public long getErrors() {
+            return errors.sum();
+        }
+
+        public long getBytesSent() {
+            return bytesSent.sum();
+        }
+
+        public long getBytesReceived() {
+            return bytesReceived.sum();
+        }
+
+        public double getAvgMillis() {
+            long n = count.sum();
+            return n == 0 ? 0 : totalNanos.sum() / 1_000_000.0 / n;
+        }
+
+        public double getMaxMillis() {
+            return maxNanos.get() / 1_000_000.0;
+        }
+    }
+}
@@ -3,10 +3,13 @@ package com.gdairport.util;
 import io.minio.*;
 import io.minio.http.Method;
 import io.minio.messages.Bucket;
+import io.minio.messages.DeleteError;
+import io.minio.messages.DeleteObject;
 import io.minio.messages.Item;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -16,11 +19,12 @@ import java.util.List;
 import java.util.Optional;
 
 /**
- * 简化版 MinIO 工具类（基于 Spring Bean 注入）
+ * MinIO 工具类（基于 Spring Bean 注入，与 MinioConfig 共用同一个连接池）
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
+@ConditionalOnProperty(name = "storage.type", havingValue = "minio", matchIfMissing = true)
 public class MinIOUtil {
 
     private final MinioClient minioClient;  // 由 MinioConfig 注入
@@ -87,16 +91,81 @@ public class MinIOUtil {
                         .build());
     }
 
+    /** 上传已知长度的输入流 */
+    public ObjectWriteResponse uploadFile(InputStream inputStream, String objectName, long size, String contentType) throws Exception {
+        PutObjectArgs.Builder builder = PutObjectArgs.builder()
+                .bucket(bucketName)
+                .object(objectName)
+                .stream(inputStream, size, -1);
+        if (contentType != null) {
+            builder.contentType(contentType);
+        }
+        return minioClient.putObject(builder.build());
+    }
+
     /** 获取文件流 */
     public InputStream getObject(String objectName) throws Exception {
         return minioClient.getObject(GetObjectArgs.builder().bucket(bucketName).object(objectName).build());
     }
 
+    /** 断点下载：从 offset 开始读取 length 个字节 */
+    public InputStream getObject(String objectName, long offset, long length) throws Exception {
+        return minioClient.getObject(
+                GetObjectArgs.builder()
+                        .bucket(bucketName)
+                        .object(objectName)
+                        .offset(offset)
+                        .length(length)
+                        .build());
+    }
+
+    /** 获取文件元信息，文件不存在时抛出异常 */
+    public StatObjectResponse statObject(String objectName) throws Exception {
+        return minioClient.statObject(StatObjectArgs.builder().bucket(bucketName).object(objectName).build());
+    }
+
+    /** 判断文件是否存在 */
+    public boolean isObjectExist(String objectName) {
+        try {
+            statObject(objectName);
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /** 拷贝文件（同一 Bucket 内） */
+    public ObjectWriteResponse copyFile(String srcObjectName, String destObjectName) throws Exception {
+        return minioClient.copyObject(
+                CopyObjectArgs.builder()
+                        .source(CopySource.builder().bucket(bucketName).object(srcObjectName).build())
+                        .bucket(bucketName)
+                        .object(destObjectName)
+                        .build());
+    }
+
     /** 删除文件 */
     public void removeFile(String objectName) throws Exception {
         minioClient.removeObject(RemoveObjectArgs.builder().bucket(bucketName).object(objectName).build());
     }
 
+    /**
+     * 批量删除文件（一次请求），返回删除失败的对象名
+     */
+    public List<String> removeFiles(List<String> objectNames) throws Exception {
+        List<DeleteObject> objects = objectNames.stream().map(DeleteObject::new).toList();
+        // removeObjects 是惰性的，必须遍历结果才会真正发出请求
+        Iterable<Result<DeleteError>> results = minioClient.removeObjects(
+                RemoveObjectsArgs.builder().bucket(bucketName).objects(objects).build());
+        List<String> failed = new ArrayList<>();
+        for (Result<DeleteError> result : results) {
+            DeleteError error = result.get();
+            log.error("批量删除失败, object: {}, error: {}", error.objectName(), error.message());
+            failed.add(error.objectName());
+        }
+        return failed;
+    }
+
     /** 列出指定前缀下所有文件 */
     public List<Item> listObjects(String prefix, boolean recursive) throws Exception {
         List<Item> list = new ArrayList<>();